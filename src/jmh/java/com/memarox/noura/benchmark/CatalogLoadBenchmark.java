@@ -0,0 +1,83 @@
+package com.memarox.noura.benchmark;
+
+import com.memarox.noura.catalog.CatalogSnapshot;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.tools.SyntheticDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading catalogs through {@link JobTrackDataLoader}: the bundled resource, and synthetic
+ * catalog files as JSON and as binary {@link CatalogSnapshot}s, and streaming a file straight into a {@link SkillIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dlogback.configurationFile=logback-benchmark.xml"})
+public class CatalogLoadBenchmark {
+
+    @Param({"1000", "100000"})
+    private int trackCount;
+
+    private final JobTrackDataLoader dataLoader = new JobTrackDataLoader();
+    private Path catalogFile;
+    private Path snapshotFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<JobTrack> catalog = new SyntheticDataGenerator(42, 2_000, 1.0, 0.2).generateCatalog(trackCount);
+        catalogFile = Files.createTempFile("noura-catalog", ".json");
+        SyntheticDataGenerator.writeCatalogJson(catalog, catalogFile);
+        snapshotFile = Files.createTempFile("noura-catalog", ".bin");
+        CatalogSnapshot.write(catalog, snapshotFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(catalogFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    public List<JobTrack> loadJobTracks() {
+        return dataLoader.loadJobTracks();
+    }
+
+    @Benchmark
+    public SkillIndex streamCatalogFileIntoIndex() {
+        SkillIndex.Builder builder = SkillIndex.builder();
+        dataLoader.streamJobTracks(catalogFile, builder::add);
+        return builder.build();
+    }
+
+    @Benchmark
+    public List<JobTrack> loadCatalogSnapshot() throws IOException {
+        return CatalogSnapshot.open(snapshotFile).readAll();
+    }
+
+    @Benchmark
+    public List<JobTrack> loadCatalogJsonFile() {
+        return dataLoader.loadJobTracks(catalogFile);
+    }
+}
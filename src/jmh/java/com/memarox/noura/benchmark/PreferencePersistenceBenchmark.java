@@ -0,0 +1,92 @@
+package com.memarox.noura.benchmark;
+
+import com.memarox.noura.entity.User;
+import com.memarox.noura.service.JpaPreferenceStore;
+import com.memarox.noura.service.PreferenceStore;
+import com.memarox.noura.service.UserPreferenceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures a save/load round trip of one user's preferences through a {@link PreferenceStore}, against a throwaway
+ * SQLite database. The store is used directly: {@link UserPreferenceService} would answer the load from its cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class PreferencePersistenceBenchmark {
+
+    @Param({"1", "5", "20"})
+    private int skillCount;
+
+    @Param({UserPreferenceService.DEV_PERSISTENCE_UNIT, UserPreferenceService.PRODUCTION_PERSISTENCE_UNIT})
+    private String persistenceUnit;
+
+    private Path databaseDirectory;
+    private PreferenceStore store;
+    private User user;
+    private Map<String, List<String>> preferences;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        databaseDirectory = Files.createTempDirectory("noura-bench");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jakarta.persistence.jdbc.url", "jdbc:sqlite:" + databaseDirectory.resolve("bench.db"));
+        properties.put("hibernate.show_sql", "false");
+        properties.put("hibernate.format_sql", "false");
+        store = new JpaPreferenceStore(persistenceUnit, properties);
+        user = store.getOrCreateUsers(List.of("benchmark-user")).get("benchmark-user");
+
+        List<String> skills = new ArrayList<>();
+        for (int i = 0; i < skillCount; i++) {
+            skills.add("Skill " + i);
+        }
+        preferences = new HashMap<>();
+        preferences.put("skills", skills);
+        preferences.put("primaryInterestArea", List.of("Data Science"));
+        preferences.put("workEnvironmentPreference", List.of("Startup"));
+        preferences.put("learningStylePreference", List.of("Hands-on Projects"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        // The WAL journal of the production unit leaves bench.db-wal and bench.db-shm next to the database
+        try (Stream<Path> files = Files.list(databaseDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(databaseDirectory);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> saveAndLoadPreferences() {
+        store.saveUserPreferences(user, preferences);
+        return store.loadUserPreferences(user);
+    }
+}
@@ -0,0 +1,109 @@
+package com.memarox.noura.benchmark;
+
+import com.memarox.noura.index.ColumnarCatalog;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.service.RecommendationService;
+import com.memarox.noura.tools.SyntheticDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scoring paths of {@link RecommendationService} against synthetic catalogs of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dlogback.configurationFile=logback-benchmark.xml"})
+public class ScoringBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int trackCount;
+
+    @Param({"1", "5", "20"})
+    private int skillCount;
+
+    private RecommendationService recommendationService;
+    private List<JobTrack> tracks;
+    private SkillIndex skillIndex;
+    private ColumnarCatalog columnarCatalog;
+    private int[] scores;
+    private Map<String, List<String>> preferences;
+    private CompiledPreferences compiledPreferences;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recommendationService = new RecommendationService();
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(42, 2_000, 1.0, 0.2);
+        tracks = generator.generateCatalog(trackCount);
+        skillIndex = SkillIndex.build(tracks);
+        columnarCatalog = ColumnarCatalog.build(tracks);
+        scores = new int[trackCount];
+        preferences = generator.generatePreferences(skillCount);
+        compiledPreferences = CompiledPreferences.compile(preferences, skillIndex.terms());
+    }
+
+    @Benchmark
+    public int calculateScore() {
+        int total = 0;
+        for (JobTrack track : tracks) {
+            total += recommendationService.calculateScore(track, preferences);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int calculateScoreCompiled() {
+        int total = 0;
+        for (JobTrack track : tracks) {
+            total += recommendationService.calculateScore(track, compiledPreferences);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public List<JobTrack> getRecommendations() {
+        return recommendationService.getRecommendations(tracks, preferences);
+    }
+
+    @Benchmark
+    public List<JobTrack> getRecommendationsIndexed() {
+        return recommendationService.getRecommendations(skillIndex, preferences);
+    }
+
+    @Benchmark
+    public List<ScoredJobTrack> getTopRecommendationsIndexed() {
+        return recommendationService.getTopRecommendations(skillIndex, preferences, 5);
+    }
+
+    @Benchmark
+    public int[] scoreColumnar() {
+        Arrays.fill(scores, 0);
+        columnarCatalog.score(preferences, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public List<ScoredJobTrack> getTopRecommendationsColumnar() {
+        return recommendationService.getTopRecommendations(columnarCatalog, preferences, 5);
+    }
+}
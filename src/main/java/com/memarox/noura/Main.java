@@ -1,13 +1,23 @@
 package com.memarox.noura;
 
+import com.memarox.noura.catalog.CatalogHolder;
 import com.memarox.noura.entity.User;
+import com.memarox.noura.index.SkillIndex;
 import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.model.ScoringWeights;
+import com.memarox.noura.server.RecommendationServer;
+import com.memarox.noura.service.CachedRecommendationService;
 import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.MaterializedRecommendationService;
 import com.memarox.noura.service.RecommendationService;
 import com.memarox.noura.service.UserPreferenceService;
+import com.memarox.noura.service.WriteBehindPreferenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.InputMismatchException;
@@ -28,17 +38,46 @@ public class Main {
     public static void main(String[] args) {
         logger.info("Noura application started.");
 
-        JobTrackDataLoader dataLoader = new JobTrackDataLoader();
-        List<JobTrack> jobTracks = dataLoader.loadJobTracks();
+        // Tracks are streamed straight into the index; -Dnoura.catalog=<file> overrides the bundled catalog
+        String catalogFile = System.getProperty("noura.catalog");
+        CatalogHolder catalogHolder = CatalogHolder.load(new JobTrackDataLoader(),
+                catalogFile != null ? Path.of(catalogFile) : null);
 
-        if (jobTracks == null || jobTracks.isEmpty()) {
+        if (catalogHolder == null) {
             logger.error("Failed to load job tracks. Application cannot proceed.");
             return;
         }
 
-        RecommendationService recommendationService = new RecommendationService();
-        UserPreferenceService userPreferenceService = new UserPreferenceService();
+        SkillIndex skillIndex = catalogHolder.current();
+        List<JobTrack> jobTracks = skillIndex.getTracks();
+
+        // -Dnoura.weights=<file> tunes the scoring weights without recompiling
+        ScoringWeights weights = ScoringWeights.defaults();
+        String weightsFile = System.getProperty("noura.weights");
+        if (weightsFile != null) {
+            weights = ScoringWeights.load(Path.of(weightsFile));
+            if (weights == null) {
+                logger.error("Failed to load scoring weights. Application cannot proceed.");
+                return;
+            }
+        }
+        RecommendationService recommendationService = new RecommendationService(weights);
+        // -Dnoura.persistence=prod selects the pooled, WAL-mode persistence unit without SQL logging
+        String persistenceUnit = "prod".equals(System.getProperty("noura.persistence"))
+                ? UserPreferenceService.PRODUCTION_PERSISTENCE_UNIT
+                : UserPreferenceService.DEV_PERSISTENCE_UNIT;
+        UserPreferenceService userPreferenceService = new UserPreferenceService(persistenceUnit, Map.of());
+
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            serve(port, catalogHolder, recommendationService, userPreferenceService);
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
+        // Saves are committed in the background so recommendations do not wait for the database
+        WriteBehindPreferenceService preferenceWriter =
+                new WriteBehindPreferenceService(userPreferenceService, WriteBehindPreferenceService.DEFAULT_CAPACITY);
 
         User currentUser = null;
         try {
@@ -50,7 +89,7 @@ public class Main {
             currentUser = userPreferenceService.getOrCreateUser(username);
             logger.info("User logged in: {}", currentUser.getUsername());
 
-            Map<String, List<String>> loadedPreferences = userPreferenceService.loadUserPreferences(currentUser);
+            Map<String, List<String>> loadedPreferences = preferenceWriter.loadUserPreferences(currentUser);
             Map<String, List<String>> userPreferences = new HashMap<>(loadedPreferences);
 
             if (!loadedPreferences.isEmpty()) {
@@ -106,27 +145,27 @@ public class Main {
             logger.info("User preferences collected: {}", userPreferences);
 
             // Save updated preferences
-            userPreferenceService.saveUserPreferences(currentUser, userPreferences);
+            preferenceWriter.saveUserPreferences(currentUser, userPreferences);
 
             System.out.println("\nAnalyzing your preferences...");
-            List<JobTrack> recommendedTracks = recommendationService.getRecommendations(jobTracks, userPreferences);
+            List<ScoredJobTrack> recommendedTracks = recommendationService.getTopRecommendations(skillIndex, userPreferences, 5);
 
             System.out.println("\nHere are the job tracks recommended for you:");
             if (recommendedTracks.isEmpty()) {
                 logger.warn("No specific recommendations found based on user input.");
                 System.out.println("No specific recommendations based on your input. Try different keywords!");
             } else {
-                for (int i = 0; i < Math.min(5, recommendedTracks.size()); i++) { // Display top 5 recommendations
-                    JobTrack track = recommendedTracks.get(i);
-                    // Recalculate score for display as the list is sorted by score
-                    int scoreForDisplay = recommendationService.calculateScore(track, userPreferences);
-                    System.out.println((i + 1) + ". " + track.getTitle() + " (Score: " + scoreForDisplay + ")");
+                for (int i = 0; i < recommendedTracks.size(); i++) {
+                    ScoredJobTrack recommendation = recommendedTracks.get(i);
+                    JobTrack track = recommendation.getJobTrack();
+                    System.out.println((i + 1) + ". " + track.getTitle() + " (Score: " + recommendation.getScore() + ")");
+                    System.out.println("   Matched on: " + recommendation.getScoreBreakdown());
                     System.out.println("   Description: " + track.getDescription());
                     System.out.println("   Average Salary: $" + track.getAverageSalary());
                     System.out.println("   More Info: " + track.getUrl());
                     System.out.println();
                 }
-                logger.info("Displayed top {} recommendations.", Math.min(5, recommendedTracks.size()));
+                logger.info("Displayed top {} recommendations.", recommendedTracks.size());
             }
 
             // Display menu and handle user choice
@@ -165,8 +204,57 @@ public class Main {
 
         } finally {
             scanner.close();
+            catalogHolder.close();
+            try {
+                preferenceWriter.close();
+            } catch (IllegalStateException e) {
+                logger.error("Some preferences were not saved: {}", e.getMessage());
+                System.out.println("Sorry, your latest preferences could not be saved.");
+            }
             userPreferenceService.close();
             logger.info("Noura application finished.");
         }
     }
+
+    /**
+     * Runs Noura as an HTTP service instead of the interactive console, until the process is terminated.
+     * An external catalog file is watched and reloaded without downtime whenever it changes.
+     */
+    private static void serve(int port, CatalogHolder catalogHolder, RecommendationService recommendationService,
+                              UserPreferenceService userPreferenceService) {
+        try {
+            CachedRecommendationService cachedRecommendationService = new CachedRecommendationService(
+                    recommendationService, catalogHolder.current(), CachedRecommendationService.DEFAULT_MAXIMUM_SIZE);
+            catalogHolder.addListener(cachedRecommendationService::applyChanges);
+            // Returning users read their materialized top list; stale lists are recomputed in the background
+            MaterializedRecommendationService materializedRecommendationService = new MaterializedRecommendationService(
+                    userPreferenceService, recommendationService, catalogHolder.current(),
+                    MaterializedRecommendationService.DEFAULT_TOP_K);
+            catalogHolder.addListener(materializedRecommendationService::applyChanges);
+            materializedRecommendationService.refreshStale();
+            if (System.getProperty("noura.catalog") != null) {
+                catalogHolder.startWatching();
+            }
+            // PATCH /catalog rewrites live tracks, so it stays disabled unless an edit token is configured
+            String catalogToken = System.getProperty("noura.catalogToken");
+            if (catalogToken == null || catalogToken.isBlank()) {
+                logger.info("Catalog edits are disabled; set -Dnoura.catalogToken to enable PATCH /catalog.");
+                catalogToken = null;
+            }
+            RecommendationServer server = new RecommendationServer(port, cachedRecommendationService, userPreferenceService,
+                    catalogToken != null ? catalogHolder : null, catalogToken, materializedRecommendationService);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(5);
+                catalogHolder.close();
+                materializedRecommendationService.close();
+                userPreferenceService.close();
+                logger.info("Noura application finished.");
+            }));
+            server.start();
+        } catch (IOException e) {
+            logger.error("Failed to start recommendation server on port {}: {}", port, e.getMessage(), e);
+            catalogHolder.close();
+            userPreferenceService.close();
+        }
+    }
 }
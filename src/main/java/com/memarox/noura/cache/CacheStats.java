@@ -0,0 +1,66 @@
+package com.memarox.noura.cache;
+
+/**
+ * Immutable snapshot of the counters of a {@link LruCache}.
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value.
+     * @return The hit count.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no cached value.
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries removed to keep the cache within its size bound, or because they expired.
+     * @return The eviction count.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of cached entries when the snapshot was taken.
+     * @return The cache size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits.
+     * @return The hit rate in [0, 1], or 0 if there were no lookups.
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, evictions=%d, size=%d, hitRate=%.3f}",
+                hits, misses, evictions, size, getHitRate());
+    }
+}
@@ -0,0 +1,266 @@
+package com.memarox.noura.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, thread-safe cache with least-recently-used eviction and hit, miss and eviction counters.
+ * <p>
+ * Keys are spread over independently locked segments, each an access-ordered {@link LinkedHashMap} holding an equal
+ * share of the capacity, so concurrent lookups of different keys rarely contend. Eviction is LRU within a segment,
+ * which approximates global LRU closely once the cache holds more than a few entries per segment.
+ * Values are computed outside the segment lock; two threads missing the same key at once may both compute it.
+ * <p>
+ * Optionally, entries expire a fixed time after they were written. An expired entry is dropped, and counted as an
+ * eviction, when it is next looked up; until then it is evicted like any other entry once its segment is full.
+ * @param <K> The key type; must implement {@code equals} and {@code hashCode}.
+ * @param <V> The value type; cached values should be immutable, since they are shared between callers.
+ */
+public final class LruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoClock;
+    private final Segment<K, V>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache whose entries never expire.
+     * @param maximumSize The maximum number of entries; must be positive.
+     */
+    public LruCache(int maximumSize) {
+        this(maximumSize, null, System::nanoTime);
+    }
+
+    /**
+     * Creates an empty cache whose entries expire a fixed time after they were written.
+     * @param maximumSize The maximum number of entries; must be positive.
+     * @param timeToLive How long an entry stays valid after it was written, or null for no expiry.
+     */
+    public LruCache(int maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, System::nanoTime);
+    }
+
+    /**
+     * Creates an empty cache with expiry measured by the given clock, e.g. a fake clock in tests.
+     * @param maximumSize The maximum number of entries; must be positive.
+     * @param timeToLive How long an entry stays valid after it was written, or null for no expiry.
+     * @param nanoClock The time source, in nanoseconds like {@link System#nanoTime()}.
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int maximumSize, Duration timeToLive, LongSupplier nanoClock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+            throw new IllegalArgumentException("timeToLive must be positive: " + timeToLive);
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive == null ? Long.MAX_VALUE : timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+        int segmentCount = Integer.highestOneBit(Math.min(MAX_SEGMENTS, maximumSize));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread the remainder so the segment capacities add up to maximumSize exactly
+            int capacity = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment<>(this, capacity);
+        }
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * @return The capacity the cache was created with.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Looks up a value and marks it as recently used.
+     * @param key The key.
+     * @return The cached value, or null if absent.
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V value = null;
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry != null) {
+                if (isExpired(entry, nanoClock.getAsLong())) {
+                    segment.remove(key);
+                    evictions.increment();
+                } else {
+                    value = entry.value;
+                }
+            }
+        }
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    /**
+     * Returns the cached value for the key, computing and caching it on a miss. If another thread caches a value
+     * for the key while this one is computing, that value wins and is returned, so a slow load never overwrites
+     * a newer {@link #put}.
+     * @param key The key.
+     * @param loader Computes the value on a miss; a null result is returned but not cached.
+     * @return The cached or computed value.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        long now = nanoClock.getAsLong();
+        synchronized (segment) {
+            Entry<V> existing = segment.get(key);
+            if (existing != null && !isExpired(existing, now)) {
+                return existing.value;
+            }
+            segment.put(key, new Entry<>(value, now));
+        }
+        return value;
+    }
+
+    /**
+     * Caches a value, evicting the least recently used entry of its segment if the segment is full.
+     * @param key The key.
+     * @param value The value; must not be null.
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Cached values must not be null");
+        }
+        Segment<K, V> segment = segmentFor(key);
+        Entry<V> entry = new Entry<>(value, nanoClock.getAsLong());
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * Removes the entry for a key, if present.
+     * @param key The key.
+     */
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes every entry whose key matches the predicate.
+     * @param predicate Selects the keys to remove.
+     * @return The number of removed entries.
+     */
+    public int invalidateIf(Predicate<? super K> predicate) {
+        int removed = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                Iterator<K> keys = segment.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (predicate.test(keys.next())) {
+                        keys.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every entry. Counters are kept.
+     */
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the current number of entries, including expired entries that have not been dropped yet.
+     * @return The cache size.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     * @return The current statistics.
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.writtenAt >= timeToLiveNanos;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * A cached value and the time it was written.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long writtenAt;
+
+        Entry(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    /**
+     * Access-ordered map that drops its eldest entry once it grows beyond its capacity.
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+        private final LruCache<K, V> cache;
+        private final int capacity;
+
+        Segment(LruCache<K, V> cache, int capacity) {
+            super(16, 0.75f, true);
+            this.cache = cache;
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > capacity) {
+                cache.evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
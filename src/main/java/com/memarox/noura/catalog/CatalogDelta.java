@@ -0,0 +1,175 @@
+package com.memarox.noura.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.JobTrack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An ordered list of catalog edits, read from a JSON patch stream: either a JSON array or a sequence of JSON
+ * objects such as newline-delimited JSON. Tracks are identified by title, ignoring case:
+ * <pre>
+ * {"op": "add", "track": {"title": "Data Engineer", "requiredSkills": ["SQL", "Spark"], ...}}
+ * {"op": "update", "track": {"title": "Data Engineer", ...}}
+ * {"op": "remove", "title": "Data Engineer"}
+ * </pre>
+ * An update replaces the whole track. Applying an add for an existing title replaces that track, an update for
+ * an unknown title adds it, and a remove for an unknown title is skipped; each of these is logged.
+ */
+public final class CatalogDelta {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogDelta.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * The kind of a catalog edit.
+     */
+    public enum Operation {
+        ADD, UPDATE, REMOVE
+    }
+
+    private final List<Change> changes;
+
+    private CatalogDelta(List<Change> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Reads a patch stream. The stream is read to its end but not closed.
+     * @param is The JSON patch stream.
+     * @return The parsed delta.
+     * @throws IOException If the stream is not valid JSON or contains an invalid edit.
+     */
+    public static CatalogDelta read(InputStream is) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        try (MappingIterator<JsonNode> nodes = MAPPER.readerFor(JsonNode.class).readValues(is)) {
+            while (nodes.hasNextValue()) {
+                changes.add(parseChange(nodes.nextValue(), changes.size()));
+            }
+        } catch (RuntimeException e) {
+            // MappingIterator reports parse errors as unchecked exceptions
+            throw new IOException("Invalid catalog patch: " + e.getMessage(), e);
+        }
+        return new CatalogDelta(changes);
+    }
+
+    /**
+     * Reads a patch file.
+     * @param deltaFile The JSON patch file.
+     * @return The parsed delta, or null if the file cannot be read or is invalid.
+     */
+    public static CatalogDelta load(Path deltaFile) {
+        try (InputStream is = Files.newInputStream(deltaFile)) {
+            return read(is);
+        } catch (IOException e) {
+            logger.error("Error loading catalog patch {}: {}", deltaFile, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static Change parseChange(JsonNode node, int position) throws IOException {
+        if (node == null || !node.isObject()) {
+            throw new IOException("Edit " + position + " is not a JSON object");
+        }
+        Operation operation;
+        try {
+            operation = Operation.valueOf(node.path("op").asText().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Edit " + position + " has an unknown op '" + node.path("op").asText() + "'");
+        }
+        if (operation == Operation.REMOVE) {
+            String title = node.hasNonNull("title") ? node.get("title").asText() : node.path("track").path("title").asText(null);
+            if (title == null || title.isEmpty()) {
+                throw new IOException("Edit " + position + " removes a track without a title");
+            }
+            return new Change(operation, title, null);
+        }
+        JsonNode trackNode = node.get("track");
+        if (trackNode == null || !trackNode.isObject()) {
+            throw new IOException("Edit " + position + " has no track object");
+        }
+        JobTrack track = MAPPER.treeToValue(trackNode, JobTrack.class);
+        if (track.getTitle() == null || track.getTitle().isEmpty()) {
+            throw new IOException("Edit " + position + " has a track without a title");
+        }
+        return new Change(operation, track.getTitle(), track);
+    }
+
+    /**
+     * Returns the number of edits.
+     * @return The edit count.
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Returns the operation of an edit.
+     * @param index The edit position.
+     * @return The operation.
+     */
+    public Operation operation(int index) {
+        return changes.get(index).operation;
+    }
+
+    /**
+     * Returns the title of the track an edit targets.
+     * @param index The edit position.
+     * @return The track title.
+     */
+    public String title(int index) {
+        return changes.get(index).title;
+    }
+
+    /**
+     * Applies the edits in order to an index editor.
+     * @param editor The editor of the catalog being changed.
+     */
+    public void applyTo(SkillIndex.Editor editor) {
+        for (Change change : changes) {
+            switch (change.operation) {
+                case ADD:
+                    if (editor.put(change.track)) {
+                        logger.warn("Catalog patch adds '{}', which already exists; replacing it.", change.title);
+                    }
+                    break;
+                case UPDATE:
+                    if (!editor.put(change.track)) {
+                        logger.warn("Catalog patch updates unknown track '{}'; adding it.", change.title);
+                    }
+                    break;
+                case REMOVE:
+                    if (!editor.remove(change.title)) {
+                        logger.warn("Catalog patch removes unknown track '{}'; skipping it.", change.title);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled operation " + change.operation);
+            }
+        }
+    }
+
+    private static final class Change {
+        private final Operation operation;
+        private final String title;
+        private final JobTrack track;
+
+        Change(Operation operation, String title, JobTrack track) {
+            this.operation = operation;
+            this.title = title;
+            this.track = track;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.memarox.noura.catalog;
+
+import com.memarox.noura.index.CatalogChanges;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.TermDictionary;
+import com.memarox.noura.service.JobTrackDataLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds the live catalog index and replaces it without downtime.
+ * <p>
+ * {@link #current()} is a single volatile read, so request threads never block. A {@link #reload()} builds the new
+ * index on a background thread from the catalog file and publishes it with an atomic reference swap; requests that
+ * already obtained the previous index keep using it until they finish. If the new catalog cannot be loaded, the
+ * previous one stays in place. With {@link #startWatching()} the catalog file is watched and reloaded whenever it
+ * changes; replace the file atomically (write a temporary file, then rename it) so a half-written catalog is never read.
+ * <p>
+ * Individual track edits are applied with {@link #apply(CatalogDelta)}, which patches a copy of the live index
+ * instead of rebuilding it. Edits live in memory only; a later reload replaces them with the file's contents.
+ */
+public final class CatalogHolder implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogHolder.class);
+    // Events for one save often arrive in bursts; wait for the file to settle before reloading
+    private static final long SETTLE_MILLIS = 200;
+
+    private final JobTrackDataLoader dataLoader;
+    private final Path catalogFile;
+    private final AtomicReference<Published> published;
+    private final List<BiConsumer<SkillIndex, CatalogChanges>> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService reloadExecutor;
+    private volatile WatchService watchService;
+
+    private CatalogHolder(JobTrackDataLoader dataLoader, Path catalogFile, SkillIndex skillIndex) {
+        this.dataLoader = dataLoader;
+        this.catalogFile = catalogFile;
+        this.published = new AtomicReference<>(new Published(skillIndex, 1));
+        this.reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads a catalog and returns a holder publishing it.
+     * @param dataLoader The loader used for the initial load and every reload.
+     * @param catalogFile The catalog file (JSON or snapshot), or null for the bundled job_tracks.json resource.
+     * @return The holder, or null if the catalog cannot be loaded or is empty.
+     */
+    public static CatalogHolder load(JobTrackDataLoader dataLoader, Path catalogFile) {
+        SkillIndex skillIndex = build(dataLoader, catalogFile);
+        return skillIndex == null ? null : new CatalogHolder(dataLoader, catalogFile, skillIndex);
+    }
+
+    /**
+     * Returns the live catalog index. Callers should read it once per request and use that snapshot throughout.
+     * @return The current index.
+     */
+    public SkillIndex current() {
+        return published.get().skillIndex;
+    }
+
+    /**
+     * Returns the version of the live catalog, which starts at 1 and increases with every published catalog.
+     * @return The current catalog version.
+     */
+    public long version() {
+        return published.get().version;
+    }
+
+    /**
+     * Registers a callback run after each new catalog is published, e.g. to drop caches.
+     * @param listener Receives the newly published index and what changed, {@link CatalogChanges#all()} for a reload.
+     */
+    public void addListener(BiConsumer<SkillIndex, CatalogChanges> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Rebuilds the catalog from its source on the background reload thread and publishes it.
+     * Reloads are serialized, so concurrent requests are applied one after another. The new catalog is encoded
+     * with a {@link TermDictionary} of its own, so terms of the replaced catalog and its edits do not pile up.
+     * @return A future completed with the new index, or with null if the catalog could not be loaded.
+     */
+    public CompletableFuture<SkillIndex> reload() {
+        return CompletableFuture.supplyAsync(() -> {
+            SkillIndex skillIndex = build(dataLoader, catalogFile);
+            if (skillIndex == null) {
+                logger.error("Catalog reload failed; keeping the current catalog (version {}).", version());
+                return null;
+            }
+            publish(skillIndex);
+            return skillIndex;
+        }, reloadExecutor);
+    }
+
+    /**
+     * Applies track edits on the background reload thread by patching a copy of the live index, then publishes it.
+     * Edits are serialized with reloads and with each other.
+     * @param delta The edits to apply.
+     * @return A future completed with the new index.
+     */
+    public CompletableFuture<SkillIndex> apply(CatalogDelta delta) {
+        return CompletableFuture.supplyAsync(() -> {
+            SkillIndex.Editor editor = current().edit();
+            delta.applyTo(editor);
+            SkillIndex skillIndex = editor.build();
+            CatalogChanges changes = editor.changes();
+            logger.info("Applied {} catalog edits: {}.", delta.size(), changes);
+            publish(skillIndex, changes);
+            return skillIndex;
+        }, reloadExecutor);
+    }
+
+    /**
+     * Publishes a completely new catalog index and notifies the listeners.
+     * @param skillIndex The index to make live.
+     */
+    public void publish(SkillIndex skillIndex) {
+        publish(skillIndex, CatalogChanges.all());
+    }
+
+    /**
+     * Publishes a new catalog index and notifies the listeners. Publishers are serialized so listeners see
+     * catalogs in version order; readers are never blocked.
+     * @param skillIndex The index to make live.
+     * @param changes What differs from the previously published index.
+     */
+    public synchronized void publish(SkillIndex skillIndex, CatalogChanges changes) {
+        Published next = published.updateAndGet(previous -> new Published(skillIndex, previous.version + 1));
+        logger.info("Published catalog version {} ({} tracks).", next.version, skillIndex.size());
+        for (BiConsumer<SkillIndex, CatalogChanges> listener : listeners) {
+            try {
+                listener.accept(skillIndex, changes);
+            } catch (RuntimeException e) {
+                logger.error("Catalog listener failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Starts watching the catalog file and reloads the catalog whenever it is created or modified.
+     * @throws IOException If the file's directory cannot be watched.
+     * @throws IllegalStateException If the holder serves the bundled resource, which cannot change.
+     */
+    public synchronized void startWatching() throws IOException {
+        if (catalogFile == null) {
+            throw new IllegalStateException("The bundled catalog resource cannot be watched");
+        }
+        if (watchService != null) {
+            return;
+        }
+        Path directory = catalogFile.toAbsolutePath().getParent();
+        WatchService service = FileSystems.getDefault().newWatchService();
+        directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+        Thread watcher = new Thread(() -> watch(service), "catalog-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Watching {} for catalog changes.", catalogFile);
+    }
+
+    private void watch(WatchService service) {
+        Path fileName = catalogFile.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = isCatalogEvent(key, fileName);
+                // Drain the rest of the burst before reloading once
+                while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isCatalogEvent(key, fileName);
+                }
+                if (changed) {
+                    logger.info("Catalog file {} changed; reloading.", catalogFile);
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed by close(); stop watching
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isCatalogEvent(WatchKey key, Path fileName) {
+        boolean matched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (fileName.equals(event.context())) {
+                matched = true;
+            }
+        }
+        key.reset();
+        return matched;
+    }
+
+    /**
+     * Stops watching the catalog file and the reload thread. The last published catalog stays readable.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Error closing catalog watcher: {}", e.getMessage());
+            }
+            watchService = null;
+        }
+        reloadExecutor.shutdown();
+    }
+
+    private static SkillIndex build(JobTrackDataLoader dataLoader, Path catalogFile) {
+        TermDictionary dictionary = new TermDictionary();
+        SkillIndex.Builder builder = SkillIndex.builder(dictionary);
+        int loaded;
+        try {
+            loaded = catalogFile != null
+                    ? dataLoader.streamJobTracks(catalogFile, dictionary, builder::add)
+                    : dataLoader.streamJobTracks(dictionary, builder::add);
+        } catch (RuntimeException e) {
+            logger.error("Error loading catalog {}: {}", catalogFile, e.getMessage(), e);
+            return null;
+        }
+        if (loaded <= 0) {
+            return null;
+        }
+        SkillIndex skillIndex = builder.build();
+        logger.info("Indexed {} job tracks ({} distinct skill terms).", skillIndex.size(), skillIndex.termCount());
+        return skillIndex;
+    }
+
+    /**
+     * An index together with the catalog version it was published as, swapped as one reference.
+     */
+    private static final class Published {
+        private final SkillIndex skillIndex;
+        private final long version;
+
+        Published(SkillIndex skillIndex, long version) {
+            this.skillIndex = skillIndex;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.memarox.noura.catalog;
+
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.model.TermDictionary;
+import com.memarox.noura.service.JobTrackDataLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compact, versioned binary form of a job track catalog, written once from JSON and memory-mapped at startup.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header      magic "NOURACAT", int version, int trackCount, int stringCount
+ * strings     int[stringCount + 1] byte offsets, then the UTF-8 bytes of all distinct strings
+ * tracks      int[trackCount] byte offsets of the records, then one record per track:
+ *             int title, int description, int url, int primaryInterestArea, int workEnvironmentPreference,
+ *             int gameEngine, double averageSalary, list learningStylePreference, list per {@link SkillCategory}
+ * list        int length (-1 for null), followed by that many string ids
+ * </pre>
+ * String ids index the dictionary; -1 encodes null. Every distinct string is stored once, so a term shared by
+ * thousands of tracks costs four bytes per occurrence. Decoding returns one shared String instance per term and
+ * resolves every skill string to its id in the snapshot's {@link TermDictionary} only once.
+ * Opening a snapshot only maps the file and checks the header; strings and tracks are decoded on first access.
+ */
+public final class CatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+    private static final byte[] MAGIC = "NOURACAT".getBytes(StandardCharsets.US_ASCII);
+    /** Current format version; bump on any layout change. */
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 3 * Integer.BYTES;
+    private static final SkillCategory[] CATEGORIES = SkillCategory.values();
+    private static final int UNRESOLVED = -2;
+
+    private final ByteBuffer buffer;
+    private final int trackCount;
+    private final int stringCount;
+    private final int stringOffsetsPosition;
+    private final int stringBytesPosition;
+    private final int trackOffsetsPosition;
+    private final String[] strings;
+    private final int[] termIds;
+    private final TermDictionary dictionary;
+
+    private CatalogSnapshot(ByteBuffer buffer, TermDictionary dictionary) throws IOException {
+        this.buffer = buffer;
+        this.dictionary = dictionary;
+        if (buffer.capacity() < HEADER_SIZE) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        int version = buffer.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new IOException("Unsupported catalog snapshot version " + version + ", expected " + VERSION);
+        }
+        this.trackCount = buffer.getInt(MAGIC.length + Integer.BYTES);
+        this.stringCount = buffer.getInt(MAGIC.length + 2 * Integer.BYTES);
+        this.stringOffsetsPosition = HEADER_SIZE;
+        this.stringBytesPosition = stringOffsetsPosition + (stringCount + 1) * Integer.BYTES;
+        this.trackOffsetsPosition = stringBytesPosition + buffer.getInt(stringOffsetsPosition + stringCount * Integer.BYTES);
+        this.strings = new String[stringCount];
+        this.termIds = new int[stringCount];
+        Arrays.fill(termIds, UNRESOLVED);
+    }
+
+    /**
+     * Memory-maps a snapshot file whose tracks are decoded with a new dictionary.
+     * @param snapshotFile The snapshot to open.
+     * @return The opened snapshot.
+     * @throws IOException If the file cannot be mapped or is not a supported snapshot.
+     */
+    public static CatalogSnapshot open(Path snapshotFile) throws IOException {
+        return open(snapshotFile, new TermDictionary());
+    }
+
+    /**
+     * Memory-maps a snapshot file whose tracks are decoded with the given dictionary.
+     * @param snapshotFile The snapshot to open.
+     * @param dictionary The dictionary of the catalog the tracks are loaded into.
+     * @return The opened snapshot.
+     * @throws IOException If the file cannot be mapped or is not a supported snapshot.
+     */
+    public static CatalogSnapshot open(Path snapshotFile, TermDictionary dictionary) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshots are limited to 2 GB: " + snapshotFile);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CatalogSnapshot(mapped, dictionary);
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the snapshot magic bytes.
+     * @param file The file to check.
+     * @return True if the file looks like a catalog snapshot.
+     */
+    public static boolean isSnapshot(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading until the magic is complete or the file ends
+            }
+            return !magic.hasRemaining() && Arrays.equals(magic.array(), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of tracks in the snapshot.
+     * @return The track count.
+     */
+    public int trackCount() {
+        return trackCount;
+    }
+
+    /**
+     * Returns the number of distinct strings in the snapshot dictionary.
+     * @return The dictionary size.
+     */
+    public int stringCount() {
+        return stringCount;
+    }
+
+    /**
+     * Decodes the track at the given position.
+     * @param index The track position, 0-based.
+     * @return A new JobTrack sharing dictionary strings with every other decoded track.
+     */
+    public JobTrack track(int index) {
+        int position = trackOffsetsPosition + trackCount * Integer.BYTES + buffer.getInt(trackOffsetsPosition + index * Integer.BYTES);
+        JobTrack track = new JobTrack(dictionary);
+        track.setTitle(string(buffer.getInt(position)));
+        track.setDescription(string(buffer.getInt(position + 4)));
+        track.setUrl(string(buffer.getInt(position + 8)));
+        track.setPrimaryInterestArea(string(buffer.getInt(position + 12)));
+        track.setWorkEnvironmentPreference(string(buffer.getInt(position + 16)));
+        track.setGameEngine(string(buffer.getInt(position + 20)));
+        track.setAverageSalary(buffer.getDouble(position + 24));
+        position += 32;
+        int[] cursor = {position};
+        track.setLearningStyleTermIds(readTermIds(cursor));
+        for (SkillCategory category : CATEGORIES) {
+            track.setTermIds(category, readTermIds(cursor));
+        }
+        return track;
+    }
+
+    /**
+     * Decodes every track in order and hands it to the consumer, e.g. a {@code SkillIndex.Builder}.
+     * @param consumer Receives each decoded track.
+     */
+    public void forEach(Consumer<JobTrack> consumer) {
+        for (int i = 0; i < trackCount; i++) {
+            consumer.accept(track(i));
+        }
+    }
+
+    /**
+     * Decodes all tracks into a list.
+     * @return The catalog in snapshot order.
+     */
+    public List<JobTrack> readAll() {
+        List<JobTrack> tracks = new ArrayList<>(trackCount);
+        forEach(tracks::add);
+        return tracks;
+    }
+
+    /**
+     * Reads a list as {@link TermDictionary} ids. Each snapshot string is interned at most once per snapshot.
+     */
+    private int[] readTermIds(int[] cursor) {
+        int length = buffer.getInt(cursor[0]);
+        cursor[0] += Integer.BYTES;
+        if (length < 0) {
+            return null;
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = termId(buffer.getInt(cursor[0]));
+            cursor[0] += Integer.BYTES;
+        }
+        return values;
+    }
+
+    private int termId(int id) {
+        if (id < 0) {
+            return -1;
+        }
+        int termId = termIds[id];
+        if (termId == UNRESOLVED) {
+            termId = dictionary.intern(string(id));
+            termIds[id] = termId;
+        }
+        return termId;
+    }
+
+    private String string(int id) {
+        if (id < 0) {
+            return null;
+        }
+        String value = strings[id];
+        if (value == null) {
+            int start = buffer.getInt(stringOffsetsPosition + id * Integer.BYTES);
+            int end = buffer.getInt(stringOffsetsPosition + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringBytesPosition + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the given catalog as a snapshot file, replacing any existing file.
+     * @param tracks The catalog, typically the output of {@code JobTrackDataLoader}.
+     * @param snapshotFile The target file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(List<JobTrack> tracks, Path snapshotFile) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> encodedStrings = new ArrayList<>();
+        List<int[]> records = new ArrayList<>(tracks.size());
+        for (JobTrack track : tracks) {
+            List<Integer> record = new ArrayList<>();
+            record.add(intern(track.getTitle(), ids, encodedStrings));
+            record.add(intern(track.getDescription(), ids, encodedStrings));
+            record.add(intern(track.getUrl(), ids, encodedStrings));
+            record.add(intern(track.getPrimaryInterestArea(), ids, encodedStrings));
+            record.add(intern(track.getWorkEnvironmentPreference(), ids, encodedStrings));
+            record.add(intern(track.getGameEngine(), ids, encodedStrings));
+            long salaryBits = Double.doubleToLongBits(track.getAverageSalary());
+            record.add((int) (salaryBits >>> 32));
+            record.add((int) salaryBits);
+            appendList(track.getLearningStylePreference(), record, ids, encodedStrings);
+            for (SkillCategory category : CATEGORIES) {
+                appendList(category.valuesOf(track), record, ids, encodedStrings);
+            }
+            records.add(record.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        int stringBytes = encodedStrings.stream().mapToInt(bytes -> bytes.length).sum();
+        int recordBytes = records.stream().mapToInt(record -> record.length * Integer.BYTES).sum();
+        long size = (long) HEADER_SIZE + (encodedStrings.size() + 1L) * Integer.BYTES + stringBytes
+                + (long) tracks.size() * Integer.BYTES + recordBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for a snapshot: " + size + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        out.put(MAGIC).putInt(VERSION).putInt(tracks.size()).putInt(encodedStrings.size());
+        int offset = 0;
+        for (byte[] bytes : encodedStrings) {
+            out.putInt(offset);
+            offset += bytes.length;
+        }
+        out.putInt(offset);
+        encodedStrings.forEach(out::put);
+        offset = 0;
+        for (int[] record : records) {
+            out.putInt(offset);
+            offset += record.length * Integer.BYTES;
+        }
+        for (int[] record : records) {
+            for (int value : record) {
+                out.putInt(value);
+            }
+        }
+        out.flip();
+
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        logger.info("Wrote catalog snapshot with {} tracks and {} strings ({} bytes) to {}.",
+                tracks.size(), encodedStrings.size(), size, snapshotFile);
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<byte[]> encodedStrings) {
+        if (value == null) {
+            return -1;
+        }
+        return ids.computeIfAbsent(value, v -> {
+            encodedStrings.add(v.getBytes(StandardCharsets.UTF_8));
+            return encodedStrings.size() - 1;
+        });
+    }
+
+    private static void appendList(List<String> values, List<Integer> record, Map<String, Integer> ids, List<byte[]> encodedStrings) {
+        if (values == null) {
+            record.add(-1);
+            return;
+        }
+        record.add(values.size());
+        for (String value : values) {
+            record.add(intern(value, ids, encodedStrings));
+        }
+    }
+
+    /**
+     * Command line entry point converting a JSON catalog into a snapshot.
+     * Usage: {@code CatalogSnapshot <catalog.json> <catalog.bin>}.
+     * @param args The command line arguments.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CatalogSnapshot <catalog.json> <catalog.bin>");
+            return;
+        }
+        List<JobTrack> tracks = new JobTrackDataLoader().loadJobTracks(Path.of(args[0]));
+        if (tracks == null) {
+            throw new IOException("Could not load catalog " + args[0]);
+        }
+        write(tracks, Path.of(args[1]));
+    }
+}
@@ -2,8 +2,15 @@ package com.memarox.noura.entity;
 
 import jakarta.persistence.*;
 
+/**
+ * One value of a user preference. A preference list is stored as one row per value, numbered by
+ * {@code valueIndex} to keep its order, so values can be indexed and searched individually.
+ */
 @Entity
-@Table(name = "user_preferences")
+@Table(name = "user_preference_values",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_preference_values_position",
+                columnNames = {"user_id", "preferenceKey", "valueIndex"}), // Also serves lookups by user and key
+        indexes = @Index(name = "idx_user_preference_values_key_value", columnList = "preferenceKey, preferenceValue"))
 public class UserPreference {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,7 +23,10 @@ public class UserPreference {
     @Column(nullable = false)
     private String preferenceKey;
 
-    @Column(nullable = false, length = 1000) // Increased length for comma-separated values
+    @Column(nullable = false)
+    private int valueIndex;
+
+    @Column(nullable = false)
     private String preferenceValue;
 
     // Getters and Setters
@@ -44,6 +54,14 @@ public class UserPreference {
         this.preferenceKey = preferenceKey;
     }
 
+    public int getValueIndex() {
+        return valueIndex;
+    }
+
+    public void setValueIndex(int valueIndex) {
+        this.valueIndex = valueIndex;
+    }
+
     public String getPreferenceValue() {
         return preferenceValue;
     }
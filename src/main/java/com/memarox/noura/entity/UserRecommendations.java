@@ -0,0 +1,58 @@
+package com.memarox.noura.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * The materialized top recommendations of a user: one row per user, read and replaced as a whole.
+ * The ranked tracks are kept as a JSON array of titles, scores and score breakdowns, stamped with the catalog
+ * version and the preference fingerprint they were computed for.
+ */
+@Entity
+@Table(name = "user_recommendations")
+public class UserRecommendations {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private String catalogVersion;
+
+    @Column(nullable = false, length = 4000)
+    private String preferencesFingerprint;
+
+    @Column(nullable = false, length = 65535)
+    private String recommendations;
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(String catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    public String getPreferencesFingerprint() {
+        return preferencesFingerprint;
+    }
+
+    public void setPreferencesFingerprint(String preferencesFingerprint) {
+        this.preferencesFingerprint = preferencesFingerprint;
+    }
+
+    public String getRecommendations() {
+        return recommendations;
+    }
+
+    public void setRecommendations(String recommendations) {
+        this.recommendations = recommendations;
+    }
+}
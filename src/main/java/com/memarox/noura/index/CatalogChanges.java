@@ -0,0 +1,99 @@
+package com.memarox.noura.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * What a set of catalog edits touched: the folded skill terms, interest areas and work environments, and the
+ * learning styles of every track that was added, changed, removed or renumbered. A result computed against the
+ * previous catalog is still valid unless {@link #affects} reports that one of its preferences can match a change.
+ */
+public final class CatalogChanges {
+
+    private static final CatalogChanges ALL = new CatalogChanges(null, null, null, null);
+
+    private final Set<String> terms;
+    private final Set<String> interestAreas;
+    private final Set<String> workEnvironments;
+    private final Set<String> learningStyles;
+
+    CatalogChanges(Set<String> terms, Set<String> interestAreas, Set<String> workEnvironments,
+                   Set<String> learningStyles) {
+        this.terms = terms == null ? null : Collections.unmodifiableSet(new HashSet<>(terms));
+        this.interestAreas = interestAreas == null ? null : Collections.unmodifiableSet(new HashSet<>(interestAreas));
+        this.workEnvironments = workEnvironments == null ? null : Collections.unmodifiableSet(new HashSet<>(workEnvironments));
+        this.learningStyles = learningStyles == null ? null : Collections.unmodifiableSet(new HashSet<>(learningStyles));
+    }
+
+    /**
+     * Returns the changes of a full catalog replacement, which affect every result.
+     * @return The catch-all change set.
+     */
+    public static CatalogChanges all() {
+        return ALL;
+    }
+
+    /**
+     * Returns whether this change set replaces the whole catalog.
+     * @return True for {@link #all()}.
+     */
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * Returns whether nothing was touched.
+     * @return True if results computed before the edits are all still valid.
+     */
+    public boolean isEmpty() {
+        return !isAll() && terms.isEmpty() && interestAreas.isEmpty() && workEnvironments.isEmpty()
+               && learningStyles.isEmpty();
+    }
+
+    /**
+     * Returns whether a result computed for the given preferences may differ after these changes.
+     * A skill is affected when it is contained in a changed term, mirroring how partial matches are scored.
+     * @param foldedSkills The case-folded preferred skills.
+     * @param foldedInterestArea The case-folded preferred interest area, or null.
+     * @param foldedWorkEnvironment The case-folded preferred work environment, or null.
+     * @param learningStyles The preferred learning styles, matched case-sensitively.
+     * @return True if the result must be recomputed.
+     */
+    public boolean affects(Collection<String> foldedSkills, String foldedInterestArea, String foldedWorkEnvironment,
+                           Collection<String> learningStyles) {
+        if (isAll()) {
+            return true;
+        }
+        if (foldedInterestArea != null && interestAreas.contains(foldedInterestArea)) {
+            return true;
+        }
+        if (foldedWorkEnvironment != null && workEnvironments.contains(foldedWorkEnvironment)) {
+            return true;
+        }
+        for (String style : learningStyles) {
+            if (this.learningStyles.contains(style)) {
+                return true;
+            }
+        }
+        for (String term : terms) {
+            for (String skill : foldedSkills) {
+                if (term.contains(skill)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "CatalogChanges{all}" : "CatalogChanges{" +
+               "terms=" + terms.size() +
+               ", interestAreas=" + interestAreas +
+               ", workEnvironments=" + workEnvironments +
+               ", learningStyles=" + learningStyles +
+               '}';
+    }
+}
@@ -0,0 +1,505 @@
+package com.memarox.noura.index;
+
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoringWeights;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.model.TermDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of a job track catalog for scoring with tight, allocation-free primitive loops.
+ * <p>
+ * Every skill category is one {@link Column}: the folded term ids of all tracks packed into a single {@code int[]}
+ * with per-track offsets, plus the same data inverted into per-term runs of track ordinals. The primary interest
+ * area, work environment and learning styles are columns too. A user's preferences are compiled once into a bitset
+ * of the catalog terms they match and the number of exact and partial matches per term; scoring then adds into an
+ * {@code int[]} accumulator with one slot per track.
+ * <p>
+ * For each category the kernel picks the cheaper direction: when the matched terms are rare it walks their inverted
+ * runs and only touches the tracks that contain them, otherwise it streams the forward column once, looking up
+ * each item in a dense table of the points the matched terms earn in that category. Both directions produce the
+ * same sums, and the scores are identical to {@code RecommendationService.calculateScore}. Instances are immutable
+ * and safe to share between threads.
+ */
+public final class ColumnarCatalog {
+
+    private static final SkillCategory[] CATEGORIES = SkillCategory.values();
+
+    private final TermDictionary dictionary;
+    private final List<JobTrack> tracks;
+    private final int[] localTermIds;
+    private final String[] terms;
+    private final SubstringIndex substringIndex;
+    private final Column[] skillColumns;
+    private final Map<String, Integer> interestAreaIds;
+    private final Column interestAreaColumn;
+    private final Map<String, Integer> workEnvironmentIds;
+    private final Column workEnvironmentColumn;
+    private final Map<String, Integer> learningStyleIds;
+    private final Column learningStyleColumn;
+
+    private ColumnarCatalog(Builder builder) {
+        this.dictionary = builder.dictionary;
+        this.tracks = Collections.unmodifiableList(builder.tracks);
+        this.localTermIds = builder.localTermIds;
+        this.terms = builder.terms.toArray(new String[0]);
+        this.substringIndex = SubstringIndex.build(terms);
+        int termCount = terms.length;
+        this.skillColumns = new Column[CATEGORIES.length];
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            skillColumns[c] = builder.skillColumns[c].build(termCount);
+        }
+        this.interestAreaIds = builder.interestAreaIds;
+        this.interestAreaColumn = builder.interestAreas.build(interestAreaIds.size());
+        this.workEnvironmentIds = builder.workEnvironmentIds;
+        this.workEnvironmentColumn = builder.workEnvironments.build(workEnvironmentIds.size());
+        this.learningStyleIds = builder.learningStyleIds;
+        this.learningStyleColumn = builder.learningStyles.build(learningStyleIds.size());
+    }
+
+    /**
+     * Lays out the given job tracks column-wise. Track ordinals follow the order of the list.
+     * @param jobTracks The catalog, typically the output of {@code JobTrackDataLoader}.
+     * @return The columnar catalog.
+     */
+    public static ColumnarCatalog build(List<JobTrack> jobTracks) {
+        // Tracks loaded together share a dictionary, which the catalog adopts instead of re-encoding them
+        Builder builder = new Builder(jobTracks.isEmpty() ? new TermDictionary() : jobTracks.get(0).terms());
+        jobTracks.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Returns a builder with a new dictionary that appends tracks one at a time, e.g. while they are being streamed.
+     * @return A new, empty builder.
+     */
+    public static Builder builder() {
+        return builder(new TermDictionary());
+    }
+
+    /**
+     * Returns a builder that encodes the catalog with the given dictionary, e.g. the one its tracks are loaded with.
+     * @param dictionary The dictionary of the catalog.
+     * @return A new, empty builder.
+     */
+    public static Builder builder(TermDictionary dictionary) {
+        return new Builder(dictionary);
+    }
+
+    /**
+     * Returns the number of tracks.
+     * @return The catalog size.
+     */
+    public int size() {
+        return tracks.size();
+    }
+
+    /**
+     * Returns the track with the given ordinal.
+     * @param ordinal The track ordinal.
+     * @return The job track.
+     */
+    public JobTrack getTrack(int ordinal) {
+        return tracks.get(ordinal);
+    }
+
+    /**
+     * Returns the tracks in ordinal order.
+     * @return An unmodifiable view of the catalog.
+     */
+    public List<JobTrack> getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Returns the dictionary the catalog is encoded with, to compile preferences against.
+     * @return The catalog's dictionary.
+     */
+    public TermDictionary terms() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the number of distinct folded skill terms in the catalog.
+     * @return The term count.
+     */
+    public int termCount() {
+        return substringIndex.termCount();
+    }
+
+    /**
+     * Scores every track against the given user preferences.
+     * @param userPreferences A map of user preferences as accepted by {@code RecommendationService}.
+     * @return A new accumulator holding the score of each track ordinal.
+     */
+    public int[] score(Map<String, List<String>> userPreferences) {
+        return score(CompiledPreferences.compile(userPreferences, dictionary));
+    }
+
+    /**
+     * Scores every track against compiled user preferences.
+     * @param preferences The user preferences, compiled once for this request.
+     * @return A new accumulator holding the score of each track ordinal.
+     */
+    public int[] score(CompiledPreferences preferences) {
+        return score(preferences, ScoringWeights.defaults());
+    }
+
+    /**
+     * Scores every track against compiled user preferences with the given weights.
+     * @param preferences The user preferences, compiled once for this request.
+     * @param weights The weights of the scoring rules.
+     * @return A new accumulator holding the score of each track ordinal.
+     */
+    public int[] score(CompiledPreferences preferences, ScoringWeights weights) {
+        int[] scores = new int[tracks.size()];
+        score(preferences, weights, scores);
+        return scores;
+    }
+
+    /**
+     * Adds the score of every track against the given user preferences to an existing accumulator.
+     * @param userPreferences A map of user preferences as accepted by {@code RecommendationService}.
+     * @param scores The accumulator, with at least {@link #size()} slots; usually zeroed by the caller.
+     */
+    public void score(Map<String, List<String>> userPreferences, int[] scores) {
+        score(CompiledPreferences.compile(userPreferences, dictionary), scores);
+    }
+
+    /**
+     * Adds the score of every track against compiled user preferences to an existing accumulator,
+     * so callers scoring many users can reuse one array.
+     * @param preferences The user preferences, compiled once for this request.
+     * @param scores The accumulator, with at least {@link #size()} slots; usually zeroed by the caller.
+     */
+    public void score(CompiledPreferences preferences, int[] scores) {
+        score(preferences, ScoringWeights.defaults(), scores);
+    }
+
+    /**
+     * Adds the score of every track against compiled user preferences with the given weights to an accumulator.
+     * @param preferences The user preferences, compiled once for this request.
+     * @param weights The weights of the scoring rules.
+     * @param scores The accumulator, with at least {@link #size()} slots; usually zeroed by the caller.
+     */
+    public void score(CompiledPreferences preferences, ScoringWeights weights, int[] scores) {
+        if (scores.length < tracks.size()) {
+            throw new IllegalArgumentException("Accumulator has " + scores.length + " slots for " + tracks.size() + " tracks");
+        }
+        SkillQuery query = compileSkills(preferences.in(dictionary));
+        if (query != null) {
+            for (int c = 0; c < CATEGORIES.length; c++) {
+                scoreCategory(skillColumns[c], weights.exactMatchWeight(CATEGORIES[c]), weights.partialMatchWeight(CATEGORIES[c]), query, scores);
+            }
+        }
+
+        if (preferences.foldedInterestArea() != null) {
+            addRun(interestAreaColumn, interestAreaIds.get(preferences.foldedInterestArea()), weights.interestAreaWeight(), scores);
+        }
+        if (preferences.foldedWorkEnvironment() != null) {
+            addRun(workEnvironmentColumn, workEnvironmentIds.get(preferences.foldedWorkEnvironment()), weights.workEnvironmentWeight(), scores);
+        }
+        for (String style : preferences.learningStyles()) {
+            addRun(learningStyleColumn, learningStyleIds.get(style), weights.learningStyleWeight(), scores);
+        }
+    }
+
+    /**
+     * Compiles the user's skills into per-term exact and partial match counts over the local term ids.
+     * Returns null if no skill matches any catalog term.
+     */
+    private SkillQuery compileSkills(CompiledPreferences preferences) {
+        int termCount = substringIndex.termCount();
+        int[] exactCounts = null;
+        int[] partialCounts = null;
+        long[] matched = null;
+        for (int s = 0; s < preferences.skillCount(); s++) {
+            String query = preferences.foldedSkill(s);
+            int[] containing = substringIndex.termsContaining(query);
+            if (containing.length == 0) {
+                continue;
+            }
+            int foldedId = preferences.skillTermId(s);
+            int exactId = foldedId >= 0 && foldedId < localTermIds.length ? localTermIds[foldedId] : -1;
+            if (foldedId < 0) {
+                // Compiled before the term entered the dictionary: the equal term is the containing one of equal length
+                for (int termId : containing) {
+                    if (terms[termId].length() == query.length()) {
+                        exactId = termId;
+                    }
+                }
+            }
+            if (matched == null) {
+                exactCounts = new int[termCount];
+                partialCounts = new int[termCount];
+                matched = new long[(termCount + 63) >>> 6];
+            }
+            for (int termId : containing) {
+                if (termId == exactId) {
+                    exactCounts[termId]++;
+                } else {
+                    partialCounts[termId]++;
+                }
+                matched[termId >>> 6] |= 1L << termId;
+            }
+        }
+        return matched == null ? null : new SkillQuery(matched, exactCounts, partialCounts);
+    }
+
+    private static void scoreCategory(Column column, int exactWeight, int partialWeight, SkillQuery query, int[] scores) {
+        if (exactWeight == 0 && partialWeight == 0) {
+            return;
+        }
+        long[] matched = query.matched;
+        int[] exactCounts = query.exactCounts;
+        int[] partialCounts = query.partialCounts;
+
+        // Cost of walking the inverted runs of the matched terms versus streaming the whole forward column
+        long invertedCost = 0;
+        int[] termOffsets = column.termOffsets;
+        for (int word = 0; word < matched.length; word++) {
+            long bits = matched[word];
+            while (bits != 0) {
+                int termId = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                invertedCost += termOffsets[termId + 1] - termOffsets[termId];
+            }
+        }
+        if (invertedCost == 0) {
+            return;
+        }
+
+        if (invertedCost * 2 < column.terms.length) {
+            int[] postings = column.tracks;
+            for (int word = 0; word < matched.length; word++) {
+                long bits = matched[word];
+                while (bits != 0) {
+                    int termId = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int points = exactCounts[termId] * exactWeight + partialCounts[termId] * partialWeight;
+                    for (int i = termOffsets[termId], end = termOffsets[termId + 1]; i < end; i++) {
+                        scores[postings[i]] += points;
+                    }
+                }
+            }
+        } else {
+            // Dense per-term points for this category make the forward scan a branch-free gather
+            int[] points = query.points;
+            for (int word = 0; word < matched.length; word++) {
+                long bits = matched[word];
+                while (bits != 0) {
+                    int termId = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    points[termId] = exactCounts[termId] * exactWeight + partialCounts[termId] * partialWeight;
+                }
+            }
+            int[] trackOffsets = column.trackOffsets;
+            int[] terms = column.terms;
+            int trackCount = trackOffsets.length - 1;
+            for (int track = 0; track < trackCount; track++) {
+                int sum = 0;
+                for (int i = trackOffsets[track], end = trackOffsets[track + 1]; i < end; i++) {
+                    sum += points[terms[i]];
+                }
+                scores[track] += sum;
+            }
+        }
+    }
+
+    private static void addRun(Column column, Integer valueId, int points, int[] scores) {
+        if (valueId == null) {
+            return;
+        }
+        int[] postings = column.tracks;
+        for (int i = column.termOffsets[valueId], end = column.termOffsets[valueId + 1]; i < end; i++) {
+            scores[postings[i]] += points;
+        }
+    }
+
+    /**
+     * Compiled skill preferences: the bitset of matched local term ids and, per term,
+     * how many skills match it exactly and how many only partially. {@code points} is scratch space
+     * for the per-category weights of the matched terms; unmatched terms stay at zero.
+     */
+    private static final class SkillQuery {
+        private final long[] matched;
+        private final int[] exactCounts;
+        private final int[] partialCounts;
+        private final int[] points;
+
+        SkillQuery(long[] matched, int[] exactCounts, int[] partialCounts) {
+            this.matched = matched;
+            this.exactCounts = exactCounts;
+            this.partialCounts = partialCounts;
+            this.points = new int[exactCounts.length];
+        }
+    }
+
+    /**
+     * One attribute of all tracks in compressed sparse row form, in both directions: {@code terms} holds the
+     * term ids of track {@code t} in {@code [trackOffsets[t], trackOffsets[t + 1])}, and {@code tracks} holds the
+     * ascending ordinals of the tracks containing term {@code id} in {@code [termOffsets[id], termOffsets[id + 1])}.
+     */
+    private static final class Column {
+        private final int[] trackOffsets;
+        private final int[] terms;
+        private final int[] termOffsets;
+        private final int[] tracks;
+
+        Column(int[] trackOffsets, int[] terms, int[] termOffsets, int[] tracks) {
+            this.trackOffsets = trackOffsets;
+            this.terms = terms;
+            this.termOffsets = termOffsets;
+            this.tracks = tracks;
+        }
+    }
+
+    /**
+     * Appends the term ids of one column track by track and inverts them with a counting sort on build.
+     */
+    private static final class ColumnBuilder {
+        private int[] trackOffsets = new int[64];
+        private int[] terms = new int[256];
+        private int trackCount;
+        private int size;
+
+        void add(int termId) {
+            if (size == terms.length) {
+                terms = Arrays.copyOf(terms, size * 2);
+            }
+            terms[size++] = termId;
+        }
+
+        void endTrack() {
+            trackCount++;
+            if (trackCount == trackOffsets.length) {
+                trackOffsets = Arrays.copyOf(trackOffsets, trackCount * 2);
+            }
+            trackOffsets[trackCount] = size;
+        }
+
+        Column build(int termCount) {
+            int[] termOffsets = new int[termCount + 1];
+            for (int i = 0; i < size; i++) {
+                termOffsets[terms[i] + 1]++;
+            }
+            for (int termId = 0; termId < termCount; termId++) {
+                termOffsets[termId + 1] += termOffsets[termId];
+            }
+            int[] next = Arrays.copyOf(termOffsets, termCount);
+            int[] tracks = new int[size];
+            for (int track = 0; track < trackCount; track++) {
+                for (int i = trackOffsets[track]; i < trackOffsets[track + 1]; i++) {
+                    tracks[next[terms[i]]++] = track;
+                }
+            }
+            return new Column(Arrays.copyOf(trackOffsets, trackCount + 1), Arrays.copyOf(terms, size), termOffsets, tracks);
+        }
+    }
+
+    /**
+     * Incremental builder of a {@link ColumnarCatalog}. Track ordinals follow the order of {@link #add} calls.
+     * A builder is not thread-safe and must not be reused after {@link #build()}.
+     */
+    public static final class Builder {
+        private final TermDictionary dictionary;
+        private final List<JobTrack> tracks = new ArrayList<>();
+        private int[] localTermIds = new int[0];
+        private final List<String> terms = new ArrayList<>();
+        private final ColumnBuilder[] skillColumns = new ColumnBuilder[CATEGORIES.length];
+        private final Map<String, Integer> interestAreaIds = new HashMap<>();
+        private final ColumnBuilder interestAreas = new ColumnBuilder();
+        private final Map<String, Integer> workEnvironmentIds = new HashMap<>();
+        private final ColumnBuilder workEnvironments = new ColumnBuilder();
+        private final Map<String, Integer> learningStyleIds = new HashMap<>();
+        private final ColumnBuilder learningStyles = new ColumnBuilder();
+
+        private Builder(TermDictionary dictionary) {
+            this.dictionary = dictionary;
+            for (int c = 0; c < CATEGORIES.length; c++) {
+                skillColumns[c] = new ColumnBuilder();
+            }
+        }
+
+        /**
+         * Appends one more track. A track encoded with another dictionary than the builder's is stored as a
+         * re-encoded copy.
+         * @param jobTrack The track to add.
+         * @return This builder.
+         */
+        public Builder add(JobTrack jobTrack) {
+            JobTrack track = jobTrack.encodedWith(dictionary);
+            tracks.add(track);
+            for (int c = 0; c < CATEGORIES.length; c++) {
+                ColumnBuilder column = skillColumns[c];
+                int[] items = CATEGORIES[c].termIdsOf(track);
+                if (items != null) {
+                    for (int item : items) {
+                        if (item >= 0) {
+                            column.add(localTermId(dictionary.foldedId(item)));
+                        }
+                    }
+                }
+                column.endTrack();
+            }
+            addValue(interestAreas, interestAreaIds, track.getPrimaryInterestArea() == null
+                    ? null : TermDictionary.fold(track.getPrimaryInterestArea()));
+            addValue(workEnvironments, workEnvironmentIds, track.getWorkEnvironmentPreference() == null
+                    ? null : TermDictionary.fold(track.getWorkEnvironmentPreference()));
+            if (track.getLearningStylePreference() != null) {
+                // Learning styles are matched case-sensitively and count once per track, like List.contains
+                for (String style : new LinkedHashSet<>(track.getLearningStylePreference())) {
+                    learningStyles.add(learningStyleIds.computeIfAbsent(style, k -> learningStyleIds.size()));
+                }
+            }
+            learningStyles.endTrack();
+            return this;
+        }
+
+        private int localTermId(int foldedId) {
+            if (foldedId >= localTermIds.length) {
+                int oldLength = localTermIds.length;
+                localTermIds = Arrays.copyOf(localTermIds, Math.max(foldedId + 1, oldLength * 2));
+                Arrays.fill(localTermIds, oldLength, localTermIds.length, -1);
+            }
+            int localId = localTermIds[foldedId];
+            if (localId < 0) {
+                localId = terms.size();
+                terms.add(dictionary.term(foldedId));
+                localTermIds[foldedId] = localId;
+            }
+            return localId;
+        }
+
+        private static void addValue(ColumnBuilder column, Map<String, Integer> ids, String value) {
+            if (value != null) {
+                column.add(ids.computeIfAbsent(value, k -> ids.size()));
+            }
+            column.endTrack();
+        }
+
+        /**
+         * Returns the number of tracks added so far.
+         * @return The track count.
+         */
+        public int size() {
+            return tracks.size();
+        }
+
+        /**
+         * Builds the immutable columnar catalog.
+         * @return The catalog over all added tracks.
+         */
+        public ColumnarCatalog build() {
+            return new ColumnarCatalog(this);
+        }
+    }
+}
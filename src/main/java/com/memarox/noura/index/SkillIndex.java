@@ -0,0 +1,729 @@
+package com.memarox.noura.index;
+
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoringWeights;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.model.TermDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index over a job track catalog. Every skill-list item of every track is normalized
+ * (lower-cased) and mapped to the postings of (track ordinal, skill category) pairs it appears in.
+ * Items are grouped by their folded {@link TermDictionary} id, so building the index needs no string hashing;
+ * exact skill matches are answered with a single dictionary lookup and scoring only touches the tracks
+ * that actually share a term with the user's preferences. Partial matches are resolved through a
+ * {@link SubstringIndex} over the distinct terms, so their cost grows with the number of matching
+ * terms rather than with the catalog size.
+ * <p>
+ * The scores produced by {@link #score(Map)} are identical to summing
+ * {@code RecommendationService.calculateScore} over the catalog. Instances are immutable and safe
+ * to share between threads once built. Small catalog changes are applied with an {@link #edit() Editor},
+ * which derives a new index that shares every untouched posting list with this one.
+ */
+public final class SkillIndex {
+
+    private static final SkillCategory[] CATEGORIES = SkillCategory.values();
+
+    // Terms added by edits are scanned linearly until there are enough of them to rebuild the substring index
+    private static final int MIN_UNINDEXED_TERMS = 256;
+
+    private final TermDictionary dictionary;
+    private final List<JobTrack> tracks;
+    private final Map<String, Integer> titleOrdinals;
+    private final int[] localTermIds;
+    private final String[] terms;
+    private final Postings[] postings;
+    private final int liveTermCount;
+    private final SubstringIndex substringIndex;
+    private final Map<String, int[]> interestAreaPostings;
+    private final Map<String, int[]> workEnvironmentPostings;
+    private final Map<String, int[]> learningStylePostings;
+
+    private SkillIndex(TermDictionary dictionary, List<JobTrack> tracks, Map<String, Integer> titleOrdinals,
+                       Postings[] postingsByFoldedId, Map<String, int[]> interestAreaPostings,
+                       Map<String, int[]> workEnvironmentPostings, Map<String, int[]> learningStylePostings) {
+        this.dictionary = dictionary;
+        this.tracks = tracks;
+        this.titleOrdinals = titleOrdinals;
+        // Local ids number only the folded terms that occur in this catalog, so the substring index stays dense
+        this.localTermIds = new int[postingsByFoldedId.length];
+        Arrays.fill(localTermIds, -1);
+        List<String> presentTerms = new ArrayList<>();
+        List<Postings> presentPostings = new ArrayList<>();
+        for (int foldedId = 0; foldedId < postingsByFoldedId.length; foldedId++) {
+            if (postingsByFoldedId[foldedId] != null) {
+                localTermIds[foldedId] = presentTerms.size();
+                presentTerms.add(dictionary.term(foldedId));
+                presentPostings.add(postingsByFoldedId[foldedId]);
+            }
+        }
+        this.terms = presentTerms.toArray(new String[0]);
+        this.postings = presentPostings.toArray(new Postings[0]);
+        this.liveTermCount = terms.length;
+        this.substringIndex = SubstringIndex.build(terms);
+        this.interestAreaPostings = interestAreaPostings;
+        this.workEnvironmentPostings = workEnvironmentPostings;
+        this.learningStylePostings = learningStylePostings;
+    }
+
+    private SkillIndex(Editor editor, SubstringIndex substringIndex, int liveTermCount) {
+        this.dictionary = editor.base.dictionary;
+        this.tracks = Collections.unmodifiableList(editor.tracks);
+        this.titleOrdinals = editor.titleOrdinals;
+        this.localTermIds = editor.localTermIds;
+        this.terms = Arrays.copyOf(editor.terms, editor.termCount);
+        this.postings = Arrays.copyOf(editor.postings, editor.termCount);
+        this.liveTermCount = liveTermCount;
+        this.substringIndex = substringIndex;
+        this.interestAreaPostings = editor.interestAreas;
+        this.workEnvironmentPostings = editor.workEnvironments;
+        this.learningStylePostings = editor.learningStyles;
+    }
+
+    /**
+     * Builds an index over the given job tracks. Track ordinals follow the order of the list.
+     * @param jobTracks The catalog to index, typically the output of {@code JobTrackDataLoader}.
+     * @return The built index.
+     */
+    public static SkillIndex build(List<JobTrack> jobTracks) {
+        // Tracks loaded together share a dictionary, which the index adopts instead of re-encoding them
+        Builder builder = new Builder(jobTracks.isEmpty() ? new TermDictionary() : jobTracks.get(0).terms());
+        jobTracks.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Returns a builder with a new dictionary that indexes tracks one at a time, e.g. while they are being
+     * streamed by {@code JobTrackDataLoader.streamJobTracks}.
+     * @return A new, empty builder.
+     */
+    public static Builder builder() {
+        return builder(new TermDictionary());
+    }
+
+    /**
+     * Returns a builder that encodes the index with the given dictionary, e.g. the one its tracks are loaded with.
+     * Edits of the built index add their terms to the same dictionary.
+     * @param dictionary The dictionary of the catalog.
+     * @return A new, empty builder.
+     */
+    public static Builder builder(TermDictionary dictionary) {
+        return new Builder(dictionary);
+    }
+
+    /**
+     * Normalizes a skill or catalog term for case-insensitive comparison.
+     * @param term The raw term.
+     * @return The lower-cased term.
+     */
+    public static String normalize(String term) {
+        return TermDictionary.fold(term);
+    }
+
+    /**
+     * Returns the number of indexed tracks.
+     * @return The catalog size.
+     */
+    public int size() {
+        return tracks.size();
+    }
+
+    /**
+     * Returns the track with the given ordinal.
+     * @param ordinal The track ordinal.
+     * @return The job track.
+     */
+    public JobTrack getTrack(int ordinal) {
+        return tracks.get(ordinal);
+    }
+
+    /**
+     * Returns the indexed tracks in ordinal order.
+     * @return An unmodifiable view of the catalog.
+     */
+    public List<JobTrack> getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Looks up a track by title, ignoring case. When several tracks share a title, the first one is returned.
+     * @param title The track title.
+     * @return The track ordinal, or -1 if no track has the title.
+     */
+    public int ordinalOf(String title) {
+        Integer ordinal = title == null ? null : titleOrdinals.get(normalize(title));
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Returns the dictionary the index is encoded with, to compile preferences against.
+     * @return The index's dictionary.
+     */
+    public TermDictionary terms() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the number of distinct normalized skill terms in the catalog.
+     * @return The term count.
+     */
+    public int termCount() {
+        return liveTermCount;
+    }
+
+    /**
+     * Returns an editor that derives a changed copy of this index. This index is not modified.
+     * @return A new editor starting from this index.
+     */
+    public Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * Scores every indexed track against the given user preferences.
+     * @param userPreferences A map of user preferences as accepted by {@code RecommendationService}.
+     * @return The per-track scores.
+     */
+    public TrackScores score(Map<String, List<String>> userPreferences) {
+        return score(CompiledPreferences.compile(userPreferences, dictionary));
+    }
+
+    /**
+     * Scores every indexed track against compiled user preferences with the default weights.
+     * @param preferences The user preferences, compiled once for this request.
+     * @return The per-track scores.
+     */
+    public TrackScores score(CompiledPreferences preferences) {
+        return score(preferences, ScoringWeights.defaults());
+    }
+
+    /**
+     * Scores every indexed track against compiled user preferences.
+     * @param compiledPreferences The user preferences, compiled once for this request, best against {@link #terms()}.
+     * @param weights The weights of the scoring rules.
+     * @return The per-track scores.
+     */
+    public TrackScores score(CompiledPreferences compiledPreferences, ScoringWeights weights) {
+        TrackScores result = new TrackScores(tracks.size());
+        CompiledPreferences preferences = compiledPreferences.in(dictionary);
+
+        for (int s = 0; s < preferences.skillCount(); s++) {
+            String query = preferences.foldedSkill(s);
+            int[] containing = termsContaining(query);
+            int exactId = exactTermId(preferences.skillTermId(s), query, containing);
+            if (exactId >= 0) {
+                Postings exact = postings[exactId];
+                for (int i = 0; i < exact.size; i++) {
+                    result.add(exact.tracks[i], weights.exactMatchWeight(CATEGORIES[exact.categories[i]]));
+                }
+            }
+            for (int termId : containing) {
+                if (termId == exactId) {
+                    continue;
+                }
+                Postings partial = postings[termId];
+                for (int i = 0; i < partial.size; i++) {
+                    result.add(partial.tracks[i], weights.partialMatchWeight(CATEGORIES[partial.categories[i]]));
+                }
+            }
+        }
+
+        if (preferences.foldedInterestArea() != null) {
+            addAll(result, interestAreaPostings.get(preferences.foldedInterestArea()), weights.interestAreaWeight());
+        }
+        if (preferences.foldedWorkEnvironment() != null) {
+            addAll(result, workEnvironmentPostings.get(preferences.foldedWorkEnvironment()), weights.workEnvironmentWeight());
+        }
+        for (String style : preferences.learningStyles()) {
+            addAll(result, learningStylePostings.get(style), weights.learningStyleWeight());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the local id of the term equal to the folded skill, or -1. Falls back to the candidates
+     * containing the skill when the skill was compiled before its term entered the dictionary.
+     */
+    private int exactTermId(int foldedId, String query, int[] containing) {
+        if (foldedId >= 0 && foldedId < localTermIds.length) {
+            return localTermIds[foldedId];
+        }
+        for (int termId : containing) {
+            if (terms[termId].length() == query.length()) {
+                return termId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the local ids of every term containing the query, including the terms added by edits
+     * that the substring index does not cover yet.
+     */
+    private int[] termsContaining(String query) {
+        int[] indexed = substringIndex.termsContaining(query);
+        int firstUnindexed = substringIndex.termCount();
+        if (firstUnindexed == terms.length) {
+            return indexed;
+        }
+        int[] matches = Arrays.copyOf(indexed, indexed.length + terms.length - firstUnindexed);
+        int count = indexed.length;
+        for (int termId = firstUnindexed; termId < terms.length; termId++) {
+            if (terms[termId].contains(query)) {
+                matches[count++] = termId;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private static void addAll(TrackScores result, int[] ordinals, int points) {
+        if (ordinals == null) {
+            return;
+        }
+        for (int ordinal : ordinals) {
+            result.add(ordinal, points);
+        }
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, IntList> lists) {
+        Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, list) -> arrays.put(key, list.toArray()));
+        return arrays;
+    }
+
+    /**
+     * Incremental builder of a {@link SkillIndex}. Track ordinals follow the order of {@link #add} calls.
+     * A builder is not thread-safe and must not be reused after {@link #build()}.
+     */
+    public static final class Builder {
+        private final TermDictionary dictionary;
+        private final List<JobTrack> tracks = new ArrayList<>();
+        private final Map<String, Integer> titleOrdinals = new HashMap<>();
+        private Postings[] postingsByFoldedId = new Postings[256];
+        private final Map<String, IntList> interestAreas = new HashMap<>();
+        private final Map<String, IntList> workEnvironments = new HashMap<>();
+        private final Map<String, IntList> learningStyles = new HashMap<>();
+
+        private Builder(TermDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Indexes one more track. A track encoded with another dictionary than the builder's is indexed as a
+         * re-encoded copy.
+         * @param jobTrack The track to add.
+         * @return This builder.
+         */
+        public Builder add(JobTrack jobTrack) {
+            JobTrack track = jobTrack.encodedWith(dictionary);
+            int ordinal = tracks.size();
+            tracks.add(track);
+            if (track.getTitle() != null) {
+                titleOrdinals.putIfAbsent(normalize(track.getTitle()), ordinal);
+            }
+            for (SkillCategory category : CATEGORIES) {
+                int[] items = category.termIdsOf(track);
+                if (items == null) {
+                    continue;
+                }
+                for (int item : items) {
+                    if (item >= 0) {
+                        postingsFor(dictionary.foldedId(item)).add(ordinal, category.ordinal());
+                    }
+                }
+            }
+            if (track.getPrimaryInterestArea() != null) {
+                interestAreas.computeIfAbsent(normalize(track.getPrimaryInterestArea()), k -> new IntList()).add(ordinal);
+            }
+            if (track.getWorkEnvironmentPreference() != null) {
+                workEnvironments.computeIfAbsent(normalize(track.getWorkEnvironmentPreference()), k -> new IntList()).add(ordinal);
+            }
+            if (track.getLearningStylePreference() != null) {
+                // Learning styles are matched case-sensitively and count once per track, like List.contains
+                for (String style : new LinkedHashSet<>(track.getLearningStylePreference())) {
+                    learningStyles.computeIfAbsent(style, k -> new IntList()).add(ordinal);
+                }
+            }
+            return this;
+        }
+
+        private Postings postingsFor(int foldedId) {
+            if (foldedId >= postingsByFoldedId.length) {
+                postingsByFoldedId = Arrays.copyOf(postingsByFoldedId, Math.max(foldedId + 1, postingsByFoldedId.length * 2));
+            }
+            Postings termPostings = postingsByFoldedId[foldedId];
+            if (termPostings == null) {
+                termPostings = new Postings();
+                postingsByFoldedId[foldedId] = termPostings;
+            }
+            return termPostings;
+        }
+
+        /**
+         * Returns the number of tracks added so far.
+         * @return The track count.
+         */
+        public int size() {
+            return tracks.size();
+        }
+
+        /**
+         * Builds the immutable index.
+         * @return The index over all added tracks.
+         */
+        public SkillIndex build() {
+            for (Postings termPostings : postingsByFoldedId) {
+                if (termPostings != null) {
+                    termPostings.trim();
+                }
+            }
+            return new SkillIndex(dictionary, Collections.unmodifiableList(tracks), titleOrdinals, postingsByFoldedId,
+                    toArrays(interestAreas), toArrays(workEnvironments), toArrays(learningStyles));
+        }
+    }
+
+    /**
+     * Derives a changed copy of a {@link SkillIndex}: tracks are added, replaced or removed by title, and only
+     * the posting lists of the terms, interest areas, work environments and learning styles those tracks use are
+     * copied and patched. Every other posting list is shared with the original index, which stays unchanged.
+     * <p>
+     * A removed track's ordinal is taken over by the last track, so ordinals stay dense. Terms that occur in no
+     * track any more keep an empty posting list until the next full rebuild. An editor is not thread-safe and
+     * must not be reused after {@link #build()}.
+     */
+    public static final class Editor {
+        private final SkillIndex base;
+        private final List<JobTrack> tracks;
+        private final Map<String, Integer> titleOrdinals;
+        private int[] localTermIds;
+        private String[] terms;
+        private Postings[] postings;
+        private int termCount;
+        private final BitSet copiedPostings = new BitSet();
+        private final Map<String, int[]> interestAreas;
+        private final Map<String, int[]> workEnvironments;
+        private final Map<String, int[]> learningStyles;
+        private final Set<String> changedTerms = new HashSet<>();
+        private final Set<String> changedInterestAreas = new HashSet<>();
+        private final Set<String> changedWorkEnvironments = new HashSet<>();
+        private final Set<String> changedLearningStyles = new HashSet<>();
+
+        private Editor(SkillIndex base) {
+            this.base = base;
+            this.tracks = new ArrayList<>(base.tracks);
+            this.titleOrdinals = new HashMap<>(base.titleOrdinals);
+            this.localTermIds = base.localTermIds;
+            this.terms = base.terms;
+            this.postings = base.postings.clone();
+            this.termCount = base.terms.length;
+            this.interestAreas = new HashMap<>(base.interestAreaPostings);
+            this.workEnvironments = new HashMap<>(base.workEnvironmentPostings);
+            this.learningStyles = new HashMap<>(base.learningStylePostings);
+        }
+
+        /**
+         * Adds a track, or replaces the track with the same title (ignoring case) in place. A track encoded with
+         * another dictionary than the index's is stored as a re-encoded copy.
+         * @param jobTrack The new or changed track; its title is the key.
+         * @return True if an existing track was replaced, false if the track was added.
+         */
+        public boolean put(JobTrack jobTrack) {
+            if (jobTrack.getTitle() == null) {
+                throw new IllegalArgumentException("A track needs a title to be added to an index");
+            }
+            JobTrack track = jobTrack.encodedWith(base.dictionary);
+            String title = normalize(track.getTitle());
+            Integer ordinal = titleOrdinals.get(title);
+            if (ordinal != null) {
+                unindex(ordinal, tracks.get(ordinal));
+                tracks.set(ordinal, track);
+                index(ordinal, track);
+                return true;
+            }
+            int added = tracks.size();
+            tracks.add(track);
+            titleOrdinals.put(title, added);
+            index(added, track);
+            return false;
+        }
+
+        /**
+         * Removes the track with the given title, ignoring case.
+         * @param title The title of the track to remove.
+         * @return True if a track was removed, false if no track has the title.
+         */
+        public boolean remove(String title) {
+            String key = normalize(title);
+            Integer ordinal = titleOrdinals.remove(key);
+            if (ordinal == null) {
+                return false;
+            }
+            unindex(ordinal, tracks.get(ordinal));
+            int last = tracks.size() - 1;
+            JobTrack moved = tracks.remove(last);
+            if (ordinal != last) {
+                // The last track fills the hole; its ordinal changes, so its results must be recomputed too
+                tracks.set(ordinal, moved);
+                renumber(last, ordinal, moved);
+                String movedTitle = normalize(moved.getTitle());
+                if (Integer.valueOf(last).equals(titleOrdinals.get(movedTitle))) {
+                    titleOrdinals.put(movedTitle, ordinal);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns what the edits so far have touched, for invalidating results computed against the original index.
+         * @return The changed terms and scalar values.
+         */
+        public CatalogChanges changes() {
+            return new CatalogChanges(changedTerms, changedInterestAreas, changedWorkEnvironments, changedLearningStyles);
+        }
+
+        /**
+         * Builds the changed index.
+         * @return The new index.
+         */
+        public SkillIndex build() {
+            int unindexed = termCount - base.substringIndex.termCount();
+            int liveTerms = 0;
+            for (int termId = 0; termId < termCount; termId++) {
+                if (postings[termId].size > 0) {
+                    liveTerms++;
+                }
+            }
+            SubstringIndex substringIndex = unindexed > Math.max(MIN_UNINDEXED_TERMS, termCount >>> 4)
+                    ? SubstringIndex.build(Arrays.copyOf(terms, termCount))
+                    : base.substringIndex;
+            return new SkillIndex(this, substringIndex, liveTerms);
+        }
+
+        private void index(int ordinal, JobTrack track) {
+            forEachTerm(track, (localId, category) -> {
+                mutablePostings(localId).add(ordinal, category);
+                changedTerms.add(terms[localId]);
+            });
+            forEachScalar(track, (values, value, changed) -> {
+                int[] ordinals = values.get(value);
+                values.put(value, ordinals == null ? new int[]{ordinal} : appended(ordinals, ordinal));
+                changed.add(value);
+            });
+        }
+
+        private void unindex(int ordinal, JobTrack track) {
+            forEachTerm(track, (localId, category) -> {
+                mutablePostings(localId).removeTrack(ordinal);
+                changedTerms.add(terms[localId]);
+            });
+            forEachScalar(track, (values, value, changed) -> {
+                int[] ordinals = values.get(value);
+                if (ordinals != null) {
+                    int[] remaining = without(ordinals, ordinal);
+                    if (remaining.length == 0) {
+                        values.remove(value);
+                    } else {
+                        values.put(value, remaining);
+                    }
+                }
+                changed.add(value);
+            });
+        }
+
+        private void renumber(int from, int to, JobTrack track) {
+            forEachTerm(track, (localId, category) -> {
+                mutablePostings(localId).renumberTrack(from, to);
+                changedTerms.add(terms[localId]);
+            });
+            forEachScalar(track, (values, value, changed) -> {
+                int[] ordinals = values.get(value);
+                if (ordinals != null) {
+                    int[] renumbered = ordinals.clone();
+                    for (int i = 0; i < renumbered.length; i++) {
+                        if (renumbered[i] == from) {
+                            renumbered[i] = to;
+                        }
+                    }
+                    values.put(value, renumbered);
+                }
+                changed.add(value);
+            });
+        }
+
+        private void forEachTerm(JobTrack track, TermVisitor visitor) {
+            for (SkillCategory category : CATEGORIES) {
+                int[] items = category.termIdsOf(track);
+                if (items == null) {
+                    continue;
+                }
+                for (int item : items) {
+                    if (item >= 0) {
+                        visitor.visit(localIdFor(base.dictionary.foldedId(item)), category.ordinal());
+                    }
+                }
+            }
+        }
+
+        private void forEachScalar(JobTrack track, ScalarVisitor visitor) {
+            if (track.getPrimaryInterestArea() != null) {
+                visitor.visit(interestAreas, normalize(track.getPrimaryInterestArea()), changedInterestAreas);
+            }
+            if (track.getWorkEnvironmentPreference() != null) {
+                visitor.visit(workEnvironments, normalize(track.getWorkEnvironmentPreference()), changedWorkEnvironments);
+            }
+            if (track.getLearningStylePreference() != null) {
+                for (String style : new LinkedHashSet<>(track.getLearningStylePreference())) {
+                    visitor.visit(learningStyles, style, changedLearningStyles);
+                }
+            }
+        }
+
+        /**
+         * Returns the local id of a folded term, appending the term if the catalog did not contain it yet.
+         */
+        private int localIdFor(int foldedId) {
+            if (foldedId < localTermIds.length && localTermIds[foldedId] >= 0) {
+                return localTermIds[foldedId];
+            }
+            if (localTermIds == base.localTermIds || foldedId >= localTermIds.length) {
+                int length = Math.max(localTermIds.length, foldedId + 1);
+                int[] grown = Arrays.copyOf(localTermIds, length);
+                Arrays.fill(grown, localTermIds.length, length, -1);
+                localTermIds = grown;
+            }
+            if (termCount == postings.length) {
+                int capacity = Math.max(16, termCount * 2);
+                postings = Arrays.copyOf(postings, capacity);
+                terms = Arrays.copyOf(terms, capacity);
+            } else if (terms == base.terms) {
+                terms = terms.clone();
+            }
+            int localId = termCount++;
+            localTermIds[foldedId] = localId;
+            terms[localId] = base.dictionary.term(foldedId);
+            postings[localId] = new Postings();
+            copiedPostings.set(localId);
+            return localId;
+        }
+
+        /**
+         * Returns the postings of a term, copying them first if they are still shared with the original index.
+         */
+        private Postings mutablePostings(int localId) {
+            if (!copiedPostings.get(localId)) {
+                postings[localId] = postings[localId].copy();
+                copiedPostings.set(localId);
+            }
+            return postings[localId];
+        }
+
+        private static int[] appended(int[] values, int value) {
+            int[] result = Arrays.copyOf(values, values.length + 1);
+            result[values.length] = value;
+            return result;
+        }
+
+        private static int[] without(int[] values, int value) {
+            int[] result = new int[values.length];
+            int size = 0;
+            for (int v : values) {
+                if (v != value) {
+                    result[size++] = v;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TermVisitor {
+        void visit(int localId, int category);
+    }
+
+    @FunctionalInterface
+    private interface ScalarVisitor {
+        void visit(Map<String, int[]> values, String value, Set<String> changed);
+    }
+
+    /**
+     * Occurrences of one normalized term: parallel arrays of track ordinals and category ordinals.
+     */
+    private static final class Postings {
+        private int[] tracks = new int[4];
+        private int[] categories = new int[4];
+        private int size;
+
+        void add(int track, int category) {
+            if (size == tracks.length) {
+                tracks = Arrays.copyOf(tracks, size * 2);
+                categories = Arrays.copyOf(categories, size * 2);
+            }
+            tracks[size] = track;
+            categories[size] = category;
+            size++;
+        }
+
+        void trim() {
+            tracks = Arrays.copyOf(tracks, size);
+            categories = Arrays.copyOf(categories, size);
+        }
+
+        Postings copy() {
+            Postings copy = new Postings();
+            copy.tracks = Arrays.copyOf(tracks, Math.max(4, size));
+            copy.categories = Arrays.copyOf(categories, Math.max(4, size));
+            copy.size = size;
+            return copy;
+        }
+
+        void removeTrack(int track) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (tracks[i] != track) {
+                    tracks[kept] = tracks[i];
+                    categories[kept] = categories[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        void renumberTrack(int from, int to) {
+            for (int i = 0; i < size; i++) {
+                if (tracks[i] == from) {
+                    tracks[i] = to;
+                }
+            }
+        }
+    }
+
+    /**
+     * Minimal growable int array used while building the index.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.memarox.noura.index;
+
+import java.util.Arrays;
+
+/**
+ * Suffix array over a fixed set of normalized terms, answering "which terms contain this string"
+ * without scanning every term. All terms are concatenated with a separator that cannot occur in a
+ * query; the suffixes starting inside a term are sorted once, so the suffixes beginning with a
+ * query form one contiguous range found by two binary searches. A query therefore costs
+ * O(|query| log N + occurrences) instead of O(total term length).
+ */
+public final class SubstringIndex {
+
+    private static final char SEPARATOR = '\0';
+
+    private final int termCount;
+    private final char[] text;
+    private final int[] suffixes;
+    private final int[] termOfPosition;
+
+    private SubstringIndex(int termCount, char[] text, int[] suffixes, int[] termOfPosition) {
+        this.termCount = termCount;
+        this.text = text;
+        this.suffixes = suffixes;
+        this.termOfPosition = termOfPosition;
+    }
+
+    /**
+     * Builds a substring index over the given terms. Term ids are the positions in the array.
+     * @param terms The normalized terms to index; must not contain the NUL character.
+     * @return The built index.
+     */
+    public static SubstringIndex build(String[] terms) {
+        int length = 0;
+        for (String term : terms) {
+            length += term.length() + 1;
+        }
+        char[] text = new char[length];
+        int[] termOfPosition = new int[length];
+        int[] suffixes = new int[length - terms.length];
+        int position = 0;
+        int suffixCount = 0;
+        for (int termId = 0; termId < terms.length; termId++) {
+            String term = terms[termId];
+            term.getChars(0, term.length(), text, position);
+            for (int i = 0; i < term.length(); i++) {
+                termOfPosition[position + i] = termId;
+                suffixes[suffixCount++] = position + i;
+            }
+            position += term.length();
+            text[position] = SEPARATOR;
+            termOfPosition[position] = termId;
+            position++;
+        }
+
+        sortSuffixes(text, suffixes, 0, suffixes.length, 0);
+        return new SubstringIndex(terms.length, text, suffixes, termOfPosition);
+    }
+
+    /**
+     * Returns the number of indexed terms.
+     * @return The term count.
+     */
+    public int termCount() {
+        return termCount;
+    }
+
+    /**
+     * Finds every term that contains the query, including a term equal to it.
+     * An empty query is contained in every term, mirroring {@link String#contains}.
+     * @param query The normalized query string.
+     * @return The distinct ids of matching terms in ascending order.
+     */
+    public int[] termsContaining(String query) {
+        if (query.isEmpty()) {
+            int[] all = new int[termCount];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        if (query.indexOf(SEPARATOR) >= 0) {
+            return new int[0];
+        }
+        int from = lowerBound(query, false);
+        int to = lowerBound(query, true);
+        if (from >= to) {
+            return new int[0];
+        }
+        int[] matches = new int[to - from];
+        for (int i = from; i < to; i++) {
+            matches[i - from] = termOfPosition[suffixes[i]];
+        }
+        Arrays.sort(matches);
+        int distinct = 0;
+        for (int i = 0; i < matches.length; i++) {
+            if (i == 0 || matches[i] != matches[i - 1]) {
+                matches[distinct++] = matches[i];
+            }
+        }
+        return Arrays.copyOf(matches, distinct);
+    }
+
+    /**
+     * Returns the first suffix index whose prefix compares greater than or equal to the query,
+     * or strictly greater when {@code upper} is set.
+     */
+    private int lowerBound(String query, boolean upper) {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePrefix(suffixes[mid], query);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the suffix at {@code start}, truncated to the query length, with the query.
+     */
+    private int comparePrefix(int start, String query) {
+        for (int i = 0; i < query.length(); i++) {
+            char c = text[start + i];
+            char q = query.charAt(i);
+            if (c != q) {
+                return Character.compare(c, q);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Sorts {@code suffixes[from, to)}, which all share their first {@code depth} characters, with
+     * multikey (three-way radix) quicksort. Shared prefixes are compared only once per partition,
+     * which matters for vocabularies full of variants such as "cloud python" and "modern python".
+     */
+    private static void sortSuffixes(char[] text, int[] suffixes, int from, int to, int depth) {
+        while (to - from > 1) {
+            if (to - from < 16) {
+                insertionSort(text, suffixes, from, to, depth);
+                return;
+            }
+            char pivot = text[suffixes[(from + to) >>> 1] + depth];
+            int less = from;
+            int greater = to - 1;
+            int i = from;
+            while (i <= greater) {
+                char c = text[suffixes[i] + depth];
+                if (c < pivot) {
+                    swap(suffixes, less++, i++);
+                } else if (c > pivot) {
+                    swap(suffixes, i, greater--);
+                } else {
+                    i++;
+                }
+            }
+            sortSuffixes(text, suffixes, from, less, depth);
+            sortSuffixes(text, suffixes, greater + 1, to, depth);
+            if (pivot == SEPARATOR) {
+                // The equal partition ends inside its terms here, so its order is irrelevant
+                return;
+            }
+            from = less;
+            to = greater + 1;
+            depth++;
+        }
+    }
+
+    private static void insertionSort(char[] text, int[] suffixes, int from, int to, int depth) {
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compareSuffixes(text, suffixes[j - 1] + depth, suffixes[j] + depth) > 0; j--) {
+                swap(suffixes, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+
+    private static int compareSuffixes(char[] text, int a, int b) {
+        while (true) {
+            char ca = text[a];
+            char cb = text[b];
+            if (ca != cb) {
+                return Character.compare(ca, cb);
+            }
+            if (ca == SEPARATOR) {
+                return 0;
+            }
+            a++;
+            b++;
+        }
+    }
+}
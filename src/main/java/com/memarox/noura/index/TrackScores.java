@@ -0,0 +1,65 @@
+package com.memarox.noura.index;
+
+import java.util.Arrays;
+
+/**
+ * Score accumulator produced by {@link SkillIndex}. Holds one score per track ordinal and remembers
+ * which ordinals received any points, so callers can skip the tracks that share nothing with the query.
+ */
+public final class TrackScores {
+
+    private final int[] scores;
+    private int[] matched;
+    private int matchedCount;
+
+    TrackScores(int trackCount) {
+        this.scores = new int[trackCount];
+        this.matched = new int[Math.min(trackCount, 16)];
+    }
+
+    void add(int ordinal, int points) {
+        if (points == 0) {
+            return;
+        }
+        if (scores[ordinal] == 0) {
+            if (matchedCount == matched.length) {
+                matched = Arrays.copyOf(matched, Math.max(16, matched.length * 2));
+            }
+            matched[matchedCount++] = ordinal;
+        }
+        scores[ordinal] += points;
+    }
+
+    /**
+     * Returns the number of tracks covered by this result, matched or not.
+     * @return The catalog size the scores were computed against.
+     */
+    public int size() {
+        return scores.length;
+    }
+
+    /**
+     * Returns the score of the track with the given ordinal.
+     * @param ordinal The track ordinal within the index.
+     * @return The accumulated score, 0 if the track matched nothing.
+     */
+    public int scoreOf(int ordinal) {
+        return scores[ordinal];
+    }
+
+    /**
+     * Returns the ordinals of all tracks that received a non-zero score, in the order they were first hit.
+     * @return A fresh array of matched ordinals.
+     */
+    public int[] matchedOrdinals() {
+        return Arrays.copyOf(matched, matchedCount);
+    }
+
+    /**
+     * Returns the number of tracks that received a non-zero score.
+     * @return The matched track count.
+     */
+    public int matchedCount() {
+        return matchedCount;
+    }
+}
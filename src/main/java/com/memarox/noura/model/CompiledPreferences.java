@@ -0,0 +1,339 @@
+package com.memarox.noura.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User preferences preprocessed once per request for scoring: skills are case-folded and resolved to
+ * {@link TermDictionary} ids, and the scalar preferences are extracted from the map and case-folded.
+ * Scoring a catalog with a compiled query does no map lookups, lower-casing or default-list allocation per track.
+ * <p>
+ * Term ids are resolved against the dictionary of the catalog the preferences are compiled for, e.g.
+ * {@code skillIndex.terms()}. Scoring a catalog with another dictionary uses the copy returned by {@link #in}, which
+ * is resolved once and kept. Instances are safe to share between threads; their only mutable state is the memo
+ * behind {@link #match} and that copy, which tolerate races.
+ */
+public final class CompiledPreferences {
+
+    /** Match result of a skill against a catalog term: no match. */
+    public static final int NO_MATCH = 0;
+    /** Match result of a skill against a catalog term: the term contains the skill. */
+    public static final int PARTIAL_MATCH = 1;
+    /** Match result of a skill against a catalog term: the term equals the skill ignoring case. */
+    public static final int EXACT_MATCH = 2;
+
+    // ASCII unit and record separators, which do not occur in user input
+    private static final char VALUE_SEPARATOR = '\u001F';
+    private static final char FIELD_SEPARATOR = '\u001E';
+    // Resolves nothing, for preferences compiled without a catalog; never interned into
+    private static final TermDictionary NO_CATALOG = new TermDictionary();
+    // Match memos start small and double while more than half full, up to this many entries per skill
+    private static final int INITIAL_MEMO_CAPACITY = 16;
+    private static final int MAX_MEMO_CAPACITY = 1 << 14;
+
+    private final TermDictionary terms;
+    private final List<String> skills;
+    private final String[] foldedSkills;
+    private final int[] skillTermIds;
+    private final int[][] matchMemo;
+    private final int[] memoSizes;
+    private final String interestArea;
+    private final String foldedInterestArea;
+    private final String workEnvironment;
+    private final String foldedWorkEnvironment;
+    private final List<String> learningStyles;
+    private final int[] learningStyleTermIds;
+    private volatile CompiledPreferences inOtherDictionary;
+
+    private CompiledPreferences(Map<String, List<String>> userPreferences, TermDictionary terms) {
+        this.terms = terms;
+        this.skills = immutable(userPreferences.get("skills"));
+        this.foldedSkills = new String[skills.size()];
+        for (int i = 0; i < foldedSkills.length; i++) {
+            foldedSkills[i] = TermDictionary.fold(skills.get(i));
+        }
+        this.skillTermIds = lookupAll(terms, Arrays.asList(foldedSkills));
+        this.matchMemo = new int[skills.size()][];
+        this.memoSizes = new int[skills.size()];
+        this.interestArea = firstOrNull(userPreferences.get("primaryInterestArea"));
+        this.foldedInterestArea = interestArea == null ? null : TermDictionary.fold(interestArea);
+        this.workEnvironment = firstOrNull(userPreferences.get("workEnvironmentPreference"));
+        this.foldedWorkEnvironment = workEnvironment == null ? null : TermDictionary.fold(workEnvironment);
+        this.learningStyles = immutable(userPreferences.get("learningStylePreference"));
+        this.learningStyleTermIds = lookupAll(terms, learningStyles);
+    }
+
+    private CompiledPreferences(CompiledPreferences source, TermDictionary terms) {
+        this.terms = terms;
+        this.skills = source.skills;
+        this.foldedSkills = source.foldedSkills;
+        this.skillTermIds = lookupAll(terms, Arrays.asList(foldedSkills));
+        this.matchMemo = new int[skills.size()][];
+        this.memoSizes = new int[skills.size()];
+        this.interestArea = source.interestArea;
+        this.foldedInterestArea = source.foldedInterestArea;
+        this.workEnvironment = source.workEnvironment;
+        this.foldedWorkEnvironment = source.foldedWorkEnvironment;
+        this.learningStyles = source.learningStyles;
+        this.learningStyleTermIds = lookupAll(terms, learningStyles);
+    }
+
+    private static int[] lookupAll(TermDictionary terms, List<String> values) {
+        int[] termIds = new int[values.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            String value = values.get(i);
+            termIds[i] = value == null ? -1 : terms.lookup(value);
+        }
+        return termIds;
+    }
+
+    /**
+     * Compiles a preference map in the format used by {@code RecommendationService}. An absent or empty
+     * primary interest area or work environment means "no preference".
+     * @param userPreferences A map of user preferences, e.g. {@code "skills" -> ["Java", "SQL"]}.
+     * @param terms The dictionary of the catalog the preferences will be scored against.
+     * @return The compiled preferences.
+     */
+    public static CompiledPreferences compile(Map<String, List<String>> userPreferences, TermDictionary terms) {
+        return new CompiledPreferences(userPreferences, terms);
+    }
+
+    /**
+     * Compiles a preference map without a catalog; term ids are resolved when it is first scored against one.
+     * @param userPreferences A map of user preferences, e.g. {@code "skills" -> ["Java", "SQL"]}.
+     * @return The compiled preferences.
+     */
+    public static CompiledPreferences compile(Map<String, List<String>> userPreferences) {
+        return compile(userPreferences, NO_CATALOG);
+    }
+
+    /**
+     * Returns the dictionary the term ids of these preferences were resolved against.
+     * @return The dictionary.
+     */
+    public TermDictionary terms() {
+        return terms;
+    }
+
+    /**
+     * Returns these preferences with term ids resolved against another dictionary. The copy is kept, so scoring
+     * many tracks of another catalog resolves the ids only once.
+     * @param dictionary The dictionary of the tracks to score.
+     * @return This instance if it already uses the dictionary, otherwise an equivalent copy.
+     */
+    public CompiledPreferences in(TermDictionary dictionary) {
+        if (dictionary == terms) {
+            return this;
+        }
+        CompiledPreferences copy = inOtherDictionary;
+        if (copy == null || copy.terms != dictionary) {
+            copy = new CompiledPreferences(this, dictionary);
+            inOtherDictionary = copy;
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the number of preferred skills, including duplicates.
+     * @return The skill count.
+     */
+    public int skillCount() {
+        return foldedSkills.length;
+    }
+
+    /**
+     * Returns a preferred skill as the user entered it.
+     * @param index The skill position.
+     * @return The raw skill.
+     */
+    public String skill(int index) {
+        return skills.get(index);
+    }
+
+    /**
+     * Returns a preferred skill case-folded with {@link TermDictionary#fold}.
+     * @param index The skill position.
+     * @return The folded skill.
+     */
+    public String foldedSkill(int index) {
+        return foldedSkills[index];
+    }
+
+    /**
+     * Returns the dictionary id of a folded skill, which equals the folded id of every catalog item
+     * that matches the skill exactly ignoring case.
+     * @param index The skill position.
+     * @return The term id, or -1 if no catalog term equals the skill.
+     */
+    public int skillTermId(int index) {
+        return skillTermIds[index];
+    }
+
+    /**
+     * Matches a preferred skill against a folded catalog term, as {@code equalsIgnoreCase} followed by
+     * {@code contains} on the lower-cased strings would. Results are memoized per term id in a small hash table that
+     * grows with the number of distinct terms probed, so scoring a catalog compares each distinct term with each
+     * skill only once per request without allocating memory in proportion to the dictionary.
+     * @param index The skill position.
+     * @param foldedTermId The id of a folded term in {@link #terms()}, see {@link TermDictionary#foldedId}.
+     * @return {@link #EXACT_MATCH}, {@link #PARTIAL_MATCH} or {@link #NO_MATCH}.
+     */
+    public int match(int index, int foldedTermId) {
+        int[] memo = matchMemo[index];
+        if (memo == null) {
+            memo = new int[INITIAL_MEMO_CAPACITY];
+            matchMemo[index] = memo;
+        }
+        // Entries pack the term id above the match result; 0 marks a free slot
+        int key = foldedTermId + 1;
+        int mask = memo.length - 1;
+        for (int slot = hash(key) & mask, probes = 0; probes < memo.length; slot = (slot + 1) & mask, probes++) {
+            int entry = memo[slot];
+            if (entry == 0) {
+                int match = computeMatch(index, foldedTermId);
+                memo[slot] = key << 2 | match;
+                if (++memoSizes[index] > memo.length >>> 1 && memo.length < MAX_MEMO_CAPACITY) {
+                    matchMemo[index] = grow(memo);
+                }
+                return match;
+            }
+            if (entry >>> 2 == key) {
+                return entry & 3;
+            }
+        }
+        // The memo is full at its maximum capacity
+        return computeMatch(index, foldedTermId);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * Rehashes a memo into one twice its size. Threads racing on a memo may lose each other's entries, which
+     * only costs a recomputation.
+     */
+    private static int[] grow(int[] memo) {
+        int[] grown = new int[memo.length << 1];
+        int mask = grown.length - 1;
+        for (int entry : memo) {
+            if (entry != 0) {
+                int slot = hash(entry >>> 2) & mask;
+                while (grown[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown[slot] = entry;
+            }
+        }
+        return grown;
+    }
+
+    private int computeMatch(int index, int foldedTermId) {
+        if (foldedTermId == skillTermIds[index]) {
+            return EXACT_MATCH;
+        }
+        String term = terms.term(foldedTermId);
+        String skill = foldedSkills[index];
+        // Same length means equal: the term entered the dictionary after the preferences were compiled
+        return !term.contains(skill) ? NO_MATCH : term.length() == skill.length() ? EXACT_MATCH : PARTIAL_MATCH;
+    }
+
+    /**
+     * Returns the preferred primary interest area.
+     * @return The interest area as entered, or null if there is no preference.
+     */
+    public String interestArea() {
+        return interestArea;
+    }
+
+    /**
+     * Returns the preferred primary interest area, case-folded.
+     * @return The folded interest area, or null if there is no preference.
+     */
+    public String foldedInterestArea() {
+        return foldedInterestArea;
+    }
+
+    /**
+     * Returns the preferred work environment.
+     * @return The work environment as entered, or null if there is no preference.
+     */
+    public String workEnvironment() {
+        return workEnvironment;
+    }
+
+    /**
+     * Returns the preferred work environment, case-folded.
+     * @return The folded work environment, or null if there is no preference.
+     */
+    public String foldedWorkEnvironment() {
+        return foldedWorkEnvironment;
+    }
+
+    /**
+     * Returns the preferred learning styles, including duplicates. Learning styles match case-sensitively.
+     * @return The learning styles, possibly empty.
+     */
+    public List<String> learningStyles() {
+        return learningStyles;
+    }
+
+    /**
+     * Returns the dictionary id of a preferred learning style.
+     * @param index The learning style position.
+     * @return The term id, or -1 if no catalog track uses the style.
+     */
+    public int learningStyleTermId(int index) {
+        return learningStyleTermIds[index];
+    }
+
+    /**
+     * Returns a canonical key for these preferences: two preference sets with the same fingerprint receive the
+     * same score from every track. Skills are case-folded and sorted, so their order and case do not matter;
+     * duplicates are kept because they count twice. Learning styles are sorted but keep their case, since they
+     * match case-sensitively.
+     * @return The fingerprint string.
+     */
+    public String fingerprint() {
+        String[] sortedSkills = foldedSkills.clone();
+        Arrays.sort(sortedSkills);
+        String[] sortedStyles = learningStyles.stream().map(String::valueOf).sorted().toArray(String[]::new);
+        StringBuilder fingerprint = new StringBuilder();
+        appendAll(fingerprint, sortedSkills);
+        fingerprint.append(FIELD_SEPARATOR).append(foldedInterestArea == null ? "" : foldedInterestArea);
+        fingerprint.append(FIELD_SEPARATOR).append(foldedWorkEnvironment == null ? "" : foldedWorkEnvironment);
+        fingerprint.append(FIELD_SEPARATOR);
+        appendAll(fingerprint, sortedStyles);
+        return fingerprint.toString();
+    }
+
+    private static void appendAll(StringBuilder builder, String[] values) {
+        // The count keeps "no skills" apart from a single empty skill, which matches every term partially
+        builder.append(values.length);
+        for (String value : values) {
+            builder.append(VALUE_SEPARATOR).append(value);
+        }
+    }
+
+    private static List<String> immutable(List<String> values) {
+        return values == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    private static String firstOrNull(List<String> values) {
+        return values == null || values.isEmpty() || values.get(0) == null || values.get(0).isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledPreferences{" +
+               "skills=" + skills +
+               ", primaryInterestArea=" + interestArea +
+               ", workEnvironmentPreference=" + workEnvironment +
+               ", learningStylePreference=" + learningStyles +
+               '}';
+    }
+}
@@ -5,50 +5,44 @@ import java.util.List;
 /**
  * Represents a job track with its associated details, skills, and tools.
  * This class serves as a data model for deserializing job track information from JSON.
+ * <p>
+ * Skill lists and learning styles are stored as ids of the track's {@link TermDictionary}, normally the one of the
+ * catalog it is loaded into; their getters return read-only list views that decode the ids on access.
  */
 public class JobTrack {
+    private final TermDictionary terms;
+
     private String title;
     private String description;
-    private List<String> requiredSkills;
     private double averageSalary;
     private String url;
 
     // New preference fields
     private String primaryInterestArea;
     private String workEnvironmentPreference;
-    private List<String> learningStylePreference;
-
-    // Specific fields for Software Engineer
-    private List<String> developmentLanguages;
-    private List<String> developmentFrameworks;
-
-    // Specific fields for Data Scientist
-    private List<String> machineLearningAlgorithms;
-    private List<String> dataAnalysisTools;
-
-    // Specific fields for Network Engineer
-    private List<String> networkProtocols;
-    private List<String> securityConfigurationTools;
-
-    // Specific fields for Cybersecurity Analyst
-    private List<String> vulnerabilityAssessmentTools;
-    private List<String> threatDetectionTechniques;
+    private int[] learningStylePreference;
 
-    // Specific fields for Web Developer
-    private List<String> frontEndTechnologies;
-    private List<String> backEndTechnologies;
-
-    // Specific fields for Game Developer
-    private List<String> developmentTools;
+    // Specific field for Game Developer
     private String gameEngine;
 
-    // Specific fields for UX Designer
-    private List<String> designPrinciples;
-    private List<String> userResearchMethodologies;
+    // Skill lists of every track type, as TermDictionary ids indexed by SkillCategory ordinal
+    private final int[][] skillTermIds = new int[SkillCategory.values().length][];
+
+    /**
+     * Creates an empty track with a dictionary of its own. Indexes re-encode such a track with their dictionary
+     * when it is added, so catalog loaders use {@link #JobTrack(TermDictionary)} instead.
+     */
+    public JobTrack() {
+        this(new TermDictionary());
+    }
 
-    // Specific fields for Technical Writer
-    private List<String> communicationSkills;
-    private List<String> documentationStandards;
+    /**
+     * Creates an empty track encoded with the given dictionary.
+     * @param terms The dictionary of the catalog the track belongs to.
+     */
+    public JobTrack(TermDictionary terms) {
+        this.terms = terms;
+    }
 
     /**
      * Returns the title of the job track.
@@ -87,7 +81,7 @@ public class JobTrack {
      * @return A list of required skills.
      */
     public List<String> getRequiredSkills() {
-        return requiredSkills;
+        return terms.decode(skillTermIds[SkillCategory.REQUIRED_SKILLS.ordinal()]);
     }
 
     /**
@@ -95,7 +89,7 @@ public class JobTrack {
      * @param requiredSkills A list of required skills.
      */
     public void setRequiredSkills(List<String> requiredSkills) {
-        this.requiredSkills = requiredSkills;
+        skillTermIds[SkillCategory.REQUIRED_SKILLS.ordinal()] = terms.encode(requiredSkills);
     }
 
     /**
@@ -167,7 +161,7 @@ public class JobTrack {
      * @return A list of learning style preferences.
      */
     public List<String> getLearningStylePreference() {
-        return learningStylePreference;
+        return terms.decode(learningStylePreference);
     }
 
     /**
@@ -175,7 +169,7 @@ public class JobTrack {
      * @param learningStylePreference A list of learning style preferences.
      */
     public void setLearningStylePreference(List<String> learningStylePreference) {
-        this.learningStylePreference = learningStylePreference;
+        this.learningStylePreference = terms.encode(learningStylePreference);
     }
 
     /**
@@ -183,7 +177,7 @@ public class JobTrack {
      * @return A list of development languages.
      */
     public List<String> getDevelopmentLanguages() {
-        return developmentLanguages;
+        return terms.decode(skillTermIds[SkillCategory.DEVELOPMENT_LANGUAGES.ordinal()]);
     }
 
     /**
@@ -191,7 +185,7 @@ public class JobTrack {
      * @param developmentLanguages A list of development languages.
      */
     public void setDevelopmentLanguages(List<String> developmentLanguages) {
-        this.developmentLanguages = developmentLanguages;
+        skillTermIds[SkillCategory.DEVELOPMENT_LANGUAGES.ordinal()] = terms.encode(developmentLanguages);
     }
 
     /**
@@ -199,7 +193,7 @@ public class JobTrack {
      * @return A list of development frameworks.
      */
     public List<String> getDevelopmentFrameworks() {
-        return developmentFrameworks;
+        return terms.decode(skillTermIds[SkillCategory.DEVELOPMENT_FRAMEWORKS.ordinal()]);
     }
 
     /**
@@ -207,7 +201,7 @@ public class JobTrack {
      * @param developmentFrameworks A list of development frameworks.
      */
     public void setDevelopmentFrameworks(List<String> developmentFrameworks) {
-        this.developmentFrameworks = developmentFrameworks;
+        skillTermIds[SkillCategory.DEVELOPMENT_FRAMEWORKS.ordinal()] = terms.encode(developmentFrameworks);
     }
 
     /**
@@ -215,7 +209,7 @@ public class JobTrack {
      * @return A list of machine learning algorithms.
      */
     public List<String> getMachineLearningAlgorithms() {
-        return machineLearningAlgorithms;
+        return terms.decode(skillTermIds[SkillCategory.MACHINE_LEARNING_ALGORITHMS.ordinal()]);
     }
 
     /**
@@ -223,7 +217,7 @@ public class JobTrack {
      * @param machineLearningAlgorithms A list of machine learning algorithms.
      */
     public void setMachineLearningAlgorithms(List<String> machineLearningAlgorithms) {
-        this.machineLearningAlgorithms = machineLearningAlgorithms;
+        skillTermIds[SkillCategory.MACHINE_LEARNING_ALGORITHMS.ordinal()] = terms.encode(machineLearningAlgorithms);
     }
 
     /**
@@ -231,7 +225,7 @@ public class JobTrack {
      * @return A list of data analysis tools.
      */
     public List<String> getDataAnalysisTools() {
-        return dataAnalysisTools;
+        return terms.decode(skillTermIds[SkillCategory.DATA_ANALYSIS_TOOLS.ordinal()]);
     }
 
     /**
@@ -239,7 +233,7 @@ public class JobTrack {
      * @param dataAnalysisTools A list of data analysis tools.
      */
     public void setDataAnalysisTools(List<String> dataAnalysisTools) {
-        this.dataAnalysisTools = dataAnalysisTools;
+        skillTermIds[SkillCategory.DATA_ANALYSIS_TOOLS.ordinal()] = terms.encode(dataAnalysisTools);
     }
 
     /**
@@ -247,7 +241,7 @@ public class JobTrack {
      * @return A list of network protocols.
      */
     public List<String> getNetworkProtocols() {
-        return networkProtocols;
+        return terms.decode(skillTermIds[SkillCategory.NETWORK_PROTOCOLS.ordinal()]);
     }
 
     /**
@@ -255,7 +249,7 @@ public class JobTrack {
      * @param networkProtocols A list of network protocols.
      */
     public void setNetworkProtocols(List<String> networkProtocols) {
-        this.networkProtocols = networkProtocols;
+        skillTermIds[SkillCategory.NETWORK_PROTOCOLS.ordinal()] = terms.encode(networkProtocols);
     }
 
     /**
@@ -263,7 +257,7 @@ public class JobTrack {
      * @return A list of security configuration tools.
      */
     public List<String> getSecurityConfigurationTools() {
-        return securityConfigurationTools;
+        return terms.decode(skillTermIds[SkillCategory.SECURITY_CONFIGURATION_TOOLS.ordinal()]);
     }
 
     /**
@@ -271,7 +265,7 @@ public class JobTrack {
      * @param securityConfigurationTools A list of security configuration tools.
      */
     public void setSecurityConfigurationTools(List<String> securityConfigurationTools) {
-        this.securityConfigurationTools = securityConfigurationTools;
+        skillTermIds[SkillCategory.SECURITY_CONFIGURATION_TOOLS.ordinal()] = terms.encode(securityConfigurationTools);
     }
 
     /**
@@ -279,7 +273,7 @@ public class JobTrack {
      * @return A list of vulnerability assessment tools.
      */
     public List<String> getVulnerabilityAssessmentTools() {
-        return vulnerabilityAssessmentTools;
+        return terms.decode(skillTermIds[SkillCategory.VULNERABILITY_ASSESSMENT_TOOLS.ordinal()]);
     }
 
     /**
@@ -287,7 +281,7 @@ public class JobTrack {
      * @param vulnerabilityAssessmentTools A list of vulnerability assessment tools.
      */
     public void setVulnerabilityAssessmentTools(List<String> vulnerabilityAssessmentTools) {
-        this.vulnerabilityAssessmentTools = vulnerabilityAssessmentTools;
+        skillTermIds[SkillCategory.VULNERABILITY_ASSESSMENT_TOOLS.ordinal()] = terms.encode(vulnerabilityAssessmentTools);
     }
 
     /**
@@ -295,7 +289,7 @@ public class JobTrack {
      * @return A list of threat detection techniques.
      */
     public List<String> getThreatDetectionTechniques() {
-        return threatDetectionTechniques;
+        return terms.decode(skillTermIds[SkillCategory.THREAT_DETECTION_TECHNIQUES.ordinal()]);
     }
 
     /**
@@ -303,7 +297,7 @@ public class JobTrack {
      * @param threatDetectionTechniques A list of threat detection techniques.
      */
     public void setThreatDetectionTechniques(List<String> threatDetectionTechniques) {
-        this.threatDetectionTechniques = threatDetectionTechniques;
+        skillTermIds[SkillCategory.THREAT_DETECTION_TECHNIQUES.ordinal()] = terms.encode(threatDetectionTechniques);
     }
 
     /**
@@ -311,7 +305,7 @@ public class JobTrack {
      * @return A list of front-end technologies.
      */
     public List<String> getFrontEndTechnologies() {
-        return frontEndTechnologies;
+        return terms.decode(skillTermIds[SkillCategory.FRONT_END_TECHNOLOGIES.ordinal()]);
     }
 
     /**
@@ -319,7 +313,7 @@ public class JobTrack {
      * @param frontEndTechnologies A list of front-end technologies.
      */
     public void setFrontEndTechnologies(List<String> frontEndTechnologies) {
-        this.frontEndTechnologies = frontEndTechnologies;
+        skillTermIds[SkillCategory.FRONT_END_TECHNOLOGIES.ordinal()] = terms.encode(frontEndTechnologies);
     }
 
     /**
@@ -327,7 +321,7 @@ public class JobTrack {
      * @return A list of back-end technologies.
      */
     public List<String> getBackEndTechnologies() {
-        return backEndTechnologies;
+        return terms.decode(skillTermIds[SkillCategory.BACK_END_TECHNOLOGIES.ordinal()]);
     }
 
     /**
@@ -335,7 +329,7 @@ public class JobTrack {
      * @param backEndTechnologies A list of back-end technologies.
      */
     public void setBackEndTechnologies(List<String> backEndTechnologies) {
-        this.backEndTechnologies = backEndTechnologies;
+        skillTermIds[SkillCategory.BACK_END_TECHNOLOGIES.ordinal()] = terms.encode(backEndTechnologies);
     }
 
     /**
@@ -343,7 +337,7 @@ public class JobTrack {
      * @return A list of development tools.
      */
     public List<String> getDevelopmentTools() {
-        return developmentTools;
+        return terms.decode(skillTermIds[SkillCategory.DEVELOPMENT_TOOLS.ordinal()]);
     }
 
     /**
@@ -351,7 +345,7 @@ public class JobTrack {
      * @param developmentTools A list of development tools.
      */
     public void setDevelopmentTools(List<String> developmentTools) {
-        this.developmentTools = developmentTools;
+        skillTermIds[SkillCategory.DEVELOPMENT_TOOLS.ordinal()] = terms.encode(developmentTools);
     }
 
     /**
@@ -375,7 +369,7 @@ public class JobTrack {
      * @return A list of design principles.
      */
     public List<String> getDesignPrinciples() {
-        return designPrinciples;
+        return terms.decode(skillTermIds[SkillCategory.DESIGN_PRINCIPLES.ordinal()]);
     }
 
     /**
@@ -383,7 +377,7 @@ public class JobTrack {
      * @param designPrinciples A list of design principles.
      */
     public void setDesignPrinciples(List<String> designPrinciples) {
-        this.designPrinciples = designPrinciples;
+        skillTermIds[SkillCategory.DESIGN_PRINCIPLES.ordinal()] = terms.encode(designPrinciples);
     }
 
     /**
@@ -391,7 +385,7 @@ public class JobTrack {
      * @return A list of user research methodologies.
      */
     public List<String> getUserResearchMethodologies() {
-        return userResearchMethodologies;
+        return terms.decode(skillTermIds[SkillCategory.USER_RESEARCH_METHODOLOGIES.ordinal()]);
     }
 
     /**
@@ -399,7 +393,7 @@ public class JobTrack {
      * @param userResearchMethodologies A list of user research methodologies.
      */
     public void setUserResearchMethodologies(List<String> userResearchMethodologies) {
-        this.userResearchMethodologies = userResearchMethodologies;
+        skillTermIds[SkillCategory.USER_RESEARCH_METHODOLOGIES.ordinal()] = terms.encode(userResearchMethodologies);
     }
 
     /**
@@ -407,7 +401,7 @@ public class JobTrack {
      * @return A list of communication skills.
      */
     public List<String> getCommunicationSkills() {
-        return communicationSkills;
+        return terms.decode(skillTermIds[SkillCategory.COMMUNICATION_SKILLS.ordinal()]);
     }
 
     /**
@@ -415,7 +409,7 @@ public class JobTrack {
      * @param communicationSkills A list of communication skills.
      */
     public void setCommunicationSkills(List<String> communicationSkills) {
-        this.communicationSkills = communicationSkills;
+        skillTermIds[SkillCategory.COMMUNICATION_SKILLS.ordinal()] = terms.encode(communicationSkills);
     }
 
     /**
@@ -423,7 +417,7 @@ public class JobTrack {
      * @return A list of documentation standards.
      */
     public List<String> getDocumentationStandards() {
-        return documentationStandards;
+        return terms.decode(skillTermIds[SkillCategory.DOCUMENTATION_STANDARDS.ordinal()]);
     }
 
     /**
@@ -431,7 +425,76 @@ public class JobTrack {
      * @param documentationStandards A list of documentation standards.
      */
     public void setDocumentationStandards(List<String> documentationStandards) {
-        this.documentationStandards = documentationStandards;
+        skillTermIds[SkillCategory.DOCUMENTATION_STANDARDS.ordinal()] = terms.encode(documentationStandards);
+    }
+
+    /**
+     * Returns the dictionary the term ids of this track were issued by.
+     * @return The track's dictionary.
+     */
+    public TermDictionary terms() {
+        return terms;
+    }
+
+    /**
+     * Returns this track encoded with another dictionary, e.g. the one of the index it is added to.
+     * The track itself is never modified, since it may be shared by a live index.
+     * @param dictionary The dictionary to encode with.
+     * @return This track if it already uses the dictionary, otherwise a re-encoded copy.
+     */
+    public JobTrack encodedWith(TermDictionary dictionary) {
+        if (dictionary == terms) {
+            return this;
+        }
+        JobTrack copy = new JobTrack(dictionary);
+        copy.title = title;
+        copy.description = description;
+        copy.averageSalary = averageSalary;
+        copy.url = url;
+        copy.primaryInterestArea = primaryInterestArea;
+        copy.workEnvironmentPreference = workEnvironmentPreference;
+        copy.learningStylePreference = dictionary.encode(getLearningStylePreference());
+        copy.gameEngine = gameEngine;
+        for (int c = 0; c < skillTermIds.length; c++) {
+            copy.skillTermIds[c] = dictionary.encode(terms.decode(skillTermIds[c]));
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the {@link TermDictionary} ids of the items in a skill category, without decoding them.
+     * @param category The skill category.
+     * @return The term ids in list order (-1 for a null item), or null if the track does not define the category.
+     *         The array is shared with this track and must not be modified.
+     */
+    public int[] termIds(SkillCategory category) {
+        return skillTermIds[category.ordinal()];
+    }
+
+    /**
+     * Replaces the items of a skill category with already encoded term ids.
+     * @param category The skill category.
+     * @param termIds Ids issued by this track's {@link #terms() dictionary}, or null to clear the category.
+     */
+    public void setTermIds(SkillCategory category, int[] termIds) {
+        skillTermIds[category.ordinal()] = termIds;
+    }
+
+    /**
+     * Returns the {@link TermDictionary} ids of the learning style preferences, without decoding them.
+     * @return The term ids in list order, or null if the track defines no learning styles.
+     *         The array is shared with this track and must not be modified.
+     */
+    public int[] learningStyleTermIds() {
+        return learningStylePreference;
+    }
+
+    /**
+     * Replaces the learning style preferences with already encoded term ids.
+     * @param termIds Ids issued by this track's {@link #terms() dictionary}, or null to clear the preferences.
+     */
+    public void setLearningStyleTermIds(int[] termIds) {
+        this.learningStylePreference = termIds;
     }
 
     /**
@@ -443,7 +506,7 @@ public class JobTrack {
         return "JobTrack{" +
                "title='" + title + '\'' +
                ", description='" + description + '\'' +
-               ", requiredSkills=" + requiredSkills +
+               ", requiredSkills=" + getRequiredSkills() +
                ", averageSalary=" + averageSalary +
                ", url='" + url + '\'' +
                "// Add other fields as needed for a comprehensive string representation" +
@@ -0,0 +1,83 @@
+package com.memarox.noura.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable recommendation result associating a JobTrack with the score it obtained
+ * for a particular set of user preferences, and with the points each scoring category contributed.
+ */
+public final class ScoredJobTrack {
+
+    /** Breakdown key for points earned by matching the primary interest area. */
+    public static final String PRIMARY_INTEREST_AREA = "primaryInterestArea";
+    /** Breakdown key for points earned by matching the work environment preference. */
+    public static final String WORK_ENVIRONMENT_PREFERENCE = "workEnvironmentPreference";
+    /** Breakdown key for points earned by matching learning styles. */
+    public static final String LEARNING_STYLE_PREFERENCE = "learningStylePreference";
+
+    private final JobTrack jobTrack;
+    private final int score;
+    private final Map<String, Integer> scoreBreakdown;
+
+    /**
+     * Constructs a ScoredJobTrack without a per-category breakdown.
+     * @param jobTrack The JobTrack object.
+     * @param score The calculated score for the job track.
+     */
+    public ScoredJobTrack(JobTrack jobTrack, int score) {
+        this(jobTrack, score, Map.of());
+    }
+
+    /**
+     * Constructs a ScoredJobTrack.
+     * @param jobTrack The JobTrack object.
+     * @param score The calculated score for the job track.
+     * @param scoreBreakdown The points per scoring category, keyed by {@link SkillCategory#getFieldName()}
+     *                       or one of the preference keys declared on this class. The map is copied.
+     */
+    public ScoredJobTrack(JobTrack jobTrack, int score, Map<String, Integer> scoreBreakdown) {
+        this.jobTrack = jobTrack;
+        this.score = score;
+        this.scoreBreakdown = Collections.unmodifiableMap(new LinkedHashMap<>(scoreBreakdown));
+    }
+
+    /**
+     * Returns the JobTrack object.
+     * @return The JobTrack.
+     */
+    public JobTrack getJobTrack() {
+        return jobTrack;
+    }
+
+    /**
+     * Returns the score of the job track.
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the points contributed by each scoring category that matched, in scoring order.
+     * Categories that contributed nothing are omitted.
+     * @return An unmodifiable map from category name to points.
+     */
+    public Map<String, Integer> getScoreBreakdown() {
+        return scoreBreakdown;
+    }
+
+    /**
+     * Provides a string representation of the scored job track.
+     * @return A string containing the track title, its score and the breakdown.
+     */
+    @Override
+    public String toString() {
+        return "ScoredJobTrack{" +
+               "title='" + (jobTrack == null ? null : jobTrack.getTitle()) + '\'' +
+               ", score=" + score +
+               ", scoreBreakdown=" + scoreBreakdown +
+               '}';
+    }
+}
@@ -0,0 +1,186 @@
+package com.memarox.noura.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Immutable table of the points awarded by each scoring rule: an exact and a partial match weight per
+ * {@link SkillCategory}, plus the weights of the primary interest area, work environment and learning style matches.
+ * <p>
+ * The bundled defaults are read from the {@code scoring_weights.json} resource. A deployment can tune them with its
+ * own file in the same format; entries it leaves out keep their default value. Category keys are the JobTrack
+ * field names, e.g. {@code "requiredSkills": {"exact": 15, "partial": 5}}.
+ */
+public final class ScoringWeights {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoringWeights.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String RESOURCE = "scoring_weights.json";
+    private static final SkillCategory[] CATEGORIES = SkillCategory.values();
+    private static final ScoringWeights DEFAULTS = loadDefaults();
+
+    private final int[] exactMatchWeights;
+    private final int[] partialMatchWeights;
+    private final int interestAreaWeight;
+    private final int workEnvironmentWeight;
+    private final int learningStyleWeight;
+
+    private ScoringWeights(int[] exactMatchWeights, int[] partialMatchWeights,
+                           int interestAreaWeight, int workEnvironmentWeight, int learningStyleWeight) {
+        this.exactMatchWeights = exactMatchWeights;
+        this.partialMatchWeights = partialMatchWeights;
+        this.interestAreaWeight = interestAreaWeight;
+        this.workEnvironmentWeight = workEnvironmentWeight;
+        this.learningStyleWeight = learningStyleWeight;
+    }
+
+    /**
+     * Returns the weights bundled with the application.
+     * @return The default weights.
+     */
+    public static ScoringWeights defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Loads weights from a JSON file, falling back to the defaults for every entry the file does not set.
+     * @param weightsFile The weights file, in the scoring_weights.json format.
+     * @return The loaded weights, or null if the file cannot be read or is invalid.
+     */
+    public static ScoringWeights load(Path weightsFile) {
+        try (InputStream is = Files.newInputStream(weightsFile)) {
+            ScoringWeights weights = parse(MAPPER.readTree(is), DEFAULTS);
+            logger.info("Loaded scoring weights from {}.", weightsFile);
+            return weights;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Error loading scoring weights from {}: {}", weightsFile, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static ScoringWeights loadDefaults() {
+        try (InputStream is = ScoringWeights.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (is == null) {
+                throw new IllegalStateException("Resource " + RESOURCE + " not found");
+            }
+            ScoringWeights weights = parse(MAPPER.readTree(is), null);
+            for (SkillCategory category : CATEGORIES) {
+                requireSet(weights.exactMatchWeights[category.ordinal()], category.getFieldName() + ".exact");
+                requireSet(weights.partialMatchWeights[category.ordinal()], category.getFieldName() + ".partial");
+            }
+            requireSet(weights.interestAreaWeight, "primaryInterestArea");
+            requireSet(weights.workEnvironmentWeight, "workEnvironmentPreference");
+            requireSet(weights.learningStyleWeight, "learningStylePreference");
+            return weights;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + RESOURCE, e);
+        }
+    }
+
+    private static void requireSet(int weight, String name) {
+        if (weight < 0) {
+            throw new IllegalStateException(RESOURCE + " has no weight for " + name);
+        }
+    }
+
+    /**
+     * Reads a weights document over a base table. Without a base, unset weights are marked with -1.
+     */
+    private static ScoringWeights parse(JsonNode root, ScoringWeights base) {
+        if (root == null || !root.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object of scoring weights");
+        }
+        int[] exact = base != null ? base.exactMatchWeights.clone() : filled(-1);
+        int[] partial = base != null ? base.partialMatchWeights.clone() : filled(-1);
+        JsonNode categories = root.path("categories");
+        Iterator<Map.Entry<String, JsonNode>> fields = categories.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            SkillCategory category = categoryNamed(field.getKey());
+            exact[category.ordinal()] = weight(field.getValue(), "exact", exact[category.ordinal()]);
+            partial[category.ordinal()] = weight(field.getValue(), "partial", partial[category.ordinal()]);
+        }
+        return new ScoringWeights(exact, partial,
+                weight(root, "primaryInterestArea", base != null ? base.interestAreaWeight : -1),
+                weight(root, "workEnvironmentPreference", base != null ? base.workEnvironmentWeight : -1),
+                weight(root, "learningStylePreference", base != null ? base.learningStyleWeight : -1));
+    }
+
+    private static SkillCategory categoryNamed(String fieldName) {
+        for (SkillCategory category : CATEGORIES) {
+            if (category.getFieldName().equals(fieldName)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException("Unknown skill category '" + fieldName + "'");
+    }
+
+    private static int weight(JsonNode parent, String name, int fallback) {
+        JsonNode value = parent.get(name);
+        if (value == null) {
+            return fallback;
+        }
+        if (!value.canConvertToInt() || value.asInt() < 0) {
+            throw new IllegalArgumentException("Weight '" + name + "' must be a non-negative integer: " + value);
+        }
+        return value.asInt();
+    }
+
+    private static int[] filled(int value) {
+        int[] values = new int[CATEGORIES.length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    /**
+     * Returns the points awarded when a user skill equals an item of the category (ignoring case).
+     * @param category The skill category.
+     * @return The exact-match weight.
+     */
+    public int exactMatchWeight(SkillCategory category) {
+        return exactMatchWeights[category.ordinal()];
+    }
+
+    /**
+     * Returns the points awarded when a user skill is contained in an item of the category.
+     * @param category The skill category.
+     * @return The partial-match weight.
+     */
+    public int partialMatchWeight(SkillCategory category) {
+        return partialMatchWeights[category.ordinal()];
+    }
+
+    /**
+     * Returns the points awarded when the track's primary interest area matches the user's.
+     * @return The interest area weight.
+     */
+    public int interestAreaWeight() {
+        return interestAreaWeight;
+    }
+
+    /**
+     * Returns the points awarded when the track's work environment matches the user's preference.
+     * @return The work environment weight.
+     */
+    public int workEnvironmentWeight() {
+        return workEnvironmentWeight;
+    }
+
+    /**
+     * Returns the points awarded for each preferred learning style the track supports.
+     * @return The learning style weight.
+     */
+    public int learningStyleWeight() {
+        return learningStyleWeight;
+    }
+}
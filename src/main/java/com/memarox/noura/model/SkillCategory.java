@@ -0,0 +1,74 @@
+package com.memarox.noura.model;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Enumerates the skill-list fields of a {@link JobTrack} that take part in skill scoring.
+ * The points awarded in each category are configured in {@link ScoringWeights}.
+ * The declaration order matches the order in which the categories are scored.
+ */
+public enum SkillCategory {
+    REQUIRED_SKILLS("requiredSkills", JobTrack::getRequiredSkills, JobTrack::setRequiredSkills),
+    DEVELOPMENT_LANGUAGES("developmentLanguages", JobTrack::getDevelopmentLanguages, JobTrack::setDevelopmentLanguages),
+    DEVELOPMENT_FRAMEWORKS("developmentFrameworks", JobTrack::getDevelopmentFrameworks, JobTrack::setDevelopmentFrameworks),
+    MACHINE_LEARNING_ALGORITHMS("machineLearningAlgorithms", JobTrack::getMachineLearningAlgorithms, JobTrack::setMachineLearningAlgorithms),
+    DATA_ANALYSIS_TOOLS("dataAnalysisTools", JobTrack::getDataAnalysisTools, JobTrack::setDataAnalysisTools),
+    NETWORK_PROTOCOLS("networkProtocols", JobTrack::getNetworkProtocols, JobTrack::setNetworkProtocols),
+    SECURITY_CONFIGURATION_TOOLS("securityConfigurationTools", JobTrack::getSecurityConfigurationTools, JobTrack::setSecurityConfigurationTools),
+    VULNERABILITY_ASSESSMENT_TOOLS("vulnerabilityAssessmentTools", JobTrack::getVulnerabilityAssessmentTools, JobTrack::setVulnerabilityAssessmentTools),
+    THREAT_DETECTION_TECHNIQUES("threatDetectionTechniques", JobTrack::getThreatDetectionTechniques, JobTrack::setThreatDetectionTechniques),
+    FRONT_END_TECHNOLOGIES("frontEndTechnologies", JobTrack::getFrontEndTechnologies, JobTrack::setFrontEndTechnologies),
+    BACK_END_TECHNOLOGIES("backEndTechnologies", JobTrack::getBackEndTechnologies, JobTrack::setBackEndTechnologies),
+    DEVELOPMENT_TOOLS("developmentTools", JobTrack::getDevelopmentTools, JobTrack::setDevelopmentTools),
+    DESIGN_PRINCIPLES("designPrinciples", JobTrack::getDesignPrinciples, JobTrack::setDesignPrinciples),
+    USER_RESEARCH_METHODOLOGIES("userResearchMethodologies", JobTrack::getUserResearchMethodologies, JobTrack::setUserResearchMethodologies),
+    COMMUNICATION_SKILLS("communicationSkills", JobTrack::getCommunicationSkills, JobTrack::setCommunicationSkills),
+    DOCUMENTATION_STANDARDS("documentationStandards", JobTrack::getDocumentationStandards, JobTrack::setDocumentationStandards);
+
+    private final String fieldName;
+    private final Function<JobTrack, List<String>> accessor;
+    private final BiConsumer<JobTrack, List<String>> mutator;
+
+    SkillCategory(String fieldName, Function<JobTrack, List<String>> accessor, BiConsumer<JobTrack, List<String>> mutator) {
+        this.fieldName = fieldName;
+        this.accessor = accessor;
+        this.mutator = mutator;
+    }
+
+    /**
+     * Returns the name of the JobTrack JSON field backing this category.
+     * @return The field name, e.g. "requiredSkills".
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Returns the items of this category for the given job track.
+     * @param jobTrack The job track to read from.
+     * @return The list of items, or null if the track does not define this category.
+     */
+    public List<String> valuesOf(JobTrack jobTrack) {
+        return accessor.apply(jobTrack);
+    }
+
+    /**
+     * Returns the {@link TermDictionary} ids of the items of this category for the given job track.
+     * @param jobTrack The job track to read from.
+     * @return The shared term id array, or null if the track does not define this category.
+     */
+    public int[] termIdsOf(JobTrack jobTrack) {
+        return jobTrack.termIds(this);
+    }
+
+    /**
+     * Replaces the items of this category on the given job track.
+     * @param jobTrack The job track to modify.
+     * @param values The new list of items, or null to clear the category.
+     */
+    public void setValues(JobTrack jobTrack, List<String> values) {
+        mutator.accept(jobTrack, values);
+    }
+}
@@ -0,0 +1,161 @@
+package com.memarox.noura.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog-wide dictionary encoding every skill, tool, technique and learning style string into a compact int id.
+ * <p>
+ * {@link JobTrack} stores its skill lists as {@code int[]} term ids, so a term shared by thousands of tracks is held
+ * once as a String and costs four bytes per occurrence. Every term also knows the id of its case-folded form, so two
+ * terms are equal ignoring case exactly when their folded ids are equal, and the scoring code can compare ints instead
+ * of case-folding Strings per track.
+ * <p>
+ * Ids are assigned in first-seen order, are never reused and stay valid for the lifetime of the dictionary. Every
+ * catalog build encodes its tracks with a dictionary of its own, and edits of that catalog add to it, so the terms
+ * of a replaced catalog are dropped together with its tracks, index and the preferences compiled against it. The
+ * dictionary is thread-safe: lookups are lock-free and new terms are appended under a lock.
+ */
+public final class TermDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] terms = new String[16];
+    private volatile int[] foldedIds = new int[16];
+    private volatile int size;
+
+    /**
+     * Creates an empty dictionary, e.g. for one catalog build.
+     */
+    public TermDictionary() {
+    }
+
+    /**
+     * Case-folds a term the way every case-insensitive comparison in the catalog does.
+     * @param term The raw term.
+     * @return The lower-cased term.
+     */
+    public static String fold(String term) {
+        return term.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the id of a term, assigning a new one (and one for its folded form) if it was not seen before.
+     * @param term The term to encode, exactly as it appears in the catalog.
+     * @return The term id.
+     */
+    public int intern(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : add(term);
+    }
+
+    /**
+     * Returns the id of a term without adding it.
+     * @param term The term to look up.
+     * @return The term id, or -1 if the term is not in the dictionary.
+     */
+    public int lookup(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the string for a term id.
+     * @param id A term id returned by this dictionary.
+     * @return The term as it was interned.
+     */
+    public String term(int id) {
+        return terms[id];
+    }
+
+    /**
+     * Returns the id of the case-folded form of a term. Folded terms are their own folded form.
+     * @param id A term id returned by this dictionary.
+     * @return The id of {@code fold(term(id))}.
+     */
+    public int foldedId(int id) {
+        return foldedIds[id];
+    }
+
+    /**
+     * Returns the number of distinct terms, raw and folded, in the dictionary.
+     * @return The dictionary size; valid ids are {@code 0 .. size() - 1}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Encodes a list of terms. Null elements are encoded as -1.
+     * @param values The terms to encode, or null.
+     * @return The term ids in list order, or null if {@code values} is null.
+     */
+    public int[] encode(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        int[] encoded = new int[values.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            String value = values.get(i);
+            encoded[i] = value == null ? -1 : intern(value);
+        }
+        return encoded;
+    }
+
+    /**
+     * Returns an unmodifiable list view decoding the given term ids on access.
+     * @param termIds The term ids, or null.
+     * @return The view, or null if {@code termIds} is null.
+     */
+    public List<String> decode(int[] termIds) {
+        return termIds == null ? null : new TermList(this, termIds);
+    }
+
+    private synchronized int add(String term) {
+        Integer existing = ids.get(term);
+        if (existing != null) {
+            return existing;
+        }
+        String folded = fold(term);
+        int foldedId = folded.equals(term) ? -1 : intern(folded);
+        int id = size;
+        if (id == terms.length) {
+            terms = Arrays.copyOf(terms, id * 2);
+            foldedIds = Arrays.copyOf(foldedIds, id * 2);
+        }
+        terms[id] = term;
+        foldedIds[id] = foldedId < 0 ? id : foldedId;
+        size = id + 1;
+        // Published last, so any thread that can see the id also sees its slots
+        ids.put(term, id);
+        return id;
+    }
+
+    /**
+     * Read-only {@code List<String>} over an {@code int[]} of term ids, as returned by the JobTrack getters.
+     */
+    private static final class TermList extends AbstractList<String> implements RandomAccess {
+        private final TermDictionary dictionary;
+        private final int[] termIds;
+
+        TermList(TermDictionary dictionary, int[] termIds) {
+            this.dictionary = dictionary;
+            this.termIds = termIds;
+        }
+
+        @Override
+        public String get(int index) {
+            int id = termIds[index];
+            return id < 0 ? null : dictionary.term(id);
+        }
+
+        @Override
+        public int size() {
+            return termIds.length;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.memarox.noura.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.memarox.noura.catalog.CatalogDelta;
+import com.memarox.noura.catalog.CatalogHolder;
+import com.memarox.noura.entity.User;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.service.CachedRecommendationService;
+import com.memarox.noura.service.MaterializedRecommendationService;
+import com.memarox.noura.service.RecommendationService;
+import com.memarox.noura.service.UserPreferenceService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Embedded HTTP front end for the recommendation engine, built on the JDK's {@code com.sun.net.httpserver}.
+ * Every request runs on its own virtual thread when the JVM supports them (JDK 21+), and on a bounded
+ * platform thread pool otherwise. The catalog index is shared read-only between all requests; when the catalog is
+ * replaced or edited, the server follows it.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code GET /recommendations?skills=Java,SQL&primaryInterestArea=...&workEnvironmentPreference=...&learningStylePreference=...&k=5}</li>
+ *     <li>{@code GET /tracks/{title}}</li>
+ *     <li>{@code GET /users/{username}/recommendations?k=5}</li>
+ *     <li>{@code PUT /users/{username}/preferences} with a JSON object of preference lists as body</li>
+ *     <li>{@code GET /stats} for the recommendation, user and preference cache counters</li>
+ *     <li>{@code PATCH /catalog} with a {@link CatalogDelta} patch stream as body and an
+ *     {@code Authorization: Bearer <token>} header</li>
+ * </ul>
+ * Catalog edits are only accepted when the server is created with a catalog holder and a token; otherwise
+ * {@code PATCH /catalog} answers 503.
+ * With a {@link MaterializedRecommendationService}, user recommendations are read from the lists materialized
+ * next to each user's preferences, and preference saves refresh those lists.
+ */
+public class RecommendationServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationServer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int DEFAULT_K = 5;
+    private static final int MAX_K = 100;
+    private static final List<String> PREFERENCE_KEYS =
+            List.of("skills", "primaryInterestArea", "workEnvironmentPreference", "learningStylePreference");
+
+    private final CachedRecommendationService recommendationService;
+    private final UserPreferenceService userPreferenceService;
+    private final CatalogHolder catalogHolder;
+    private final byte[] catalogToken;
+    private final MaterializedRecommendationService materializedRecommendationService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server bound to the given port. Call {@link #start()} to begin serving.
+     * @param port The TCP port, or 0 for an ephemeral port.
+     * @param skillIndex The shared catalog index.
+     * @param recommendationService The service used to rank tracks.
+     * @param userPreferenceService The preference store, or null to serve only the catalog endpoints.
+     * @throws IOException If the port cannot be bound.
+     */
+    public RecommendationServer(int port, SkillIndex skillIndex, RecommendationService recommendationService,
+                                UserPreferenceService userPreferenceService) throws IOException {
+        this(port, new CachedRecommendationService(recommendationService, skillIndex,
+                CachedRecommendationService.DEFAULT_MAXIMUM_SIZE), userPreferenceService);
+    }
+
+    /**
+     * Creates a server bound to the given port that answers recommendation requests through a result cache.
+     * Call {@link #start()} to begin serving.
+     * @param port The TCP port, or 0 for an ephemeral port.
+     * @param recommendationService The caching service used to rank tracks, holding the catalog index.
+     * @param userPreferenceService The preference store, or null to serve only the catalog endpoints.
+     * @throws IOException If the port cannot be bound.
+     */
+    public RecommendationServer(int port, CachedRecommendationService recommendationService,
+                                UserPreferenceService userPreferenceService) throws IOException {
+        this(port, recommendationService, userPreferenceService, null, null);
+    }
+
+    /**
+     * Creates a server bound to the given port that also accepts catalog edits from clients presenting the token.
+     * Call {@link #start()} to begin serving.
+     * @param port The TCP port, or 0 for an ephemeral port.
+     * @param recommendationService The caching service used to rank tracks, holding the catalog index.
+     * @param userPreferenceService The preference store, or null to serve only the catalog endpoints.
+     * @param catalogHolder The live catalog that edits are applied to, or null to reject edits.
+     * @param catalogToken The bearer token required for catalog edits; must be set when catalogHolder is.
+     * @throws IOException If the port cannot be bound.
+     */
+    public RecommendationServer(int port, CachedRecommendationService recommendationService,
+                                UserPreferenceService userPreferenceService, CatalogHolder catalogHolder,
+                                String catalogToken) throws IOException {
+        this(port, recommendationService, userPreferenceService, catalogHolder, catalogToken, null);
+    }
+
+    /**
+     * Creates a server bound to the given port that serves user recommendations from materialized lists.
+     * Call {@link #start()} to begin serving.
+     * @param port The TCP port, or 0 for an ephemeral port.
+     * @param recommendationService The caching service used to rank tracks, holding the catalog index.
+     * @param userPreferenceService The preference store, or null to serve only the catalog endpoints.
+     * @param catalogHolder The live catalog that edits are applied to, or null to reject edits.
+     * @param catalogToken The bearer token required for catalog edits; must be set when catalogHolder is.
+     * @param materializedRecommendationService The materialized user recommendations, or null to compute them per request.
+     * @throws IOException If the port cannot be bound.
+     */
+    public RecommendationServer(int port, CachedRecommendationService recommendationService,
+                                UserPreferenceService userPreferenceService, CatalogHolder catalogHolder,
+                                String catalogToken,
+                                MaterializedRecommendationService materializedRecommendationService) throws IOException {
+        if (catalogHolder != null && (catalogToken == null || catalogToken.isBlank())) {
+            throw new IllegalArgumentException("Catalog edits require a token");
+        }
+        this.recommendationService = recommendationService;
+        this.userPreferenceService = userPreferenceService;
+        this.catalogHolder = catalogHolder;
+        this.catalogToken = catalogHolder != null ? ("Bearer " + catalogToken).getBytes(StandardCharsets.UTF_8) : null;
+        this.materializedRecommendationService = materializedRecommendationService;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/recommendations", this::handleRecommendations);
+        server.createContext("/tracks/", this::handleTrack);
+        server.createContext("/users/", this::handleUser);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/catalog", this::handleCatalog);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+        logger.info("Recommendation server listening on port {}.", getPort());
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     * @return The local port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, giving in-flight requests up to the given delay to complete.
+     * @param delaySeconds The maximum time to wait for in-flight exchanges.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Recommendation server stopped.");
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor when running on a JVM with virtual threads,
+     * looked up reflectively so the build keeps targeting Java 17.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            logger.info("Serving requests on virtual threads.");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+            logger.warn("Virtual threads are not available on this JVM; serving requests on {} platform threads.", threads);
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    private void handleRecommendations(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            requireMethod(exchange, "GET");
+            Map<String, String> query = parseQuery(exchange);
+            Map<String, List<String>> preferences = new HashMap<>();
+            for (String key : PREFERENCE_KEYS) {
+                String value = query.get(key);
+                if (value != null && !value.isBlank()) {
+                    preferences.put(key, splitList(value));
+                }
+            }
+            return recommend(preferences, parseK(query));
+        });
+    }
+
+    private void handleTrack(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            requireMethod(exchange, "GET");
+            String title = decode(exchange.getRequestURI().getRawPath().substring("/tracks/".length()));
+            SkillIndex skillIndex = recommendationService.getSkillIndex();
+            int ordinal = skillIndex.ordinalOf(title);
+            if (ordinal < 0) {
+                throw new HttpError(404, "Unknown job track: " + title);
+            }
+            return skillIndex.getTrack(ordinal);
+        });
+    }
+
+    private void handleCatalog(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            if (catalogHolder == null) {
+                throw new HttpError(503, "Catalog edits are not available on this server.");
+            }
+            requireCatalogToken(exchange);
+            requireMethod(exchange, "PATCH");
+            CatalogDelta delta;
+            try (InputStream body = exchange.getRequestBody()) {
+                delta = CatalogDelta.read(body);
+            } catch (IOException e) {
+                throw new HttpError(400, e.getMessage());
+            }
+            SkillIndex skillIndex;
+            try {
+                skillIndex = catalogHolder.apply(delta).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HttpError(503, "Interrupted while applying catalog edits.");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Catalog edits failed", e.getCause());
+            }
+            return Map.of("applied", delta.size(), "version", catalogHolder.version(), "tracks", skillIndex.size());
+        });
+    }
+
+    private void requireCatalogToken(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        // Constant-time comparison, so response timing does not reveal how much of the token matched
+        if (authorization == null
+                || !MessageDigest.isEqual(catalogToken, authorization.getBytes(StandardCharsets.UTF_8))) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            throw new HttpError(401, "Catalog edits require the configured bearer token.");
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            requireMethod(exchange, "GET");
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("recommendationCache", recommendationService.stats());
+            if (userPreferenceService != null) {
+                stats.put("userCache", userPreferenceService.getUserCacheStats());
+                stats.put("preferenceCache", userPreferenceService.getPreferenceCacheStats());
+            }
+            if (materializedRecommendationService != null) {
+                stats.put("materializedRecommendations", Map.of(
+                        "hits", materializedRecommendationService.getHitCount(),
+                        "misses", materializedRecommendationService.getMissCount()));
+            }
+            return stats;
+        });
+    }
+
+    private void handleUser(HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            if (userPreferenceService == null) {
+                throw new HttpError(503, "User preferences are not available on this server.");
+            }
+            String[] path = exchange.getRequestURI().getRawPath().substring("/users/".length()).split("/");
+            if (path.length != 2 || path[0].isEmpty()) {
+                throw new HttpError(404, "Not found");
+            }
+            // Only saving preferences creates a user; lookups and bad requests never write
+            String username = decode(path[0]);
+            switch (path[1]) {
+                case "recommendations":
+                    requireMethod(exchange, "GET");
+                    int k = parseK(parseQuery(exchange));
+                    User user = userPreferenceService.findUser(username);
+                    if (user == null) {
+                        throw new HttpError(404, "Unknown user: " + username);
+                    }
+                    if (materializedRecommendationService != null) {
+                        return toJson(materializedRecommendationService.getTopRecommendations(user, k));
+                    }
+                    return recommend(userPreferenceService.loadUserPreferences(user), k);
+                case "preferences":
+                    requireMethod(exchange, "PUT");
+                    Map<String, List<String>> preferences;
+                    try (InputStream body = exchange.getRequestBody()) {
+                        preferences = MAPPER.readValue(body, new TypeReference<Map<String, List<String>>>() {});
+                    } catch (IOException e) {
+                        throw new HttpError(400, "Preferences must be a JSON object of string lists.");
+                    }
+                    if (preferences == null || preferences.values().stream().anyMatch(values -> values == null || values.stream().anyMatch(Objects::isNull))) {
+                        throw new HttpError(400, "Preferences must be a JSON object of string lists without nulls.");
+                    }
+                    User owner = userPreferenceService.getOrCreateUser(username);
+                    if (materializedRecommendationService != null) {
+                        materializedRecommendationService.saveUserPreferences(owner, preferences);
+                    } else {
+                        userPreferenceService.saveUserPreferences(owner, preferences);
+                    }
+                    return preferences;
+                default:
+                    throw new HttpError(404, "Not found");
+            }
+        });
+    }
+
+    private List<Map<String, Object>> recommend(Map<String, List<String>> preferences, int k) {
+        return toJson(recommendationService.getTopRecommendations(preferences, k));
+    }
+
+    private static List<Map<String, Object>> toJson(List<ScoredJobTrack> recommendations) {
+        return recommendations.stream().map(recommendation -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("title", recommendation.getJobTrack().getTitle());
+            entry.put("score", recommendation.getScore());
+            entry.put("scoreBreakdown", recommendation.getScoreBreakdown());
+            entry.put("url", recommendation.getJobTrack().getUrl());
+            return entry;
+        }).collect(Collectors.toList());
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            int status = 200;
+            Object body;
+            try {
+                body = handler.handle();
+            } catch (HttpError e) {
+                status = e.status;
+                body = Map.of("error", e.getMessage());
+            } catch (RuntimeException e) {
+                logger.error("Error handling {} {}: {}", exchange.getRequestMethod(), exchange.getRequestURI(), e.getMessage(), e);
+                status = 500;
+                body = Map.of("error", "Internal server error");
+            }
+            byte[] bytes = MAPPER.writeValueAsBytes(body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!method.equalsIgnoreCase(exchange.getRequestMethod())) {
+            throw new HttpError(405, "Method not allowed: " + exchange.getRequestMethod());
+        }
+    }
+
+    private static int parseK(Map<String, String> query) {
+        String k = query.get("k");
+        if (k == null) {
+            return DEFAULT_K;
+        }
+        try {
+            int value = Integer.parseInt(k);
+            if (value < 1 || value > MAX_K) {
+                throw new HttpError(400, "k must be between 1 and " + MAX_K);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "k must be a number");
+        }
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(decode(pair.substring(0, separator)), decode(pair.substring(separator + 1)));
+            }
+        }
+        return query;
+    }
+
+    private static List<String> splitList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Malformed URL encoding: " + value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle() throws IOException;
+    }
+
+    /**
+     * Signals a client error that is reported with the given HTTP status.
+     */
+    private static final class HttpError extends RuntimeException {
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.CompiledPreferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Service class producing recommendations for many users at once, e.g. for nightly cohort jobs.
+ * Users are scored in parallel on a dedicated fork-join pool; all workers share the same immutable
+ * {@link SkillIndex}, so the catalog is indexed once per run rather than once per user.
+ */
+public class BatchRecommendationService implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRecommendationService.class);
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final RecommendationService recommendationService;
+    private final SkillIndex skillIndex;
+    private final int topK;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a batch service using one worker per available processor.
+     * @param skillIndex The shared catalog index.
+     * @param topK The number of recommendations to produce per user.
+     */
+    public BatchRecommendationService(SkillIndex skillIndex, int topK) {
+        this(new RecommendationService(), skillIndex, topK, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a batch service.
+     * @param recommendationService The (stateless) service used to score each user.
+     * @param skillIndex The shared catalog index.
+     * @param topK The number of recommendations to produce per user.
+     * @param parallelism The number of worker threads.
+     */
+    public BatchRecommendationService(RecommendationService recommendationService, SkillIndex skillIndex, int topK, int parallelism) {
+        this.recommendationService = recommendationService;
+        this.skillIndex = skillIndex;
+        this.topK = topK;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Computes recommendations for every entry of the given map and hands them to the sink.
+     * Blocks until all users have been processed.
+     * @param preferencesByUser User preferences keyed by user key.
+     * @param sink The thread-safe destination of the results.
+     * @return The number of users processed.
+     */
+    public int recommendAll(Map<String, Map<String, List<String>>> preferencesByUser, RecommendationSink sink) {
+        pool.submit(() -> preferencesByUser.entrySet().parallelStream()
+                        .forEach(entry -> sink.accept(entry.getKey(),
+                                recommendationService.getTopRecommendations(skillIndex, entry.getValue(), topK))))
+                .join();
+        return preferencesByUser.size();
+    }
+
+    /**
+     * Computes recommendations for every entry of the given map, like {@link #recommendAll}, for callers that
+     * already compiled the preferences, e.g. to fingerprint them.
+     * @param preferencesByUser Preferences compiled against {@code skillIndex.terms()}, keyed by user key.
+     * @param sink The thread-safe destination of the results.
+     * @return The number of users processed.
+     */
+    public int recommendAllCompiled(Map<String, CompiledPreferences> preferencesByUser, RecommendationSink sink) {
+        pool.submit(() -> preferencesByUser.entrySet().parallelStream()
+                        .forEach(entry -> sink.accept(entry.getKey(),
+                                recommendationService.getTopRecommendations(skillIndex, entry.getValue(), topK))))
+                .join();
+        return preferencesByUser.size();
+    }
+
+    /**
+     * Streams every stored user out of the preference service page by page and computes their recommendations.
+     * Only one page of preferences is held in memory at a time.
+     * @param userPreferenceService The service to read users and preferences from.
+     * @param sink The thread-safe destination of the results, keyed by username.
+     * @return The number of users processed.
+     */
+    public int recommendAllUsers(UserPreferenceService userPreferenceService, RecommendationSink sink) {
+        return recommendAllPages(userPreferenceService::forEachUserPreferencesPage, sink);
+    }
+
+    /**
+     * Streams every stored user straight out of a preference store, bypassing the caches of
+     * {@link UserPreferenceService}; with a {@link JdbcPreferenceStore} no ORM is started at all.
+     * @param store The store to read users and preferences from.
+     * @param sink The thread-safe destination of the results, keyed by username.
+     * @return The number of users processed.
+     */
+    public int recommendAllUsers(PreferenceStore store, RecommendationSink sink) {
+        return recommendAllPages(store::forEachUserPreferencesPage, sink);
+    }
+
+    private int recommendAllPages(BiConsumer<Integer, Consumer<Map<String, Map<String, List<String>>>>> pages,
+                                  RecommendationSink sink) {
+        long start = System.nanoTime();
+        AtomicInteger processed = new AtomicInteger();
+        pages.accept(DEFAULT_PAGE_SIZE, page -> processed.addAndGet(recommendAll(page, sink)));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Batch recommendations computed for {} users in {} ms on {} workers.",
+                processed.get(), elapsedMillis, pool.getParallelism());
+        return processed.get();
+    }
+
+    /**
+     * Shuts down the worker pool.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
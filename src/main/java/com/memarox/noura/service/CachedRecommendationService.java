@@ -0,0 +1,180 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.cache.CacheStats;
+import com.memarox.noura.cache.LruCache;
+import com.memarox.noura.index.CatalogChanges;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.model.ScoredJobTrack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result cache in front of {@link RecommendationService#getTopRecommendations(SkillIndex, CompiledPreferences, int)}.
+ * <p>
+ * Results are keyed by the canonical {@link CompiledPreferences#fingerprint() fingerprint} of the preferences and by
+ * {@code k}, so "Java, Python" and "python, JAVA" share one entry. The cache is bounded with LRU eviction. Installing
+ * a new catalog with {@link #setSkillIndex} clears it; applying edits with {@link #applyChanges} drops only the
+ * results whose preferences can match a changed term or value. A result computed against a catalog that was
+ * replaced while it was being computed is never kept. Instances are thread-safe.
+ */
+public class CachedRecommendationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedRecommendationService.class);
+
+    /** Default maximum number of cached result lists. */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final RecommendationService recommendationService;
+    private final LruCache<Key, List<ScoredJobTrack>> cache;
+    private volatile Catalog catalog;
+
+    /**
+     * Creates a caching front for the given service and catalog.
+     * @param recommendationService The service computing results on a cache miss.
+     * @param skillIndex The current catalog index.
+     * @param maximumSize The maximum number of cached result lists.
+     */
+    public CachedRecommendationService(RecommendationService recommendationService, SkillIndex skillIndex, int maximumSize) {
+        this.recommendationService = recommendationService;
+        this.cache = new LruCache<>(maximumSize);
+        this.catalog = new Catalog(skillIndex, 0);
+    }
+
+    /**
+     * Returns the {@code k} best scoring job tracks for the given preferences, from the cache when possible.
+     * @param userPreferences A map of user preferences.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first, as an unmodifiable list shared with other callers.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(Map<String, List<String>> userPreferences, int k) {
+        return getTopRecommendations(CompiledPreferences.compile(userPreferences, catalog.skillIndex.terms()), k);
+    }
+
+    /**
+     * Returns the {@code k} best scoring job tracks for compiled preferences, from the cache when possible.
+     * @param preferences The user preferences, compiled once for this request.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first, as an unmodifiable list shared with other callers.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(CompiledPreferences preferences, int k) {
+        Key key = new Key(preferences, k);
+        List<ScoredJobTrack> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Catalog current = catalog;
+        List<ScoredJobTrack> results =
+                List.copyOf(recommendationService.getTopRecommendations(current.skillIndex, preferences, k));
+        cache.put(key, results);
+        // A catalog published before the put may have invalidated too early to see this entry; drop it ourselves
+        if (catalog != current) {
+            cache.invalidate(key);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the catalog index results are currently computed from.
+     * @return The current index.
+     */
+    public SkillIndex getSkillIndex() {
+        return catalog.skillIndex;
+    }
+
+    /**
+     * Installs a reloaded catalog and drops every cached result.
+     * @param skillIndex The new catalog index.
+     */
+    public void setSkillIndex(SkillIndex skillIndex) {
+        applyChanges(skillIndex, CatalogChanges.all());
+    }
+
+    /**
+     * Installs an edited catalog and drops the cached results the edits may have changed.
+     * @param skillIndex The new catalog index.
+     * @param changes What differs from the previous index, see {@link SkillIndex.Editor#changes()}.
+     */
+    public void applyChanges(SkillIndex skillIndex, CatalogChanges changes) {
+        synchronized (this) {
+            catalog = new Catalog(skillIndex, catalog.version + 1);
+        }
+        if (changes.isAll()) {
+            cache.invalidateAll();
+            logger.info("Recommendation cache invalidated for a catalog of {} tracks.", skillIndex.size());
+        } else {
+            int removed = cache.invalidateIf(key -> key.isAffectedBy(changes));
+            logger.info("Recommendation cache dropped {} results affected by catalog edits.", removed);
+        }
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the result cache.
+     * @return A snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * A catalog index together with the number of catalogs installed before it.
+     */
+    private static final class Catalog {
+        private final SkillIndex skillIndex;
+        private final long version;
+
+        Catalog(SkillIndex skillIndex, long version) {
+            this.skillIndex = skillIndex;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Cache key: the preference fingerprint and k. The folded preferences are kept alongside for
+     * selective invalidation; they are derived from the fingerprint and take no part in equality.
+     */
+    private static final class Key {
+        private final String fingerprint;
+        private final int k;
+        private final List<String> foldedSkills;
+        private final String foldedInterestArea;
+        private final String foldedWorkEnvironment;
+        private final List<String> learningStyles;
+
+        Key(CompiledPreferences preferences, int k) {
+            this.fingerprint = preferences.fingerprint();
+            this.k = k;
+            String[] skills = new String[preferences.skillCount()];
+            Arrays.setAll(skills, preferences::foldedSkill);
+            this.foldedSkills = Arrays.asList(skills);
+            this.foldedInterestArea = preferences.foldedInterestArea();
+            this.foldedWorkEnvironment = preferences.foldedWorkEnvironment();
+            this.learningStyles = preferences.learningStyles();
+        }
+
+        boolean isAffectedBy(CatalogChanges changes) {
+            return changes.affects(foldedSkills, foldedInterestArea, foldedWorkEnvironment, learningStyles);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return k == other.k && fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fingerprint.hashCode() + k;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.entity.User;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Preference store using plain JDBC prepared statements against SQLite, without an ORM. It opens in milliseconds,
+ * which suits workers that only read preferences, and uses the same schema as {@link JpaPreferenceStore}, so
+ * both can work on one database file.
+ * <p>
+ * Connections come from a bounded HikariCP pool that validates them before use. Every connection gets the same
+ * pragmas as the production persistence unit: WAL mode with {@code synchronous=NORMAL}, so readers are not blocked
+ * by a writer, a 16 MB page cache and a 256 MB memory map.
+ */
+public class JdbcPreferenceStore implements PreferenceStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcPreferenceStore.class);
+
+    /** Default maximum number of open connections. */
+    public static final int DEFAULT_MAXIMUM_CONNECTIONS = 4;
+
+    /** Maximum time to wait for a free connection, as in the production persistence unit. */
+    private static final long CONNECTION_TIMEOUT_MILLIS = 10_000;
+
+    private final String jdbcUrl;
+    private final HikariDataSource dataSource;
+
+    /**
+     * Opens a store on a SQLite database file with the default number of connections.
+     * @param databaseFile The database file, created if missing.
+     */
+    public JdbcPreferenceStore(Path databaseFile) {
+        this("jdbc:sqlite:" + databaseFile, DEFAULT_MAXIMUM_CONNECTIONS);
+    }
+
+    /**
+     * Opens a store, creating the schema and migrating legacy preference data if needed.
+     * @param jdbcUrl The SQLite JDBC URL.
+     * @param maximumConnections The maximum number of open connections.
+     */
+    public JdbcPreferenceStore(String jdbcUrl, int maximumConnections) {
+        if (maximumConnections <= 0) {
+            throw new IllegalArgumentException("maximumConnections must be positive: " + maximumConnections);
+        }
+        long start = System.nanoTime();
+        this.jdbcUrl = jdbcUrl;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("noura-jdbc");
+        config.setJdbcUrl(jdbcUrl);
+        config.setMaximumPoolSize(maximumConnections);
+        config.setMinimumIdle(Math.min(2, maximumConnections));
+        config.setConnectionTimeout(CONNECTION_TIMEOUT_MILLIS);
+        // SQLite pragmas, applied by the driver to every pooled connection; keep in sync with noura-prod-pu
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", "NORMAL");
+        config.addDataSourceProperty("cache_size", "-16000");
+        config.addDataSourceProperty("mmap_size", "268435456");
+        config.addDataSourceProperty("busy_timeout", "5000");
+        this.dataSource = new HikariDataSource(config);
+        int migrated;
+        try {
+            migrated = write("creating the preference schema", connection -> {
+                PreferenceSql.createSchema(connection);
+                return PreferenceSql.migrateLegacyTable(connection);
+            });
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        if (migrated >= 0) {
+            logger.info("Migrated {} preference values from the legacy user_preferences table.", migrated);
+        }
+        logger.info("Opened JDBC preference store {} in {} ms.", jdbcUrl, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public Map<String, User> findUsers(List<String> usernames) {
+        return read("finding " + usernames.size() + " users", connection -> PreferenceSql.queryUsers(connection, usernames));
+    }
+
+    @Override
+    public Map<String, User> getOrCreateUsers(List<String> usernames) {
+        return write("getting or creating " + usernames.size() + " users",
+                connection -> PreferenceSql.upsertUsers(connection, usernames));
+    }
+
+    @Override
+    public void saveUserPreferences(User user, Map<String, List<String>> preferences) {
+        write("saving preferences for user " + user.getUsername(),
+                connection -> PreferenceSql.replacePreferences(connection, Map.of(user.getId(), preferences)));
+    }
+
+    @Override
+    public int saveAllUserPreferences(Map<Long, Map<String, List<String>>> preferencesByUserId,
+                                      UserPreferenceService.SaveMode mode) {
+        return write("saving preferences of " + preferencesByUserId.size() + " users",
+                connection -> mode == UserPreferenceService.SaveMode.REPLACE
+                        ? PreferenceSql.replacePreferences(connection, preferencesByUserId)
+                        : PreferenceSql.writeChangedPreferences(connection, preferencesByUserId));
+    }
+
+    @Override
+    public Map<String, List<String>> loadUserPreferences(User user) {
+        return read("loading preferences for user " + user.getUsername(), connection ->
+                PreferenceSql.queryPreferences(connection, List.of(user.getId())).getOrDefault(user.getId(), new HashMap<>()));
+    }
+
+    @Override
+    public List<String> findUsernamesByPreference(String preferenceKey, String preferenceValue) {
+        return read("finding users with " + preferenceKey + " = " + preferenceValue,
+                connection -> PreferenceSql.queryUsernamesByPreference(connection, preferenceKey, preferenceValue));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each page costs two queries (users, then their preferences) regardless of its size.
+     */
+    @Override
+    public void forEachUserPreferencesPage(int pageSize, Consumer<Map<String, Map<String, List<String>>>> pageConsumer) {
+        long[] lastId = {0};
+        while (true) {
+            Map<String, Map<String, List<String>>> page = read("streaming user preferences after user id " + lastId[0],
+                    connection -> {
+                        Map<Long, String> users = PreferenceSql.queryUsersAfter(connection, lastId[0], pageSize);
+                        Map<String, Map<String, List<String>>> preferencesByUsername = new LinkedHashMap<>();
+                        if (users.isEmpty()) {
+                            return preferencesByUsername;
+                        }
+                        List<Long> userIds = new ArrayList<>(users.keySet());
+                        Map<Long, Map<String, List<String>>> stored = new HashMap<>();
+                        for (int from = 0; from < userIds.size(); from += PreferenceSql.QUERY_CHUNK_SIZE) {
+                            stored.putAll(PreferenceSql.queryPreferences(connection,
+                                    userIds.subList(from, Math.min(from + PreferenceSql.QUERY_CHUNK_SIZE, userIds.size()))));
+                        }
+                        users.forEach((id, username) ->
+                                preferencesByUsername.put(username, stored.getOrDefault(id, new HashMap<>())));
+                        lastId[0] = userIds.get(userIds.size() - 1);
+                        return preferencesByUsername;
+                    });
+            if (page.isEmpty()) {
+                return;
+            }
+            pageConsumer.accept(page);
+        }
+    }
+
+    @Override
+    public MaterializedRecommendations loadRecommendations(User user) {
+        return read("loading recommendations for user " + user.getUsername(),
+                connection -> PreferenceSql.queryRecommendations(connection, user.getId()));
+    }
+
+    @Override
+    public void saveRecommendations(Map<Long, MaterializedRecommendations> recommendationsByUserId) {
+        write("saving recommendations of " + recommendationsByUserId.size() + " users", connection -> {
+            PreferenceSql.upsertRecommendations(connection, recommendationsByUserId);
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachStaleRecommendationsPage(String catalogVersion, int pageSize,
+                                                Consumer<List<StaleRecommendations>> pageConsumer) {
+        long lastId = 0;
+        while (true) {
+            long after = lastId;
+            List<StaleRecommendations> page = read("finding stale recommendations after user id " + after,
+                    connection -> PreferenceSql.queryStaleRecommendationsPage(connection, catalogVersion, after, pageSize));
+            if (page.isEmpty()) {
+                return;
+            }
+            lastId = page.get(page.size() - 1).getUserId();
+            pageConsumer.accept(page);
+        }
+    }
+
+    private <T> T read(String description, SqlWork<T> work) {
+        try (Connection connection = borrow()) {
+            return work.run(connection);
+        } catch (SQLException e) {
+            logger.error("Error {}: {}", description, e.getMessage(), e);
+            throw new IllegalStateException("Error " + description, e);
+        }
+    }
+
+    private <T> T write(String description, SqlWork<T> work) {
+        try (Connection connection = borrow()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error {}: {}", description, e.getMessage(), e);
+            throw new IllegalStateException("Error " + description, e);
+        }
+    }
+
+    private Connection borrow() throws SQLException {
+        if (dataSource.isClosed()) {
+            throw new IllegalStateException("The preference store is closed");
+        }
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Closes the pool. Later calls fail at once; calls still waiting for a connection fail after the connection timeout.
+     */
+    @Override
+    public void close() {
+        dataSource.close();
+        logger.info("JDBC preference store {} closed.", jdbcUrl);
+    }
+
+    /**
+     * Database work on a borrowed connection.
+     */
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+}
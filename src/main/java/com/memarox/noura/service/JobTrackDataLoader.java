@@ -1,14 +1,26 @@
 package com.memarox.noura.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.memarox.noura.catalog.CatalogSnapshot;
 import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.TermDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service class responsible for loading job track data from a JSON file.
@@ -16,23 +28,159 @@ import java.util.List;
 public class JobTrackDataLoader {
 
     private static final Logger logger = LoggerFactory.getLogger(JobTrackDataLoader.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader TRACK_READER = MAPPER.readerFor(JobTrack.class);
 
     /**
-     * Loads a list of JobTrack objects from the job_tracks.json resource file.
+     * Loads a list of JobTrack objects from the job_tracks.json resource file, encoded with a new dictionary.
      * @return A list of JobTrack objects, or null if an error occurs during loading.
      */
     public List<JobTrack> loadJobTracks() {
-        ObjectMapper mapper = new ObjectMapper();
+        List<JobTrack> jobTracks = new ArrayList<>();
+        return streamJobTracks(new TermDictionary(), jobTracks::add) < 0 ? null : jobTracks;
+    }
+
+    /**
+     * Loads a list of JobTrack objects from a catalog file on the filesystem, encoded with a new dictionary.
+     * @param catalogFile The JSON catalog file, in the job_tracks.json format.
+     * @return A list of JobTrack objects, or null if an error occurs during loading.
+     */
+    public List<JobTrack> loadJobTracks(Path catalogFile) {
+        List<JobTrack> jobTracks = new ArrayList<>();
+        return streamJobTracks(catalogFile, new TermDictionary(), jobTracks::add) < 0 ? null : jobTracks;
+    }
+
+    /**
+     * Streams the job tracks of the job_tracks.json resource file to the consumer one at a time.
+     * @param consumer Receives each track as soon as it has been parsed, e.g. an index builder.
+     * @return The number of tracks streamed, or -1 if an error occurs during loading.
+     */
+    public int streamJobTracks(Consumer<JobTrack> consumer) {
+        return streamJobTracks(new TermDictionary(), consumer);
+    }
+
+    /**
+     * Streams the job tracks of the job_tracks.json resource file to the consumer one at a time.
+     * @param dictionary The dictionary to encode the tracks with, e.g. the one of the index being built.
+     * @param consumer Receives each track as soon as it has been parsed, e.g. an index builder.
+     * @return The number of tracks streamed, or -1 if an error occurs during loading.
+     */
+    public int streamJobTracks(TermDictionary dictionary, Consumer<JobTrack> consumer) {
         try (InputStream is = getClass().getClassLoader().getResourceAsStream("job_tracks.json")) {
             if (is == null) {
                 logger.error("job_tracks.json not found in resources.");
-                return null;
+                return -1;
             }
-            logger.info("Loading job tracks from job_tracks.json...");
-            return mapper.readValue(is, new TypeReference<List<JobTrack>>() {});
+            logger.info("Streaming job tracks from job_tracks.json...");
+            return streamJobTracks(is, dictionary, consumer);
         } catch (IOException e) {
             logger.error("Error loading job tracks: {}", e.getMessage(), e);
-            return null;
+            return -1;
+        }
+    }
+
+    /**
+     * Streams the job tracks of a catalog file to the consumer one at a time. The file is memory-mapped,
+     * so it is read straight from the page cache and only one track is materialized at a time.
+     * Binary {@link CatalogSnapshot} files are recognized by their header and decoded without JSON parsing.
+     * @param catalogFile The JSON catalog file, in the job_tracks.json format, or a catalog snapshot.
+     * @param consumer Receives each track as soon as it has been parsed, e.g. an index builder.
+     * @return The number of tracks streamed, or -1 if an error occurs during loading.
+     */
+    public int streamJobTracks(Path catalogFile, Consumer<JobTrack> consumer) {
+        return streamJobTracks(catalogFile, new TermDictionary(), consumer);
+    }
+
+    /**
+     * Streams the job tracks of a catalog file or snapshot to the consumer one at a time, like
+     * {@link #streamJobTracks(Path, Consumer)}.
+     * @param catalogFile The JSON catalog file, in the job_tracks.json format, or a catalog snapshot.
+     * @param dictionary The dictionary to encode the tracks with, e.g. the one of the index being built.
+     * @param consumer Receives each track as soon as it has been parsed, e.g. an index builder.
+     * @return The number of tracks streamed, or -1 if an error occurs during loading.
+     */
+    public int streamJobTracks(Path catalogFile, TermDictionary dictionary, Consumer<JobTrack> consumer) {
+        if (CatalogSnapshot.isSnapshot(catalogFile)) {
+            try {
+                CatalogSnapshot snapshot = CatalogSnapshot.open(catalogFile, dictionary);
+                logger.info("Loading {} job tracks from snapshot {}...", snapshot.trackCount(), catalogFile);
+                snapshot.forEach(consumer);
+                return snapshot.trackCount();
+            } catch (IOException e) {
+                logger.error("Error loading catalog snapshot {}: {}", catalogFile, e.getMessage(), e);
+                return -1;
+            }
+        }
+        logger.info("Streaming job tracks from {}...", catalogFile);
+        try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                // A single mapping is limited to 2 GB; larger catalogs are read through a regular stream
+                try (InputStream is = Files.newInputStream(catalogFile)) {
+                    return streamJobTracks(is, dictionary, consumer);
+                }
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return streamJobTracks(new ByteBufferInputStream(buffer), dictionary, consumer);
+        } catch (IOException e) {
+            logger.error("Error loading job tracks from {}: {}", catalogFile, e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a JSON array of job tracks incrementally with Jackson's streaming parser, binding each one into a
+     * track created with the dictionary.
+     */
+    private static int streamJobTracks(InputStream is, TermDictionary dictionary, Consumer<JobTrack> consumer) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(is)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of job tracks");
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(TRACK_READER.withValueToUpdate(new JobTrack(dictionary)).readValue(parser));
+                count++;
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Unexpected token " + parser.currentToken() + " in job track array");
+            }
+            logger.info("Streamed {} job tracks.", count);
+            return count;
+        }
+    }
+
+    /**
+     * Minimal InputStream view over a (memory-mapped) ByteBuffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,264 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.entity.User;
+import com.memarox.noura.entity.UserPreference;
+import com.memarox.noura.entity.UserRecommendations;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Preference store backed by JPA/Hibernate, configured by a persistence unit of persistence.xml.
+ * Hibernate maintains the schema; bulk operations run as plain JDBC inside Hibernate transactions.
+ */
+public class JpaPreferenceStore implements PreferenceStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JpaPreferenceStore.class);
+
+    private final EntityManagerFactory emf;
+
+    /**
+     * Opens the store and migrates legacy preference data if present.
+     * @param persistenceUnitName {@link UserPreferenceService#DEV_PERSISTENCE_UNIT} or
+     *                            {@link UserPreferenceService#PRODUCTION_PERSISTENCE_UNIT}.
+     * @param properties Persistence properties overriding those of persistence.xml.
+     */
+    public JpaPreferenceStore(String persistenceUnitName, Map<String, ?> properties) {
+        emf = Persistence.createEntityManagerFactory(persistenceUnitName, properties);
+        int migrated = inTransaction("migrating legacy user preferences", em -> {
+            int[] count = new int[1];
+            em.unwrap(Session.class).doWork(connection -> count[0] = PreferenceSql.migrateLegacyTable(connection));
+            return count[0];
+        });
+        if (migrated >= 0) {
+            logger.info("Migrated {} preference values from the legacy user_preferences table.", migrated);
+        }
+        logger.info("User preferences use persistence unit {}.", persistenceUnitName);
+    }
+
+    @Override
+    public Map<String, User> findUsers(List<String> usernames) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Map<String, User> users = new HashMap<>();
+            for (int from = 0; from < usernames.size(); from += PreferenceSql.QUERY_CHUNK_SIZE) {
+                em.createQuery("SELECT u FROM User u WHERE u.username IN :usernames", User.class)
+                        .setParameter("usernames", usernames.subList(from, Math.min(from + PreferenceSql.QUERY_CHUNK_SIZE, usernames.size())))
+                        .getResultStream()
+                        .forEach(user -> users.put(user.getUsername(), user));
+            }
+            return users;
+        } catch (Exception e) {
+            logger.error("Error finding {} users: {}", usernames.size(), e.getMessage(), e);
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public Map<String, User> getOrCreateUsers(List<String> usernames) {
+        return inTransaction("getting or creating " + usernames.size() + " users", em -> {
+            List<Map<String, User>> users = new ArrayList<>(1);
+            em.unwrap(Session.class).doWork(connection -> users.add(PreferenceSql.upsertUsers(connection, usernames)));
+            return users.get(0);
+        });
+    }
+
+    @Override
+    public void saveUserPreferences(User user, Map<String, List<String>> preferences) {
+        inTransaction("saving preferences for user " + user.getUsername(), em -> {
+            // Clear existing preferences for the user
+            em.createQuery("DELETE FROM UserPreference up WHERE up.user = :user")
+                    .setParameter("user", user)
+                    .executeUpdate();
+
+            // Save new preferences, one row per value
+            for (Map.Entry<String, List<String>> entry : preferences.entrySet()) {
+                List<String> values = entry.getValue();
+                for (int i = 0; i < values.size(); i++) {
+                    UserPreference userPreference = new UserPreference();
+                    userPreference.setUser(user);
+                    userPreference.setPreferenceKey(entry.getKey());
+                    userPreference.setValueIndex(i);
+                    userPreference.setPreferenceValue(values.get(i));
+                    em.persist(userPreference);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int saveAllUserPreferences(Map<Long, Map<String, List<String>>> preferencesByUserId,
+                                      UserPreferenceService.SaveMode mode) {
+        return inTransaction("saving preferences of " + preferencesByUserId.size() + " users", em -> {
+            int[] written = new int[1];
+            em.unwrap(Session.class).doWork(connection -> written[0] = mode == UserPreferenceService.SaveMode.REPLACE
+                    ? PreferenceSql.replacePreferences(connection, preferencesByUserId)
+                    : PreferenceSql.writeChangedPreferences(connection, preferencesByUserId));
+            return written[0];
+        });
+    }
+
+    @Override
+    public Map<String, List<String>> loadUserPreferences(User user) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<UserPreference> preferences = em.createQuery(
+                    "SELECT up FROM UserPreference up WHERE up.user = :user ORDER BY up.preferenceKey, up.valueIndex", UserPreference.class)
+                    .setParameter("user", user)
+                    .getResultList();
+
+            Map<String, List<String>> loadedPreferences = new HashMap<>();
+            for (UserPreference up : preferences) {
+                loadedPreferences.computeIfAbsent(up.getPreferenceKey(), key -> new ArrayList<>()).add(up.getPreferenceValue());
+            }
+            logger.info("Loaded preferences for user {}: {}", user.getUsername(), loadedPreferences);
+            return loadedPreferences;
+        } catch (Exception e) {
+            logger.error("Error loading preferences for user {}: {}", user.getUsername(), e.getMessage(), e);
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public List<String> findUsernamesByPreference(String preferenceKey, String preferenceValue) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT DISTINCT up.user.username FROM UserPreference up "
+                            + "WHERE up.preferenceKey = :key AND up.preferenceValue = :value ORDER BY up.user.username", String.class)
+                    .setParameter("key", preferenceKey)
+                    .setParameter("value", preferenceValue)
+                    .getResultList();
+        } catch (Exception e) {
+            logger.error("Error finding users with {} = {}: {}", preferenceKey, preferenceValue, e.getMessage(), e);
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each page costs two queries (users, then their preferences) regardless of its size.
+     */
+    @Override
+    public void forEachUserPreferencesPage(int pageSize, Consumer<Map<String, Map<String, List<String>>>> pageConsumer) {
+        long lastId = 0;
+        while (true) {
+            EntityManager em = emf.createEntityManager();
+            Map<String, Map<String, List<String>>> page = new LinkedHashMap<>();
+            try {
+                List<User> users = em.createQuery("SELECT u FROM User u WHERE u.id > :lastId ORDER BY u.id", User.class)
+                        .setParameter("lastId", lastId)
+                        .setMaxResults(pageSize)
+                        .getResultList();
+                if (users.isEmpty()) {
+                    return;
+                }
+                Map<Long, Map<String, List<String>>> byUserId = new HashMap<>();
+                for (User user : users) {
+                    Map<String, List<String>> preferences = new HashMap<>();
+                    byUserId.put(user.getId(), preferences);
+                    page.put(user.getUsername(), preferences);
+                }
+                em.createQuery("SELECT up FROM UserPreference up WHERE up.user IN :users ORDER BY up.valueIndex", UserPreference.class)
+                        .setParameter("users", users)
+                        .getResultStream()
+                        .forEach(up -> byUserId.get(up.getUser().getId())
+                                .computeIfAbsent(up.getPreferenceKey(), key -> new ArrayList<>())
+                                .add(up.getPreferenceValue()));
+                lastId = users.get(users.size() - 1).getId();
+            } catch (Exception e) {
+                logger.error("Error streaming user preferences after user id {}: {}", lastId, e.getMessage(), e);
+                throw e;
+            } finally {
+                em.close();
+            }
+            pageConsumer.accept(page);
+        }
+    }
+
+    @Override
+    public MaterializedRecommendations loadRecommendations(User user) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            UserRecommendations stored = em.find(UserRecommendations.class, user.getId());
+            return stored == null ? null : MaterializedRecommendations.fromJson(stored.getCatalogVersion(),
+                    stored.getPreferencesFingerprint(), stored.getRecommendations());
+        } catch (Exception e) {
+            logger.error("Error loading recommendations for user {}: {}", user.getUsername(), e.getMessage(), e);
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void saveRecommendations(Map<Long, MaterializedRecommendations> recommendationsByUserId) {
+        inTransaction("saving recommendations of " + recommendationsByUserId.size() + " users", em -> {
+            em.unwrap(Session.class).doWork(connection -> PreferenceSql.upsertRecommendations(connection, recommendationsByUserId));
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachStaleRecommendationsPage(String catalogVersion, int pageSize,
+                                                Consumer<List<StaleRecommendations>> pageConsumer) {
+        long lastId = 0;
+        while (true) {
+            long after = lastId;
+            List<StaleRecommendations> page = inTransaction("finding stale recommendations after user id " + after, em -> {
+                List<List<StaleRecommendations>> result = new ArrayList<>(1);
+                em.unwrap(Session.class).doWork(connection -> result.add(
+                        PreferenceSql.queryStaleRecommendationsPage(connection, catalogVersion, after, pageSize)));
+                return result.get(0);
+            });
+            if (page.isEmpty()) {
+                return;
+            }
+            lastId = page.get(page.size() - 1).getUserId();
+            pageConsumer.accept(page);
+        }
+    }
+
+    private <T> T inTransaction(String description, Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } catch (Exception e) {
+            logger.error("Error {}: {}", description, e.getMessage(), e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (emf != null && emf.isOpen()) {
+            emf.close();
+            logger.info("EntityManagerFactory closed.");
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.memarox.noura.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.memarox.noura.entity.User;
+import com.memarox.noura.index.CatalogChanges;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.model.ScoringWeights;
+import com.memarox.noura.model.SkillCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves each user's top recommendations from a list materialized next to their preferences, so a returning user
+ * costs a single primary key read instead of a scan of the catalog.
+ * <p>
+ * A stored list is used only while it matches both the live catalog and the
+ * {@link CompiledPreferences#fingerprint() fingerprint} of the user's current preferences. Otherwise the request
+ * computes its result without storing it, and the user is queued for the background refresh thread, which is the
+ * only writer besides {@link #saveUserPreferences}. Saving preferences through this service refreshes the list right
+ * away; saves that bypass it are caught by the fingerprint on the next read.
+ * <p>
+ * When a new catalog is installed with {@link #setSkillIndex}, a background job recomputes every stale list in bulk,
+ * one page of users at a time. Catalog edits installed with {@link #applyChanges} only make stale the lists of users
+ * whose preferences the {@link CatalogChanges} can affect; the other lists keep their older stamp and stay valid
+ * until the next full catalog.
+ * <p>
+ * The version of a full catalog is a hash of its contents, the scoring weights and the list length, so stored lists
+ * stay valid across restarts with the same catalog. Edits are kept in memory only, so an edited catalog gets a
+ * random version that no catalog loaded after a restart can match. Instances are thread-safe.
+ */
+public class MaterializedRecommendationService implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaterializedRecommendationService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int REFRESH_PAGE_SIZE = 500;
+    /** Maximum number of catalog edits remembered; lists computed before older edits are recomputed. */
+    private static final int MAX_EDIT_HISTORY = 256;
+
+    /** Default number of recommendations materialized per user. */
+    public static final int DEFAULT_TOP_K = 20;
+
+    private final UserPreferenceService userPreferenceService;
+    private final RecommendationService recommendationService;
+    private final int topK;
+    private final ExecutorService refreshExecutor;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Map<Long, User> pendingUsers = new ConcurrentHashMap<>();
+    private final AtomicBoolean pendingScheduled = new AtomicBoolean();
+    private volatile Catalog catalog;
+    private volatile boolean closed;
+
+    /**
+     * Creates the service. Call {@link #refreshStale()} to materialize the lists of users stored before.
+     * @param userPreferenceService The service storing preferences and materialized recommendations.
+     * @param recommendationService The service computing recommendations.
+     * @param skillIndex The current catalog index.
+     * @param topK The number of recommendations materialized per user; larger requests are computed on the fly.
+     */
+    public MaterializedRecommendationService(UserPreferenceService userPreferenceService,
+                                             RecommendationService recommendationService, SkillIndex skillIndex, int topK) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive: " + topK);
+        }
+        this.userPreferenceService = userPreferenceService;
+        this.recommendationService = recommendationService;
+        this.topK = topK;
+        this.catalog = new Catalog(skillIndex, versionOf(skillIndex), List.of());
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the {@code k} best scoring job tracks for a user, from the materialized list when it is current.
+     * A missing or stale list is not written here; the user is queued for the background refresh instead.
+     * @param user The user.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(User user, int k) {
+        Catalog current = catalog;
+        CompiledPreferences preferences = CompiledPreferences.compile(
+                userPreferenceService.loadUserPreferences(user), current.skillIndex.terms());
+        if (k > topK) {
+            return recommendationService.getTopRecommendations(current.skillIndex, preferences, k);
+        }
+        MaterializedRecommendations stored = userPreferenceService.loadRecommendations(user);
+        if (stored != null && stored.getPreferencesFingerprint().equals(preferences.fingerprint())
+                && current.accepts(stored.getCatalogVersion(), preferences)) {
+            List<ScoredJobTrack> recommendations = stored.resolve(current.skillIndex);
+            if (recommendations != null) {
+                hits.incrementAndGet();
+                return firstK(recommendations, k);
+            }
+        }
+        misses.incrementAndGet();
+        queueRefresh(user);
+        return recommendationService.getTopRecommendations(current.skillIndex, preferences, k);
+    }
+
+    /**
+     * Saves the preferences of a user and materializes the recommendations for them.
+     * @param user The user.
+     * @param preferences The complete new preferences.
+     */
+    public void saveUserPreferences(User user, Map<String, List<String>> preferences) {
+        userPreferenceService.saveUserPreferences(user, preferences);
+        Catalog current = catalog;
+        CompiledPreferences compiled = CompiledPreferences.compile(preferences, current.skillIndex.terms());
+        List<ScoredJobTrack> recommendations =
+                recommendationService.getTopRecommendations(current.skillIndex, compiled, topK);
+        try {
+            userPreferenceService.saveRecommendations(Map.of(user.getId(),
+                    MaterializedRecommendations.of(current.version, compiled.fingerprint(), recommendations)));
+        } catch (RuntimeException e) {
+            // The preferences are saved; the next read computes the recommendations and queues them again
+            logger.warn("Could not store recommendations for user {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a user whose list was missing or stale for the background refresh thread.
+     */
+    private void queueRefresh(User user) {
+        if (closed) {
+            return;
+        }
+        pendingUsers.put(user.getId(), user);
+        if (pendingScheduled.compareAndSet(false, true)) {
+            try {
+                refreshExecutor.execute(this::refreshPending);
+            } catch (RejectedExecutionException e) {
+                // Closed meanwhile; the next start refreshes the stale lists
+                pendingScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Materializes the lists of the users queued by reads, on the background refresh thread. Only users who read
+     * a missing or stale list are queued, so they are scored right here rather than on a batch worker pool.
+     */
+    private void refreshPending() {
+        pendingScheduled.set(false);
+        Catalog target = catalog;
+        List<User> users = new ArrayList<>(pendingUsers.values());
+        try {
+            for (int from = 0; from < users.size() && !closed; from += REFRESH_PAGE_SIZE) {
+                Map<Long, CompiledPreferences> preferencesByUserId = new HashMap<>();
+                for (User user : users.subList(from, Math.min(from + REFRESH_PAGE_SIZE, users.size()))) {
+                    pendingUsers.remove(user.getId(), user);
+                    preferencesByUserId.put(user.getId(), CompiledPreferences.compile(
+                            userPreferenceService.loadUserPreferences(user), target.skillIndex.terms()));
+                }
+                materializeAll(target, null, preferencesByUserId);
+            }
+        } catch (RuntimeException e) {
+            // The users are read again, and queued again, on their next request
+            logger.warn("Could not refresh the recommendations of {} users: {}", users.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Computes and stores the lists of one page of users in a single write.
+     * @param batch The workers to score the page on, or null to score it on the calling thread.
+     * @param preferencesByUserId Preferences compiled against the target catalog, keyed by user id.
+     * @return The number of lists stored.
+     */
+    private int materializeAll(Catalog target, BatchRecommendationService batch,
+                               Map<Long, CompiledPreferences> preferencesByUserId) {
+        Map<Long, MaterializedRecommendations> computed = new ConcurrentHashMap<>();
+        if (batch == null) {
+            preferencesByUserId.forEach((userId, preferences) -> computed.put(userId,
+                    MaterializedRecommendations.of(target.version, preferences.fingerprint(),
+                            recommendationService.getTopRecommendations(target.skillIndex, preferences, topK))));
+        } else {
+            Map<String, CompiledPreferences> preferencesByKey = new HashMap<>();
+            preferencesByUserId.forEach((userId, preferences) -> preferencesByKey.put(String.valueOf(userId), preferences));
+            batch.recommendAllCompiled(preferencesByKey, (userKey, recommendations) -> computed.put(Long.valueOf(userKey),
+                    MaterializedRecommendations.of(target.version, preferencesByKey.get(userKey).fingerprint(), recommendations)));
+        }
+        userPreferenceService.saveRecommendations(computed);
+        return computed.size();
+    }
+
+    private static List<ScoredJobTrack> firstK(List<ScoredJobTrack> recommendations, int k) {
+        return List.copyOf(recommendations.subList(0, Math.min(k, recommendations.size())));
+    }
+
+    /**
+     * Installs a new catalog, then recomputes every list materialized against another catalog on the background
+     * refresh thread. Hashing the catalog runs on the calling thread, e.g. the catalog reload thread of a listener.
+     * @param skillIndex The new catalog index.
+     * @return A future completed with the number of lists recomputed.
+     */
+    public CompletableFuture<Integer> setSkillIndex(SkillIndex skillIndex) {
+        return applyChanges(skillIndex, CatalogChanges.all());
+    }
+
+    /**
+     * Installs an edited catalog, then recomputes on the background refresh thread only the lists the edits may
+     * have changed. The catalog is not hashed again; a full catalog ({@link CatalogChanges#all()}) is handled as
+     * by {@link #setSkillIndex}.
+     * @param skillIndex The new catalog index.
+     * @param changes What differs from the previous index, see {@link SkillIndex.Editor#changes()}.
+     * @return A future completed with the number of lists recomputed.
+     */
+    public CompletableFuture<Integer> applyChanges(SkillIndex skillIndex, CatalogChanges changes) {
+        String fullVersion = changes.isAll() ? versionOf(skillIndex) : null;
+        Catalog installed;
+        synchronized (this) {
+            installed = fullVersion != null ? new Catalog(skillIndex, fullVersion, List.of()) : catalog.edited(skillIndex, changes);
+            catalog = installed;
+        }
+        if (changes.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        logger.info("Materialized recommendations now target catalog {} ({} tracks, {} edits since the last full catalog).",
+                installed.version, skillIndex.size(), installed.revisions.size());
+        return CompletableFuture.supplyAsync(() -> refresh(installed), refreshExecutor);
+    }
+
+    /**
+     * Materializes, on the background refresh thread, the lists of all users that have none or whose list was
+     * computed against another catalog and is not still valid for it. Refreshes are serialized; a refresh stops
+     * early when a newer catalog is installed, since the refresh queued for that catalog covers the same users.
+     * @return A future completed with the number of lists recomputed.
+     */
+    public CompletableFuture<Integer> refreshStale() {
+        return CompletableFuture.supplyAsync(() -> refresh(catalog), refreshExecutor);
+    }
+
+    private int refresh(Catalog target) {
+        long start = System.nanoTime();
+        AtomicInteger refreshed = new AtomicInteger();
+        try (BatchRecommendationService batch = new BatchRecommendationService(recommendationService, target.skillIndex,
+                topK, Runtime.getRuntime().availableProcessors())) {
+            userPreferenceService.forEachStaleRecommendationsPage(target.version, REFRESH_PAGE_SIZE, page -> {
+                if (closed || catalog != target) {
+                    throw new CancellationException();
+                }
+                Map<Long, CompiledPreferences> preferencesByUserId = new HashMap<>();
+                for (StaleRecommendations stale : page) {
+                    CompiledPreferences preferences =
+                            CompiledPreferences.compile(stale.getPreferences(), target.skillIndex.terms());
+                    // Lists of an earlier edit stay valid for users the later edits cannot affect
+                    if (stale.getCatalogVersion() == null || target.revisions.isEmpty()
+                            || !target.accepts(stale.getCatalogVersion(), preferences)) {
+                        preferencesByUserId.put(stale.getUserId(), preferences);
+                    }
+                }
+                if (!preferencesByUserId.isEmpty()) {
+                    refreshed.addAndGet(materializeAll(target, batch, preferencesByUserId));
+                }
+            });
+        } catch (CancellationException e) {
+            logger.info("Recommendation refresh for catalog {} stopped after {} users.", target.version, refreshed.get());
+            return refreshed.get();
+        }
+        logger.info("Refreshed {} materialized recommendation lists for catalog {} in {} ms.",
+                refreshed.get(), target.version, (System.nanoTime() - start) / 1_000_000);
+        return refreshed.get();
+    }
+
+    /**
+     * Returns the version stored lists must carry to be served.
+     * @return The version of the installed catalog.
+     */
+    public String getCatalogVersion() {
+        return catalog.version;
+    }
+
+    /**
+     * Returns the number of requests answered from a materialized list.
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of requests whose list was missing or stale and was computed on the fly.
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Stops the background refresh, waiting briefly for the current page to be written.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        refreshExecutor.shutdown();
+        try {
+            if (!refreshExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Recommendation refresh did not stop within 10 seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hashes everything the stored lists depend on: the tracks, the scoring weights and the list length.
+     */
+    private String versionOf(SkillIndex skillIndex) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            out.writeInt(topK);
+            ScoringWeights weights = recommendationService.getWeights();
+            for (SkillCategory category : SkillCategory.values()) {
+                out.writeInt(weights.exactMatchWeight(category));
+                out.writeInt(weights.partialMatchWeight(category));
+            }
+            out.writeInt(weights.interestAreaWeight());
+            out.writeInt(weights.workEnvironmentWeight());
+            out.writeInt(weights.learningStyleWeight());
+            MAPPER.writeValue((OutputStream) out, skillIndex.getTracks());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot hash the catalog: " + e.getMessage(), e);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * A catalog index together with its version and the edits made since the last full catalog, oldest first,
+     * swapped as one reference.
+     */
+    private static final class Catalog {
+        private final SkillIndex skillIndex;
+        private final String version;
+        private final List<Revision> revisions;
+
+        Catalog(SkillIndex skillIndex, String version, List<Revision> revisions) {
+            this.skillIndex = skillIndex;
+            this.version = version;
+            this.revisions = revisions;
+        }
+
+        /**
+         * Returns this catalog with edits applied. Empty edits keep the version, since no list can change.
+         */
+        Catalog edited(SkillIndex editedIndex, CatalogChanges changes) {
+            if (changes.isEmpty()) {
+                return new Catalog(editedIndex, version, revisions);
+            }
+            List<Revision> history = new ArrayList<>(revisions);
+            history.add(new Revision(version, changes));
+            if (history.size() > MAX_EDIT_HISTORY) {
+                history.subList(0, history.size() - MAX_EDIT_HISTORY).clear();
+            }
+            return new Catalog(editedIndex, UUID.randomUUID().toString().replace("-", ""), List.copyOf(history));
+        }
+
+        /**
+         * Tells whether a list computed against the given version is valid for this catalog: it is this version,
+         * or an earlier edit none of whose later changes can affect the preferences.
+         */
+        boolean accepts(String storedVersion, CompiledPreferences preferences) {
+            if (version.equals(storedVersion)) {
+                return true;
+            }
+            if (revisions.isEmpty()) {
+                return false;
+            }
+            String[] skills = new String[preferences.skillCount()];
+            Arrays.setAll(skills, preferences::foldedSkill);
+            List<String> foldedSkills = Arrays.asList(skills);
+            for (int i = revisions.size() - 1; i >= 0; i--) {
+                Revision revision = revisions.get(i);
+                if (revision.changes.affects(foldedSkills, preferences.foldedInterestArea(),
+                        preferences.foldedWorkEnvironment(), preferences.learningStyles())) {
+                    return false;
+                }
+                if (revision.version.equals(storedVersion)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The version of a catalog before an edit, and what the edit changed.
+     */
+    private static final class Revision {
+        private final String version;
+        private final CatalogChanges changes;
+
+        Revision(String version, CatalogChanges changes) {
+            this.version = version;
+            this.changes = changes;
+        }
+    }
+}
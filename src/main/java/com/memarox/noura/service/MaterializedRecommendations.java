@@ -0,0 +1,159 @@
+package com.memarox.noura.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.ScoredJobTrack;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable top recommendations of one user as stored by a {@link PreferenceStore}: the ranked track titles with
+ * their scores and breakdowns, the catalog version they were computed against and the
+ * {@link com.memarox.noura.model.CompiledPreferences#fingerprint() fingerprint} of the preferences they were
+ * computed for. Tracks are referenced by title, since ordinals change when the catalog is edited.
+ */
+public final class MaterializedRecommendations {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String catalogVersion;
+    private final String preferencesFingerprint;
+    private final List<Entry> entries;
+
+    private MaterializedRecommendations(String catalogVersion, String preferencesFingerprint, List<Entry> entries) {
+        this.catalogVersion = catalogVersion;
+        this.preferencesFingerprint = preferencesFingerprint;
+        this.entries = entries;
+    }
+
+    /**
+     * Captures computed recommendations for storage.
+     * @param catalogVersion The version of the catalog the recommendations were computed against.
+     * @param preferencesFingerprint The fingerprint of the preferences they were computed for.
+     * @param recommendations The recommendations, best first.
+     * @return The materialized recommendations.
+     */
+    public static MaterializedRecommendations of(String catalogVersion, String preferencesFingerprint,
+                                                 List<ScoredJobTrack> recommendations) {
+        List<Entry> entries = new ArrayList<>(recommendations.size());
+        for (ScoredJobTrack recommendation : recommendations) {
+            entries.add(new Entry(recommendation.getJobTrack().getTitle(), recommendation.getScore(),
+                    recommendation.getScoreBreakdown()));
+        }
+        return new MaterializedRecommendations(catalogVersion, preferencesFingerprint, List.copyOf(entries));
+    }
+
+    /**
+     * Returns the version of the catalog the recommendations were computed against.
+     * @return The catalog version.
+     */
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Returns the fingerprint of the preferences the recommendations were computed for.
+     * @return The preference fingerprint.
+     */
+    public String getPreferencesFingerprint() {
+        return preferencesFingerprint;
+    }
+
+    /**
+     * Returns the number of stored recommendations.
+     * @return The number of ranked tracks.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Tells whether these recommendations are still valid for a catalog and a set of preferences.
+     * @param catalogVersion The version of the live catalog.
+     * @param preferencesFingerprint The fingerprint of the user's current preferences.
+     * @return True if both match the ones the recommendations were computed for.
+     */
+    public boolean isCurrent(String catalogVersion, String preferencesFingerprint) {
+        return this.catalogVersion.equals(catalogVersion) && this.preferencesFingerprint.equals(preferencesFingerprint);
+    }
+
+    /**
+     * Looks the stored titles up in a catalog index and rebuilds the scored tracks.
+     * @param skillIndex The index of the catalog the recommendations were computed against.
+     * @return The recommendations, best first, or null if a track is missing from the index.
+     */
+    public List<ScoredJobTrack> resolve(SkillIndex skillIndex) {
+        List<ScoredJobTrack> recommendations = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            int ordinal = skillIndex.ordinalOf(entry.title);
+            if (ordinal < 0) {
+                return null;
+            }
+            recommendations.add(new ScoredJobTrack(skillIndex.getTrack(ordinal), entry.score, entry.scoreBreakdown));
+        }
+        return recommendations;
+    }
+
+    /**
+     * Encodes the ranked tracks as the JSON array stored in the {@code recommendations} column.
+     */
+    String toJson() {
+        List<Map<String, Object>> json = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            Map<String, Object> object = new LinkedHashMap<>();
+            object.put("title", entry.title);
+            object.put("score", entry.score);
+            object.put("scoreBreakdown", entry.scoreBreakdown);
+            json.add(object);
+        }
+        try {
+            return MAPPER.writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode recommendations: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a row of the {@code user_recommendations} table.
+     */
+    static MaterializedRecommendations fromJson(String catalogVersion, String preferencesFingerprint, String json) {
+        JsonNode array;
+        try {
+            array = MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot decode stored recommendations: " + e.getMessage(), e);
+        }
+        List<Entry> entries = new ArrayList<>(array.size());
+        for (JsonNode object : array) {
+            Map<String, Integer> scoreBreakdown = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> points = object.path("scoreBreakdown").fields();
+            while (points.hasNext()) {
+                Map.Entry<String, JsonNode> point = points.next();
+                scoreBreakdown.put(point.getKey(), point.getValue().asInt());
+            }
+            entries.add(new Entry(object.path("title").asText(), object.path("score").asInt(), scoreBreakdown));
+        }
+        return new MaterializedRecommendations(catalogVersion, preferencesFingerprint, List.copyOf(entries));
+    }
+
+    /**
+     * One ranked track, referenced by title.
+     */
+    private static final class Entry {
+        private final String title;
+        private final int score;
+        private final Map<String, Integer> scoreBreakdown;
+
+        Entry(String title, int score, Map<String, Integer> scoreBreakdown) {
+            this.title = title;
+            this.score = score;
+            this.scoreBreakdown = scoreBreakdown;
+        }
+    }
+}
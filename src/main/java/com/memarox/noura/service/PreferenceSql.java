@@ -0,0 +1,397 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.entity.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JDBC statements shared by the preference stores. The schema matches the one Hibernate derives from the
+ * {@link User}, {@link com.memarox.noura.entity.UserPreference} and {@link com.memarox.noura.entity.UserRecommendations}
+ * entities, so both stores read each other's data.
+ */
+final class PreferenceSql {
+
+    static final int BATCH_SIZE = 500;
+    // Users whose stored preferences are read with one query; well below SQLite's parameter limit
+    static final int QUERY_CHUNK_SIZE = 500;
+    static final String INSERT_VALUE =
+            "INSERT INTO user_preference_values (user_id, preferenceKey, valueIndex, preferenceValue) VALUES (?, ?, ?, ?)";
+
+    private PreferenceSql() {
+    }
+
+    /**
+     * Creates the tables and indexes if they do not exist yet.
+     */
+    static void createSchema(Connection connection) throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE IF NOT EXISTS users (id INTEGER PRIMARY KEY AUTOINCREMENT, username VARCHAR(255) NOT NULL UNIQUE)");
+            ddl.execute("CREATE TABLE IF NOT EXISTS user_preference_values (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "preferenceKey VARCHAR(255) NOT NULL, preferenceValue VARCHAR(255) NOT NULL, valueIndex INTEGER NOT NULL, "
+                    + "user_id BIGINT NOT NULL REFERENCES users (id), "
+                    + "CONSTRAINT uk_user_preference_values_position UNIQUE (user_id, preferenceKey, valueIndex))");
+            ddl.execute("CREATE INDEX IF NOT EXISTS idx_user_preference_values_key_value "
+                    + "ON user_preference_values (preferenceKey, preferenceValue)");
+            ddl.execute("CREATE TABLE IF NOT EXISTS user_recommendations (user_id BIGINT NOT NULL PRIMARY KEY, "
+                    + "catalogVersion VARCHAR(255) NOT NULL, preferencesFingerprint VARCHAR(4000) NOT NULL, "
+                    + "recommendations VARCHAR(65535) NOT NULL)");
+        }
+    }
+
+    /**
+     * Moves preferences written by earlier versions, which kept each list as one comma-joined value in the
+     * {@code user_preferences} table, into one row per value. The old table is renamed to
+     * {@code user_preferences_legacy}; run this in a transaction so the migration happens once.
+     * @return The number of values migrated, or -1 if there is no legacy table.
+     */
+    static int migrateLegacyTable(Connection connection) throws SQLException {
+        try (PreparedStatement exists = connection.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'user_preferences'");
+             ResultSet table = exists.executeQuery()) {
+            if (!table.next()) {
+                return -1;
+            }
+        }
+        int migrated = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT user_id, preferenceKey, preferenceValue FROM user_preferences");
+             PreparedStatement insert = connection.prepareStatement(INSERT_VALUE)) {
+            while (rows.next()) {
+                int valueIndex = 0;
+                for (String value : rows.getString(3).split(",")) {
+                    if (value.isEmpty()) {
+                        continue;
+                    }
+                    insert.setLong(1, rows.getLong(1));
+                    insert.setString(2, rows.getString(2));
+                    insert.setInt(3, valueIndex++);
+                    insert.setString(4, value);
+                    insert.addBatch();
+                    if (++migrated % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement rename = connection.createStatement()) {
+            rename.execute("ALTER TABLE user_preferences RENAME TO user_preferences_legacy");
+        }
+        return migrated;
+    }
+
+    /**
+     * Returns the existing users among the given names, with one query per chunk of names. Reads only.
+     */
+    static Map<String, User> queryUsers(Connection connection, List<String> usernames) throws SQLException {
+        Map<String, User> users = new HashMap<>();
+        for (int from = 0; from < usernames.size(); from += QUERY_CHUNK_SIZE) {
+            List<String> chunk = usernames.subList(from, Math.min(from + QUERY_CHUNK_SIZE, usernames.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement query = connection.prepareStatement(
+                    "SELECT id, username FROM users WHERE username IN (" + placeholders + ")")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    query.setString(i + 1, chunk.get(i));
+                }
+                readUsers(query, users);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Returns the users with the given names, inserting the missing ones; run it in a transaction. Existing names
+     * are selected first, so only new names are written, with one insert per chunk. A name inserted concurrently by
+     * another connection conflicts, returns no row and is selected again.
+     */
+    static Map<String, User> upsertUsers(Connection connection, List<String> usernames) throws SQLException {
+        Map<String, User> users = queryUsers(connection, usernames);
+        List<String> missing = missingFrom(users, usernames);
+        for (int from = 0; from < missing.size(); from += UserPreferenceService.UPSERT_CHUNK_SIZE) {
+            List<String> chunk = missing.subList(from, Math.min(from + UserPreferenceService.UPSERT_CHUNK_SIZE, missing.size()));
+            String values = String.join(",", Collections.nCopies(chunk.size(), "(?)"));
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO users (username) VALUES " + values
+                    + " ON CONFLICT(username) DO NOTHING RETURNING id, username")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    insert.setString(i + 1, chunk.get(i));
+                }
+                readUsers(insert, users);
+            }
+        }
+        List<String> conflicting = missingFrom(users, missing);
+        if (!conflicting.isEmpty()) {
+            users.putAll(queryUsers(connection, conflicting));
+        }
+        return users;
+    }
+
+    private static List<String> missingFrom(Map<String, User> users, List<String> usernames) {
+        List<String> missing = new ArrayList<>();
+        for (String username : usernames) {
+            if (!users.containsKey(username)) {
+                missing.add(username);
+            }
+        }
+        return missing;
+    }
+
+    private static void readUsers(PreparedStatement statement, Map<String, User> users) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                User user = new User();
+                user.setId(rows.getLong(1));
+                user.setUsername(rows.getString(2));
+                users.put(user.getUsername(), user);
+            }
+        }
+    }
+
+    /**
+     * Deletes every stored preference of the given users and inserts the new ones.
+     * @return The number of rows deleted and inserted.
+     */
+    static int replacePreferences(Connection connection, Map<Long, Map<String, List<String>>> wantedByUserId)
+            throws SQLException {
+        int written = 0;
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM user_preference_values WHERE user_id = ?")) {
+            for (Long userId : wantedByUserId.keySet()) {
+                delete.setLong(1, userId);
+                delete.addBatch();
+            }
+            written += sum(delete.executeBatch());
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_VALUE)) {
+            int pending = 0;
+            for (Map.Entry<Long, Map<String, List<String>>> user : wantedByUserId.entrySet()) {
+                for (Map.Entry<String, List<String>> preference : user.getValue().entrySet()) {
+                    List<String> values = preference.getValue();
+                    for (int i = 0; i < values.size(); i++) {
+                        insert.setLong(1, user.getKey());
+                        insert.setString(2, preference.getKey());
+                        insert.setInt(3, i);
+                        insert.setString(4, values.get(i));
+                        insert.addBatch();
+                        if (++pending % BATCH_SIZE == 0) {
+                            written += sum(insert.executeBatch());
+                        }
+                    }
+                }
+            }
+            written += sum(insert.executeBatch());
+        }
+        return written;
+    }
+
+    /**
+     * Compares the given preferences with the stored ones and writes only the values that differ.
+     * @return The number of rows inserted, updated or deleted.
+     */
+    static int writeChangedPreferences(Connection connection, Map<Long, Map<String, List<String>>> wantedByUserId)
+            throws SQLException {
+        List<Long> userIds = new ArrayList<>(wantedByUserId.keySet());
+        int written = 0;
+        try (PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM user_preference_values WHERE user_id = ? AND preferenceKey = ? AND valueIndex >= ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE user_preference_values SET preferenceValue = ? WHERE user_id = ? AND preferenceKey = ? AND valueIndex = ?");
+             PreparedStatement insert = connection.prepareStatement(INSERT_VALUE)) {
+            for (int from = 0; from < userIds.size(); from += QUERY_CHUNK_SIZE) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + QUERY_CHUNK_SIZE, userIds.size()));
+                Map<Long, Map<String, List<String>>> storedByUserId = queryPreferences(connection, chunk);
+                for (Long userId : chunk) {
+                    Map<String, List<String>> wanted = wantedByUserId.get(userId);
+                    Map<String, List<String>> stored = storedByUserId.getOrDefault(userId, Map.of());
+                    // Compare position by position: rewrite changed values, append new ones, cut off the rest
+                    for (Map.Entry<String, List<String>> preference : wanted.entrySet()) {
+                        List<String> values = preference.getValue();
+                        List<String> storedValues = stored.getOrDefault(preference.getKey(), List.of());
+                        for (int i = 0; i < values.size(); i++) {
+                            if (i >= storedValues.size()) {
+                                insert.setLong(1, userId);
+                                insert.setString(2, preference.getKey());
+                                insert.setInt(3, i);
+                                insert.setString(4, values.get(i));
+                                insert.addBatch();
+                            } else if (!storedValues.get(i).equals(values.get(i))) {
+                                update.setString(1, values.get(i));
+                                update.setLong(2, userId);
+                                update.setString(3, preference.getKey());
+                                update.setInt(4, i);
+                                update.addBatch();
+                            }
+                        }
+                        if (storedValues.size() > values.size()) {
+                            delete.setLong(1, userId);
+                            delete.setString(2, preference.getKey());
+                            delete.setInt(3, values.size());
+                            delete.addBatch();
+                        }
+                    }
+                    for (String key : stored.keySet()) {
+                        if (!wanted.containsKey(key)) {
+                            delete.setLong(1, userId);
+                            delete.setString(2, key);
+                            delete.setInt(3, 0);
+                            delete.addBatch();
+                        }
+                    }
+                }
+                written += sum(delete.executeBatch()) + sum(update.executeBatch()) + sum(insert.executeBatch());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Reads the stored preferences of up to {@link #QUERY_CHUNK_SIZE} users with one query, values in list order.
+     * Users without preferences are absent from the result.
+     */
+    static Map<Long, Map<String, List<String>>> queryPreferences(Connection connection, List<Long> userIds)
+            throws SQLException {
+        String placeholders = String.join(",", Collections.nCopies(userIds.size(), "?"));
+        Map<Long, Map<String, List<String>>> storedByUserId = new HashMap<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT user_id, preferenceKey, preferenceValue FROM user_preference_values WHERE user_id IN ("
+                        + placeholders + ") ORDER BY user_id, preferenceKey, valueIndex")) {
+            for (int i = 0; i < userIds.size(); i++) {
+                query.setLong(i + 1, userIds.get(i));
+            }
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    storedByUserId.computeIfAbsent(rows.getLong(1), id -> new HashMap<>())
+                            .computeIfAbsent(rows.getString(2), key -> new ArrayList<>())
+                            .add(rows.getString(3));
+                }
+            }
+        }
+        return storedByUserId;
+    }
+
+    /**
+     * Returns the next page of users after the given id, as usernames keyed by id in id order.
+     */
+    static Map<Long, String> queryUsersAfter(Connection connection, long lastId, int pageSize) throws SQLException {
+        Map<Long, String> users = new LinkedHashMap<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT id, username FROM users WHERE id > ? ORDER BY id LIMIT ?")) {
+            query.setLong(1, lastId);
+            query.setInt(2, pageSize);
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    users.put(rows.getLong(1), rows.getString(2));
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Returns the users having the given value among the values of a preference, in alphabetical order.
+     */
+    static List<String> queryUsernamesByPreference(Connection connection, String preferenceKey, String preferenceValue)
+            throws SQLException {
+        List<String> usernames = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT DISTINCT u.username FROM user_preference_values v JOIN users u ON u.id = v.user_id "
+                        + "WHERE v.preferenceKey = ? AND v.preferenceValue = ? ORDER BY u.username")) {
+            query.setString(1, preferenceKey);
+            query.setString(2, preferenceValue);
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    usernames.add(rows.getString(1));
+                }
+            }
+        }
+        return usernames;
+    }
+
+    /**
+     * Inserts or replaces the materialized recommendations of the given users with one batched upsert.
+     */
+    static void upsertRecommendations(Connection connection, Map<Long, MaterializedRecommendations> recommendationsByUserId)
+            throws SQLException {
+        try (PreparedStatement upsert = connection.prepareStatement(
+                "INSERT INTO user_recommendations (user_id, catalogVersion, preferencesFingerprint, recommendations) "
+                        + "VALUES (?, ?, ?, ?) ON CONFLICT(user_id) DO UPDATE SET catalogVersion = excluded.catalogVersion, "
+                        + "preferencesFingerprint = excluded.preferencesFingerprint, recommendations = excluded.recommendations")) {
+            int pending = 0;
+            for (Map.Entry<Long, MaterializedRecommendations> entry : recommendationsByUserId.entrySet()) {
+                upsert.setLong(1, entry.getKey());
+                upsert.setString(2, entry.getValue().getCatalogVersion());
+                upsert.setString(3, entry.getValue().getPreferencesFingerprint());
+                upsert.setString(4, entry.getValue().toJson());
+                upsert.addBatch();
+                if (++pending % BATCH_SIZE == 0) {
+                    upsert.executeBatch();
+                }
+            }
+            upsert.executeBatch();
+        }
+    }
+
+    /**
+     * Reads the materialized recommendations of a user with a primary key lookup.
+     * @return The recommendations, or null if none are stored.
+     */
+    static MaterializedRecommendations queryRecommendations(Connection connection, long userId) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT catalogVersion, preferencesFingerprint, recommendations FROM user_recommendations WHERE user_id = ?")) {
+            query.setLong(1, userId);
+            try (ResultSet rows = query.executeQuery()) {
+                return rows.next() ? MaterializedRecommendations.fromJson(rows.getString(1), rows.getString(2), rows.getString(3)) : null;
+            }
+        }
+    }
+
+    /**
+     * Returns the next page of users after the given id whose materialized recommendations are missing or were
+     * computed against another catalog version, with the stored version and their preferences, in id order.
+     * Users without preferences get an empty map.
+     */
+    static List<StaleRecommendations> queryStaleRecommendationsPage(Connection connection, String catalogVersion,
+                                                                    long lastId, int pageSize) throws SQLException {
+        Map<Long, String> storedVersions = new LinkedHashMap<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT u.id, r.catalogVersion FROM users u LEFT JOIN user_recommendations r ON r.user_id = u.id "
+                        + "WHERE u.id > ? AND (r.user_id IS NULL OR r.catalogVersion <> ?) ORDER BY u.id LIMIT ?")) {
+            query.setLong(1, lastId);
+            query.setString(2, catalogVersion);
+            query.setInt(3, pageSize);
+            try (ResultSet rows = query.executeQuery()) {
+                while (rows.next()) {
+                    storedVersions.put(rows.getLong(1), rows.getString(2));
+                }
+            }
+        }
+        List<Long> userIds = new ArrayList<>(storedVersions.keySet());
+        List<StaleRecommendations> page = new ArrayList<>(userIds.size());
+        for (int from = 0; from < userIds.size(); from += QUERY_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + QUERY_CHUNK_SIZE, userIds.size()));
+            Map<Long, Map<String, List<String>>> stored = queryPreferences(connection, chunk);
+            for (Long userId : chunk) {
+                page.add(new StaleRecommendations(userId, storedVersions.get(userId),
+                        stored.getOrDefault(userId, new HashMap<>())));
+            }
+        }
+        return page;
+    }
+
+    private static int sum(int[] updateCounts) {
+        int sum = 0;
+        for (int count : updateCounts) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+            sum += Math.max(count, 0);
+        }
+        return sum;
+    }
+}
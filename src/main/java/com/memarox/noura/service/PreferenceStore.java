@@ -0,0 +1,104 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.entity.User;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Persistent storage of users and their preferences, without caching.
+ * <p>
+ * Preference maps passed to and returned by a store hold ordered value lists; keys with an empty list are not
+ * stored. Reads may run concurrently. SQLite allows one writer at a time, so callers serialize the write methods,
+ * as {@link UserPreferenceService} does.
+ * <p>
+ * Next to the preferences, a store keeps each user's {@link MaterializedRecommendations}, one row per user.
+ *
+ * @see JpaPreferenceStore
+ * @see JdbcPreferenceStore
+ */
+public interface PreferenceStore extends Closeable {
+
+    /**
+     * Returns the existing users among the given names without writing anything.
+     * @param usernames Distinct usernames.
+     * @return The users found, keyed by username.
+     */
+    Map<String, User> findUsers(List<String> usernames);
+
+    /**
+     * Returns the users with the given names, creating the missing ones in one transaction.
+     * @param usernames Distinct usernames.
+     * @return The users keyed by username.
+     */
+    Map<String, User> getOrCreateUsers(List<String> usernames);
+
+    /**
+     * Replaces all preferences of a user in one transaction.
+     * @param user The user.
+     * @param preferences The complete new preferences.
+     */
+    void saveUserPreferences(User user, Map<String, List<String>> preferences);
+
+    /**
+     * Replaces the preferences of many users in one transaction with batched statements.
+     * @param preferencesByUserId The complete new preferences keyed by user id, without empty lists.
+     * @param mode Whether to rewrite every row or only the values that changed.
+     * @return The number of preference value rows inserted, updated or deleted.
+     */
+    int saveAllUserPreferences(Map<Long, Map<String, List<String>>> preferencesByUserId, UserPreferenceService.SaveMode mode);
+
+    /**
+     * Reads the preferences of a user.
+     * @param user The user.
+     * @return The preferences, empty if none were saved.
+     */
+    Map<String, List<String>> loadUserPreferences(User user);
+
+    /**
+     * Returns the users having a value among the values of a preference, comparing values exactly.
+     * @param preferenceKey The preference key, e.g. {@code skills}.
+     * @param preferenceValue The value to look for.
+     * @return The matching usernames in alphabetical order.
+     */
+    List<String> findUsernamesByPreference(String preferenceKey, String preferenceValue);
+
+    /**
+     * Walks all users in id order and hands their preferences to the consumer, one page at a time.
+     * @param pageSize The maximum number of users per page.
+     * @param pageConsumer Receives the preferences of each page keyed by username, in user id order.
+     */
+    void forEachUserPreferencesPage(int pageSize, Consumer<Map<String, Map<String, List<String>>>> pageConsumer);
+
+    /**
+     * Reads the materialized recommendations of a user with a single lookup.
+     * @param user The user.
+     * @return The stored recommendations, or null if none were stored.
+     */
+    MaterializedRecommendations loadRecommendations(User user);
+
+    /**
+     * Inserts or replaces the materialized recommendations of many users in one transaction.
+     * @param recommendationsByUserId The recommendations keyed by user id.
+     */
+    void saveRecommendations(Map<Long, MaterializedRecommendations> recommendationsByUserId);
+
+    /**
+     * Walks, in id order, the users whose materialized recommendations are missing or were computed against
+     * another catalog version, and hands them to the consumer one page at a time. Recommendations saved while
+     * walking do not disturb the walk.
+     * @param catalogVersion The version of the live catalog.
+     * @param pageSize The maximum number of users per page.
+     * @param pageConsumer Receives the users of each page with their preferences and stored version, in id order.
+     */
+    void forEachStaleRecommendationsPage(String catalogVersion, int pageSize,
+                                         Consumer<List<StaleRecommendations>> pageConsumer);
+
+    /**
+     * Releases the store's connections.
+     */
+    @Override
+    void close();
+}
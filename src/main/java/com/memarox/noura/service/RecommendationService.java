@@ -1,13 +1,26 @@
 package com.memarox.noura.service;
 
+import com.memarox.noura.index.ColumnarCatalog;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.index.TrackScores;
+import com.memarox.noura.model.CompiledPreferences;
 import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.model.ScoringWeights;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.model.TermDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Service class responsible for generating job track recommendations based on user preferences.
@@ -16,6 +29,47 @@ public class RecommendationService {
 
     private static final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
 
+    private static final SkillCategory[] SKILL_CATEGORIES = SkillCategory.values();
+    private static final int INTEREST_AREA_SLOT = SKILL_CATEGORIES.length;
+    private static final int WORK_ENVIRONMENT_SLOT = SKILL_CATEGORIES.length + 1;
+    private static final int LEARNING_STYLE_SLOT = SKILL_CATEGORIES.length + 2;
+    private static final int COMPONENT_COUNT = SKILL_CATEGORIES.length + 3;
+    private static final String[] COMPONENT_NAMES = new String[COMPONENT_COUNT];
+
+    static {
+        for (SkillCategory category : SKILL_CATEGORIES) {
+            COMPONENT_NAMES[category.ordinal()] = category.getFieldName();
+        }
+        COMPONENT_NAMES[INTEREST_AREA_SLOT] = ScoredJobTrack.PRIMARY_INTEREST_AREA;
+        COMPONENT_NAMES[WORK_ENVIRONMENT_SLOT] = ScoredJobTrack.WORK_ENVIRONMENT_PREFERENCE;
+        COMPONENT_NAMES[LEARNING_STYLE_SLOT] = ScoredJobTrack.LEARNING_STYLE_PREFERENCE;
+    }
+
+    private final ScoringWeights weights;
+
+    /**
+     * Creates a recommendation service using the bundled scoring weights.
+     */
+    public RecommendationService() {
+        this(ScoringWeights.defaults());
+    }
+
+    /**
+     * Creates a recommendation service using the given scoring weights.
+     * @param weights The weights of every scoring rule, e.g. loaded with {@link ScoringWeights#load}.
+     */
+    public RecommendationService(ScoringWeights weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Returns the scoring weights used by this service.
+     * @return The weight table.
+     */
+    public ScoringWeights getWeights() {
+        return weights;
+    }
+
     /**
      * Generates a ranked list of job track recommendations based on user preferences.
      * The job tracks are scored based on how well they match the provided preferences.
@@ -25,10 +79,20 @@ public class RecommendationService {
      * @return A sorted list of JobTrack objects, with the most recommended tracks first.
      */
     public List<JobTrack> getRecommendations(List<JobTrack> allJobTracks, Map<String, List<String>> userPreferences) {
-        logger.info("Generating recommendations based on user preferences.");
+        return getRecommendations(allJobTracks, compile(userPreferences, allJobTracks));
+    }
+
+    /**
+     * Generates a ranked list of job track recommendations based on compiled user preferences.
+     * @param allJobTracks A list of all available JobTrack objects.
+     * @param preferences The user preferences, compiled once for this request.
+     * @return A sorted list of JobTrack objects, with the most recommended tracks first.
+     */
+    public List<JobTrack> getRecommendations(List<JobTrack> allJobTracks, CompiledPreferences preferences) {
+        logger.debug("Generating recommendations based on user preferences.");
         return allJobTracks.stream()
                 .map(jobTrack -> {
-                    int score = calculateScore(jobTrack, userPreferences);
+                    int score = calculateScore(jobTrack, preferences);
                     return new ScoredJobTrack(jobTrack, score);
                 })
                 .sorted(Comparator.comparingInt(ScoredJobTrack::getScore).reversed())
@@ -37,254 +101,330 @@ public class RecommendationService {
     }
 
     /**
-     * Calculates a score for a given JobTrack based on how well it matches the user's preferences.
-     * The scoring logic can be expanded and refined to include more sophisticated matching criteria.
-     * @param jobTrack The JobTrack object to score.
+     * Generates a ranked list of job track recommendations using a prebuilt {@link SkillIndex}.
+     * Produces the same ranking as {@link #getRecommendations(List, Map)} over the indexed catalog,
+     * but only visits the tracks that share a term with the user's preferences.
+     * @param skillIndex The index built once from the loaded job tracks.
      * @param userPreferences A map of user preferences.
-     * @return The calculated score for the job track.
+     * @return A sorted list of JobTrack objects, with the most recommended tracks first.
      */
-    public int calculateScore(JobTrack jobTrack, Map<String, List<String>> userPreferences) {
-        int score = 0;
+    public List<JobTrack> getRecommendations(SkillIndex skillIndex, Map<String, List<String>> userPreferences) {
+        return getRecommendations(skillIndex, CompiledPreferences.compile(userPreferences, skillIndex.terms()));
+    }
 
-        List<String> preferredSkills = userPreferences.getOrDefault("skills", List.of());
-        for (String skill : preferredSkills) {
-            String lowerCaseSkill = skill.toLowerCase();
-
-            // Check required skills
-            if (jobTrack.getRequiredSkills() != null) {
-                for (String requiredSkill : jobTrack.getRequiredSkills()) {
-                    if (requiredSkill.equalsIgnoreCase(skill)) {
-                        score += 15; // Exact match, higher score
-                    } else if (requiredSkill.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 5; // Partial match
-                    }
-                }
-            }
+    /**
+     * Generates a ranked list of job track recommendations using a prebuilt {@link SkillIndex}.
+     * @param skillIndex The index built once from the loaded job tracks.
+     * @param preferences The user preferences, compiled once for this request.
+     * @return A sorted list of JobTrack objects, with the most recommended tracks first.
+     */
+    public List<JobTrack> getRecommendations(SkillIndex skillIndex, CompiledPreferences preferences) {
+        logger.debug("Generating recommendations from skill index ({} tracks).", skillIndex.size());
+        TrackScores scores = skillIndex.score(preferences, weights);
+        return IntStream.range(0, skillIndex.size())
+                .boxed()
+                .sorted(Comparator.comparingInt(scores::scoreOf).reversed())
+                .map(skillIndex::getTrack)
+                .collect(Collectors.toList());
+    }
 
-            // Check development languages
-            if (jobTrack.getDevelopmentLanguages() != null) {
-                for (String lang : jobTrack.getDevelopmentLanguages()) {
-                    if (lang.equalsIgnoreCase(skill)) {
-                        score += 12;
-                    } else if (lang.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 4;
-                    }
-                }
-            }
+    /**
+     * Returns the {@code k} best scoring job tracks together with their scores.
+     * Uses a bounded heap instead of sorting the whole catalog, and leaves out tracks that score zero.
+     * Ties keep the catalog order, exactly like {@link #getRecommendations(List, Map)}.
+     * @param allJobTracks A list of all available JobTrack objects.
+     * @param userPreferences A map of user preferences.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(List<JobTrack> allJobTracks, Map<String, List<String>> userPreferences, int k) {
+        return getTopRecommendations(allJobTracks, compile(userPreferences, allJobTracks), k);
+    }
 
-            // Check development frameworks
-            if (jobTrack.getDevelopmentFrameworks() != null) {
-                for (String framework : jobTrack.getDevelopmentFrameworks()) {
-                    if (framework.equalsIgnoreCase(skill)) {
-                        score += 10;
-                    } else if (framework.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 3;
-                    }
-                }
-            }
+    /**
+     * Returns the {@code k} best scoring job tracks together with their scores.
+     * @param allJobTracks A list of all available JobTrack objects.
+     * @param preferences The user preferences, compiled once for this request.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(List<JobTrack> allJobTracks, CompiledPreferences preferences, int k) {
+        logger.debug("Generating top {} recommendations based on user preferences.", k);
+        TopK topK = new TopK(k);
+        // The catalog-wide pass only sums scores, reusing one component buffer; finalists get their breakdown below
+        int[] components = new int[COMPONENT_COUNT];
+        for (int ordinal = 0; ordinal < allJobTracks.size(); ordinal++) {
+            topK.offer(ordinal, score(allJobTracks.get(ordinal), preferences, components));
+        }
+        List<ScoredJobTrack> results = new ArrayList<>(k);
+        for (int ordinal : topK.toOrdinals()) {
+            results.add(scoreTrack(allJobTracks.get(ordinal), preferences));
+        }
+        return results;
+    }
 
-            // Check ML algorithms
-            if (jobTrack.getMachineLearningAlgorithms() != null) {
-                for (String algo : jobTrack.getMachineLearningAlgorithms()) {
-                    if (algo.equalsIgnoreCase(skill)) {
-                        score += 13;
-                    } else if (algo.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 4;
-                    }
-                }
-            }
+    /**
+     * Returns the {@code k} best scoring job tracks using a prebuilt {@link SkillIndex}.
+     * Only the tracks that matched at least one preference are offered to the heap.
+     * @param skillIndex The index built once from the loaded job tracks.
+     * @param userPreferences A map of user preferences.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(SkillIndex skillIndex, Map<String, List<String>> userPreferences, int k) {
+        return getTopRecommendations(skillIndex, CompiledPreferences.compile(userPreferences, skillIndex.terms()), k);
+    }
 
-            // Check data analysis tools
-            if (jobTrack.getDataAnalysisTools() != null) {
-                for (String tool : jobTrack.getDataAnalysisTools()) {
-                    if (tool.equalsIgnoreCase(skill)) {
-                        score += 10;
-                    } else if (tool.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 3;
-                    }
-                }
-            }
+    /**
+     * Returns the {@code k} best scoring job tracks using a prebuilt {@link SkillIndex}.
+     * @param skillIndex The index built once from the loaded job tracks.
+     * @param preferences The user preferences, compiled once for this request.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(SkillIndex skillIndex, CompiledPreferences preferences, int k) {
+        logger.debug("Generating top {} recommendations from skill index ({} tracks).", k, skillIndex.size());
+        TrackScores scores = skillIndex.score(preferences, weights);
+        TopK topK = new TopK(k);
+        for (int ordinal : scores.matchedOrdinals()) {
+            topK.offer(ordinal, scores.scoreOf(ordinal));
+        }
+        // Only the k finalists are broken down per category; the catalog-wide pass stays on the index
+        List<ScoredJobTrack> results = new ArrayList<>(k);
+        for (int ordinal : topK.toOrdinals()) {
+            results.add(scoreTrack(skillIndex.getTrack(ordinal), preferences));
+        }
+        return results;
+    }
 
-            // Check network protocols
-            if (jobTrack.getNetworkProtocols() != null) {
-                for (String protocol : jobTrack.getNetworkProtocols()) {
-                    if (protocol.equalsIgnoreCase(skill)) {
-                        score += 9;
-                    } else if (protocol.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 3;
-                    }
-                }
-            }
+    /**
+     * Returns the {@code k} best scoring job tracks using the primitive kernel of a {@link ColumnarCatalog}.
+     * @param catalog The columnar catalog built once from the loaded job tracks.
+     * @param userPreferences A map of user preferences.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(ColumnarCatalog catalog, Map<String, List<String>> userPreferences, int k) {
+        return getTopRecommendations(catalog, CompiledPreferences.compile(userPreferences, catalog.terms()), k);
+    }
 
-            // Check security configuration tools
-            if (jobTrack.getSecurityConfigurationTools() != null) {
-                for (String tool : jobTrack.getSecurityConfigurationTools()) {
-                    if (tool.equalsIgnoreCase(skill)) {
-                        score += 9;
-                    } else if (tool.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 3;
-                    }
-                }
-            }
+    /**
+     * Returns the {@code k} best scoring job tracks using the primitive kernel of a {@link ColumnarCatalog}.
+     * @param catalog The columnar catalog built once from the loaded job tracks.
+     * @param preferences The user preferences, compiled once for this request.
+     * @param k The maximum number of recommendations to return.
+     * @return Up to {@code k} scored tracks, best first.
+     */
+    public List<ScoredJobTrack> getTopRecommendations(ColumnarCatalog catalog, CompiledPreferences preferences, int k) {
+        logger.debug("Generating top {} recommendations from columnar catalog ({} tracks).", k, catalog.size());
+        int[] scores = catalog.score(preferences, weights);
+        TopK topK = new TopK(k);
+        for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+            topK.offer(ordinal, scores[ordinal]);
+        }
+        List<ScoredJobTrack> results = new ArrayList<>(k);
+        for (int ordinal : topK.toOrdinals()) {
+            results.add(scoreTrack(catalog.getTrack(ordinal), preferences));
+        }
+        return results;
+    }
 
-            // Check vulnerability assessment tools
-            if (jobTrack.getVulnerabilityAssessmentTools() != null) {
-                for (String tool : jobTrack.getVulnerabilityAssessmentTools()) {
-                    if (tool.equalsIgnoreCase(skill)) {
-                        score += 11;
-                    } else if (tool.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 4;
-                    }
-                }
-            }
+    /**
+     * Calculates a score for a given JobTrack based on how well it matches the user's preferences.
+     * The scoring logic can be expanded and refined to include more sophisticated matching criteria.
+     * @param jobTrack The JobTrack object to score.
+     * @param userPreferences A map of user preferences.
+     * @return The calculated score for the job track.
+     */
+    public int calculateScore(JobTrack jobTrack, Map<String, List<String>> userPreferences) {
+        return calculateScore(jobTrack, CompiledPreferences.compile(userPreferences, jobTrack.terms()));
+    }
 
-            // Check threat detection techniques
-            if (jobTrack.getThreatDetectionTechniques() != null) {
-                for (String technique : jobTrack.getThreatDetectionTechniques()) {
-                    if (technique.equalsIgnoreCase(skill)) {
-                        score += 11;
-                    } else if (technique.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 4;
-                    }
-                }
-            }
+    /**
+     * Calculates a score for a given JobTrack. Callers scoring many tracks for the same user should compile
+     * the preferences once and use this overload.
+     * @param jobTrack The JobTrack object to score.
+     * @param preferences The compiled user preferences.
+     * @return The calculated score for the job track.
+     */
+    public int calculateScore(JobTrack jobTrack, CompiledPreferences preferences) {
+        return score(jobTrack, preferences, new int[COMPONENT_COUNT]);
+    }
 
-            // Check front-end technologies
-            if (jobTrack.getFrontEndTechnologies() != null) {
-                for (String tech : jobTrack.getFrontEndTechnologies()) {
-                    if (tech.equalsIgnoreCase(skill)) {
-                        score += 10;
-                    } else if (tech.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 3;
-                    }
-                }
-            }
+    /**
+     * Scores a single JobTrack and keeps the contribution of every scoring category.
+     * @param jobTrack The JobTrack object to score.
+     * @param userPreferences A map of user preferences.
+     * @return The scored track with its per-category breakdown.
+     */
+    public ScoredJobTrack scoreTrack(JobTrack jobTrack, Map<String, List<String>> userPreferences) {
+        return scoreTrack(jobTrack, CompiledPreferences.compile(userPreferences, jobTrack.terms()));
+    }
 
-            // Check back-end technologies
-            if (jobTrack.getBackEndTechnologies() != null) {
-                for (String tech : jobTrack.getBackEndTechnologies()) {
-                    if (tech.equalsIgnoreCase(skill)) {
-                        score += 10;
-                    } else if (tech.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 3;
-                    }
-                }
-            }
+    /**
+     * Scores a single JobTrack and keeps the contribution of every scoring category.
+     * @param jobTrack The JobTrack object to score.
+     * @param preferences The compiled user preferences.
+     * @return The scored track with its per-category breakdown.
+     */
+    public ScoredJobTrack scoreTrack(JobTrack jobTrack, CompiledPreferences preferences) {
+        int[] components = new int[COMPONENT_COUNT];
+        scoreComponents(jobTrack, preferences, components);
+        return toScoredJobTrack(jobTrack, components);
+    }
 
-            // Check development tools (Game Dev)
-            if (jobTrack.getDevelopmentTools() != null) {
-                for (String tool : jobTrack.getDevelopmentTools()) {
-                    if (tool.equalsIgnoreCase(skill)) {
-                        score += 9;
-                    } else if (tool.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 3;
-                    }
-                }
-            }
+    /**
+     * Compiles preferences against the dictionary of a track list; tracks loaded together share one.
+     */
+    private static CompiledPreferences compile(Map<String, List<String>> userPreferences, List<JobTrack> jobTracks) {
+        return jobTracks.isEmpty()
+                ? CompiledPreferences.compile(userPreferences)
+                : CompiledPreferences.compile(userPreferences, jobTracks.get(0).terms());
+    }
 
-            // Check design principles (UX)
-            if (jobTrack.getDesignPrinciples() != null) {
-                for (String principle : jobTrack.getDesignPrinciples()) {
-                    if (principle.equalsIgnoreCase(skill)) {
-                        score += 8;
-                    } else if (principle.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 2;
-                    }
-                }
-            }
+    /**
+     * Sums the points of a track, using {@code components} as scratch space.
+     */
+    private int score(JobTrack jobTrack, CompiledPreferences preferences, int[] components) {
+        scoreComponents(jobTrack, preferences, components);
+        int score = 0;
+        for (int points : components) {
+            score += points;
+        }
+        return score;
+    }
 
-            // Check user research methodologies (UX)
-            if (jobTrack.getUserResearchMethodologies() != null) {
-                for (String method : jobTrack.getUserResearchMethodologies()) {
-                    if (method.equalsIgnoreCase(skill)) {
-                        score += 8;
-                    } else if (method.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 2;
-                    }
-                }
-            }
+    /**
+     * Computes the points a track earns in each scoring component into {@code components}, overwriting it: one slot
+     * per {@link SkillCategory}, followed by the primary interest area, work environment and learning style slots.
+     */
+    private void scoreComponents(JobTrack jobTrack, CompiledPreferences compiledPreferences, int[] components) {
+        Arrays.fill(components, 0);
+        TermDictionary terms = jobTrack.terms();
+        CompiledPreferences preferences = compiledPreferences.in(terms);
 
-            // Check communication skills (Tech Writer)
-            if (jobTrack.getCommunicationSkills() != null) {
-                for (String commSkill : jobTrack.getCommunicationSkills()) {
-                    if (commSkill.equalsIgnoreCase(skill)) {
-                        score += 7;
-                    } else if (commSkill.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 2;
-                    }
+        for (int s = 0; s < preferences.skillCount(); s++) {
+            for (SkillCategory category : SKILL_CATEGORIES) {
+                int[] items = category.termIdsOf(jobTrack);
+                if (items == null) {
+                    continue;
                 }
-            }
-
-            // Check documentation standards (Tech Writer)
-            if (jobTrack.getDocumentationStandards() != null) {
-                for (String standard : jobTrack.getDocumentationStandards()) {
-                    if (standard.equalsIgnoreCase(skill)) {
-                        score += 7;
-                    } else if (standard.toLowerCase().contains(lowerCaseSkill)) {
-                        score += 2;
+                for (int item : items) {
+                    if (item < 0) {
+                        continue;
+                    }
+                    int match = preferences.match(s, terms.foldedId(item));
+                    if (match == CompiledPreferences.EXACT_MATCH) {
+                        components[category.ordinal()] += weights.exactMatchWeight(category); // Exact match, higher score
+                    } else if (match == CompiledPreferences.PARTIAL_MATCH) {
+                        components[category.ordinal()] += weights.partialMatchWeight(category); // Partial match
                     }
                 }
             }
         }
 
         // Score based on primary interest area
-        String preferredInterestArea = userPreferences.getOrDefault("primaryInterestArea", List.of("")).get(0);
-        if (!preferredInterestArea.isEmpty() && jobTrack.getPrimaryInterestArea() != null &&
+        String preferredInterestArea = preferences.interestArea();
+        if (preferredInterestArea != null && jobTrack.getPrimaryInterestArea() != null &&
             jobTrack.getPrimaryInterestArea().equalsIgnoreCase(preferredInterestArea)) {
-            score += 20; // High score for matching primary interest
+            components[INTEREST_AREA_SLOT] += weights.interestAreaWeight(); // High score for matching primary interest
         }
 
         // Score based on work environment preference
-        String preferredWorkEnvironment = userPreferences.getOrDefault("workEnvironmentPreference", List.of("")).get(0);
-        if (!preferredWorkEnvironment.isEmpty() && jobTrack.getWorkEnvironmentPreference() != null &&
+        String preferredWorkEnvironment = preferences.workEnvironment();
+        if (preferredWorkEnvironment != null && jobTrack.getWorkEnvironmentPreference() != null &&
             jobTrack.getWorkEnvironmentPreference().equalsIgnoreCase(preferredWorkEnvironment)) {
-            score += 15; // Good score for matching work environment
+            components[WORK_ENVIRONMENT_SLOT] += weights.workEnvironmentWeight(); // Good score for matching work environment
         }
 
         // Score based on learning style preference
-        List<String> preferredLearningStyles = userPreferences.getOrDefault("learningStylePreference", List.of());
-        if (jobTrack.getLearningStylePreference() != null) {
-            for (String style : preferredLearningStyles) {
-                if (jobTrack.getLearningStylePreference().contains(style)) {
-                    score += 10; // Score for matching learning style
+        int[] learningStyles = jobTrack.learningStyleTermIds();
+        if (learningStyles != null) {
+            for (int i = 0; i < preferences.learningStyles().size(); i++) {
+                if (contains(learningStyles, preferences.learningStyleTermId(i))) {
+                    components[LEARNING_STYLE_SLOT] += weights.learningStyleWeight(); // Score for matching learning style
                 }
             }
         }
+    }
 
-        return score;
+    private static boolean contains(int[] termIds, int termId) {
+        if (termId < 0) {
+            return false;
+        }
+        for (int id : termIds) {
+            if (id == termId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ScoredJobTrack toScoredJobTrack(JobTrack jobTrack, int[] components) {
+        Map<String, Integer> breakdown = new LinkedHashMap<>();
+        int score = 0;
+        for (int slot = 0; slot < COMPONENT_COUNT; slot++) {
+            if (components[slot] != 0) {
+                breakdown.put(COMPONENT_NAMES[slot], components[slot]);
+                score += components[slot];
+            }
+        }
+        return new ScoredJobTrack(jobTrack, score, breakdown);
     }
 
     /**
-     * Helper class to associate a JobTrack with its calculated score for sorting purposes.
+     * Bounded min-heap keeping the {@code k} best candidates seen so far.
+     * The heap root is the weakest candidate: lowest score, and among equal scores the highest ordinal.
      */
-    private static class ScoredJobTrack {
-        private final JobTrack jobTrack;
-        private final int score;
+    private static final class TopK {
+        private static final Comparator<Candidate> WEAKEST_FIRST = Comparator
+                .comparingInt((Candidate candidate) -> candidate.score)
+                .thenComparing(Comparator.comparingInt((Candidate candidate) -> candidate.ordinal).reversed());
 
-        /**
-         * Constructs a ScoredJobTrack.
-         * @param jobTrack The JobTrack object.
-         * @param score The calculated score for the job track.
-         */
-        public ScoredJobTrack(JobTrack jobTrack, int score) {
-            this.jobTrack = jobTrack;
-            this.score = score;
+        private final int k;
+        private final PriorityQueue<Candidate> heap;
+
+        TopK(int k) {
+            if (k < 0) {
+                throw new IllegalArgumentException("k must not be negative: " + k);
+            }
+            this.k = k;
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), WEAKEST_FIRST);
         }
 
-        /**
-         * Returns the JobTrack object.
-         * @return The JobTrack.
-         */
-        public JobTrack getJobTrack() {
-            return jobTrack;
+        void offer(int ordinal, int score) {
+            if (score <= 0 || k == 0) {
+                return;
+            }
+            if (heap.size() == k) {
+                Candidate weakest = heap.peek();
+                if (score < weakest.score || (score == weakest.score && ordinal > weakest.ordinal)) {
+                    return;
+                }
+                heap.poll();
+            }
+            heap.add(new Candidate(ordinal, score));
         }
 
         /**
-         * Returns the score of the job track.
-         * @return The score.
+         * Drains the heap into the ordinals of the candidates, best first.
          */
-        public int getScore() {
-            return score;
+        int[] toOrdinals() {
+            int[] ordinals = new int[heap.size()];
+            for (int i = ordinals.length - 1; i >= 0; i--) {
+                ordinals[i] = heap.poll().ordinal;
+            }
+            return ordinals;
+        }
+
+        private static final class Candidate {
+            private final int ordinal;
+            private final int score;
+
+            Candidate(int ordinal, int score) {
+                this.ordinal = ordinal;
+                this.score = score;
+            }
         }
     }
-}
\ No newline at end of file
+}
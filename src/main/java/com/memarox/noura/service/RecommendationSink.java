@@ -0,0 +1,30 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.model.ScoredJobTrack;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Destination for recommendations produced in bulk by {@link BatchRecommendationService}.
+ * Implementations are called concurrently from worker threads and must be thread-safe.
+ */
+@FunctionalInterface
+public interface RecommendationSink {
+
+    /**
+     * Receives the recommendations computed for one user.
+     * @param userKey The key identifying the user (the username for database-backed runs).
+     * @param recommendations The user's top recommendations, best first.
+     */
+    void accept(String userKey, List<ScoredJobTrack> recommendations);
+
+    /**
+     * Returns a sink that stores every result in the given map.
+     * @param target A thread-safe map, e.g. a {@code ConcurrentHashMap}.
+     * @return The collecting sink.
+     */
+    static RecommendationSink collectingInto(Map<String, List<ScoredJobTrack>> target) {
+        return target::put;
+    }
+}
@@ -0,0 +1,47 @@
+package com.memarox.noura.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A user whose materialized recommendations are not stamped with the live catalog version, as found by
+ * {@link PreferenceStore#forEachStaleRecommendationsPage}: the user's preferences and the catalog version of the
+ * stored list, if any. After catalog edits a list of an earlier version may still be valid for preferences the
+ * edits do not affect.
+ */
+public final class StaleRecommendations {
+
+    private final long userId;
+    private final String catalogVersion;
+    private final Map<String, List<String>> preferences;
+
+    StaleRecommendations(long userId, String catalogVersion, Map<String, List<String>> preferences) {
+        this.userId = userId;
+        this.catalogVersion = catalogVersion;
+        this.preferences = preferences;
+    }
+
+    /**
+     * Returns the id of the user.
+     * @return The user id.
+     */
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the catalog version the stored list was computed against.
+     * @return The stored version, or null if no list is stored.
+     */
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Returns the preferences of the user.
+     * @return The preferences, empty if none were saved.
+     */
+    public Map<String, List<String>> getPreferences() {
+        return preferences;
+    }
+}
@@ -1,110 +1,345 @@
 package com.memarox.noura.service;
 
+import com.memarox.noura.cache.CacheStats;
+import com.memarox.noura.cache.LruCache;
 import com.memarox.noura.entity.User;
-import com.memarox.noura.entity.UserPreference;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
+/**
+ * Stores users and their preferences in a {@link PreferenceStore}, by default the {@link JpaPreferenceStore}.
+ * <p>
+ * Each preference value is stored in its own row, indexed by user and by key and value, so the users having a
+ * given value can be found with {@link #findUsernamesByPreference}. Earlier databases with comma-joined values
+ * are migrated when the store opens.
+ * <p>
+ * Reads run concurrently; writes are serialized through a single writer, which is what SQLite supports. With the
+ * {@link #PRODUCTION_PERSISTENCE_UNIT} the database runs in WAL mode, so reads are not blocked by that writer.
+ * <p>
+ * Users are cached by username and preference maps by user id, so a returning user costs no database
+ * round trip. Saves write through to the preference cache. Both caches are bounded, and entries expire after
+ * {@link #CACHE_TIME_TO_LIVE} so that changes made by another process become visible eventually.
+ */
 public class UserPreferenceService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserPreferenceService.class);
-    private final EntityManagerFactory emf;
 
+    /** Persistence unit for development: unpooled connections and SQL logging. */
+    public static final String DEV_PERSISTENCE_UNIT = "noura-pu";
+    /** Persistence unit for production: a bounded connection pool, WAL journal and tuned pragmas, no SQL logging. */
+    public static final String PRODUCTION_PERSISTENCE_UNIT = "noura-prod-pu";
+
+    /** Maximum number of users, and of preference maps, held in memory. */
+    public static final int CACHE_MAXIMUM_SIZE = 10_000;
+    /** How long a cached user or preference map is trusted before it is read again. */
+    public static final Duration CACHE_TIME_TO_LIVE = Duration.ofMinutes(10);
+    /** Maximum number of usernames inserted by one statement; well below SQLite's parameter limit. */
+    public static final int UPSERT_CHUNK_SIZE = 500;
+
+    /**
+     * How a bulk save treats preferences that are already stored.
+     */
+    public enum SaveMode {
+        /** Delete every stored preference of each user and insert the new ones. */
+        REPLACE,
+        /** Compare with the stored preferences and write only the keys that were added, changed or removed. */
+        CHANGED_KEYS
+    }
+
+    private final PreferenceStore store;
+    // SQLite allows one writer at a time; a fair lock queues writers in arrival order instead of letting them
+    // fail or spin on SQLITE_BUSY, and keeps cache write-through in commit order
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private final LruCache<String, User> usersByName = new LruCache<>(CACHE_MAXIMUM_SIZE, CACHE_TIME_TO_LIVE);
+    private final LruCache<Long, Map<String, List<String>>> preferencesByUserId =
+            new LruCache<>(CACHE_MAXIMUM_SIZE, CACHE_TIME_TO_LIVE);
+
+    /**
+     * Creates the service with the development persistence unit.
+     */
     public UserPreferenceService() {
-        emf = Persistence.createEntityManagerFactory("noura-pu");
+        this(DEV_PERSISTENCE_UNIT, Map.of());
+    }
+
+    /**
+     * Creates the service with persistence properties overriding those of persistence.xml,
+     * e.g. {@code jakarta.persistence.jdbc.url} to point at a different database file.
+     * @param properties The overriding persistence properties.
+     */
+    public UserPreferenceService(Map<String, ?> properties) {
+        this(DEV_PERSISTENCE_UNIT, properties);
     }
 
+    /**
+     * Creates the service with a persistence unit of persistence.xml and properties overriding it.
+     * @param persistenceUnitName {@link #DEV_PERSISTENCE_UNIT} or {@link #PRODUCTION_PERSISTENCE_UNIT}.
+     * @param properties The overriding persistence properties.
+     */
+    public UserPreferenceService(String persistenceUnitName, Map<String, ?> properties) {
+        this(new JpaPreferenceStore(persistenceUnitName, properties));
+    }
+
+    /**
+     * Creates the service on a store, e.g. a {@link JdbcPreferenceStore} for workers that should start quickly.
+     * The service takes ownership of the store and closes it in {@link #close()}.
+     * @param store The preference store.
+     */
+    public UserPreferenceService(PreferenceStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the user with the given name, creating it if it does not exist yet. A cache miss for an existing user
+     * is a single read that does not wait for the writer; only a new username takes the write lock, and concurrent
+     * callers with the same new username all get the same row.
+     * The returned entity is detached and shared with other callers; it must not be modified.
+     * @param username The username.
+     * @return The user.
+     */
     public User getOrCreateUser(String username) {
-        EntityManager em = emf.createEntityManager();
+        return usersByName.computeIfAbsent(username, name -> resolveUsers(List.of(name)).get(name));
+    }
+
+    /**
+     * Returns the user with the given name without creating it. Unknown names are not cached, so a user created
+     * later is found on the next call.
+     * @param username The username.
+     * @return The user, or null if no user has that name.
+     */
+    public User findUser(String username) {
+        return usersByName.computeIfAbsent(username, name -> store.findUsers(List.of(name)).get(name));
+    }
+
+    /**
+     * Returns the users with the given names, creating those that do not exist yet. Names missing from the cache
+     * are looked up with one query per chunk of names; only the names not found are inserted, with one multi-row
+     * insert per {@link #UPSERT_CHUNK_SIZE} names, in a single transaction.
+     * @param usernames The usernames.
+     * @return The users keyed by username, in the iteration order of the given names.
+     */
+    public Map<String, User> getOrCreateUsers(Collection<String> usernames) {
+        Map<String, User> users = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String username : usernames) {
+            User cached = usersByName.get(username);
+            if (cached != null) {
+                users.put(username, cached);
+            } else if (!users.containsKey(username)) {
+                users.put(username, null);
+                missing.add(username);
+            }
+        }
+        if (!missing.isEmpty()) {
+            resolveUsers(missing).forEach((username, user) -> {
+                usersByName.put(username, user);
+                users.put(username, user);
+            });
+        }
+        return users;
+    }
+
+    private Map<String, User> resolveUsers(List<String> usernames) {
+        // Most names already exist, e.g. in a login storm; reading them does not queue behind the writer
+        Map<String, User> users = new HashMap<>(store.findUsers(usernames));
+        if (users.size() == usernames.size()) {
+            return users;
+        }
+        List<String> missing = new ArrayList<>();
+        for (String username : usernames) {
+            if (!users.containsKey(username)) {
+                missing.add(username);
+            }
+        }
+        writeLock.lock();
         try {
-            return em.createQuery("SELECT u FROM User u WHERE u.username = :username", User.class)
-                    .setParameter("username", username)
-                    .getResultStream()
-                    .findFirst()
-                    .orElseGet(() -> {
-                        em.getTransaction().begin();
-                        User newUser = new User();
-                        newUser.setUsername(username);
-                        em.persist(newUser);
-                        em.getTransaction().commit();
-                        logger.info("Created new user: {}", username);
-                        return newUser;
-                    });
-        } catch (Exception e) {
-            logger.error("Error getting or creating user {}: {}", username, e.getMessage(), e);
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
+            users.putAll(store.getOrCreateUsers(missing));
+            if (missing.size() == 1) {
+                logger.info("Resolved new user: {}", missing.get(0));
+            } else {
+                logger.info("Resolved {} new users.", missing.size());
             }
-            throw e;
+            return users;
         } finally {
-            em.close();
+            writeLock.unlock();
         }
     }
 
+    /**
+     * Replaces all preferences of a user and updates the cached copy. Keys with an empty list are not stored.
+     * @param user The user.
+     * @param preferences The complete new preferences.
+     * @throws IllegalArgumentException If a list or value is null; nothing is written then.
+     */
     public void saveUserPreferences(User user, Map<String, List<String>> preferences) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
+        requireNoNulls(preferences);
+        writeLock.lock();
         try {
-            // Clear existing preferences for the user
-            em.createQuery("DELETE FROM UserPreference up WHERE up.user = :user")
-                    .setParameter("user", user)
-                    .executeUpdate();
-
-            // Save new preferences
-            for (Map.Entry<String, List<String>> entry : preferences.entrySet()) {
-                UserPreference userPreference = new UserPreference();
-                userPreference.setUser(user);
-                userPreference.setPreferenceKey(entry.getKey());
-                userPreference.setPreferenceValue(String.join(",", entry.getValue())); // Store list as comma-separated string
-                em.persist(userPreference);
-            }
-            em.getTransaction().commit();
+            store.saveUserPreferences(user, preferences);
+            preferencesByUserId.put(user.getId(), immutableCopy(preferences));
             logger.info("Saved preferences for user {}: {}", user.getUsername(), preferences);
-        } catch (Exception e) {
-            logger.error("Error saving preferences for user {}: {}", user.getUsername(), e.getMessage(), e);
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
+        } catch (RuntimeException e) {
+            // The stored state is unknown now; read it again on the next load
+            preferencesByUserId.invalidate(user.getId());
             throw e;
         } finally {
-            em.close();
+            writeLock.unlock();
         }
     }
 
-    public Map<String, List<String>> loadUserPreferences(User user) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            List<UserPreference> preferences = em.createQuery("SELECT up FROM UserPreference up WHERE up.user = :user", UserPreference.class)
-                    .setParameter("user", user)
-                    .getResultList();
+    /**
+     * Saves the complete preferences of many users in one transaction. Rows are written with batched JDBC
+     * statements, grouped by statement type and ordered by user and key; users are created as needed.
+     * @param preferencesByUsername The new preferences, keyed by username.
+     * @param mode Whether to rewrite every row or only the values that changed.
+     * @return The number of preference value rows inserted, updated or deleted.
+     * @throws IllegalArgumentException If a list or value is null; nothing is written then.
+     */
+    public int saveAllUserPreferences(Map<String, Map<String, List<String>>> preferencesByUsername, SaveMode mode) {
+        preferencesByUsername.values().forEach(UserPreferenceService::requireNoNulls);
+        // Sorting by user id keeps every batch in primary key order
+        Map<String, User> users = getOrCreateUsers(preferencesByUsername.keySet());
+        Map<Long, Map<String, List<String>>> wantedByUserId = new TreeMap<>();
+        for (Map.Entry<String, Map<String, List<String>>> entry : preferencesByUsername.entrySet()) {
+            Map<String, List<String>> wanted = new TreeMap<>();
+            entry.getValue().forEach((key, values) -> {
+                if (!values.isEmpty()) {
+                    wanted.put(key, values);
+                }
+            });
+            wantedByUserId.put(users.get(entry.getKey()).getId(), wanted);
+        }
 
-            Map<String, List<String>> loadedPreferences = new HashMap<>();
-            for (UserPreference up : preferences) {
-                loadedPreferences.put(up.getPreferenceKey(), Arrays.asList(up.getPreferenceValue().split(",")));
-            }
-            logger.info("Loaded preferences for user {}: {}", user.getUsername(), loadedPreferences);
-            return loadedPreferences;
-        } catch (Exception e) {
-            logger.error("Error loading preferences for user {}: {}", user.getUsername(), e.getMessage(), e);
+        writeLock.lock();
+        try {
+            int written = store.saveAllUserPreferences(wantedByUserId, mode);
+            wantedByUserId.forEach((userId, wanted) -> preferencesByUserId.put(userId, immutableCopy(wanted)));
+            logger.info("Saved preferences of {} users ({} rows written, mode {}).", wantedByUserId.size(), written, mode);
+            return written;
+        } catch (RuntimeException e) {
+            wantedByUserId.keySet().forEach(preferencesByUserId::invalidate);
             throw e;
         } finally {
-            em.close();
+            writeLock.unlock();
         }
     }
 
-    public void close() {
-        if (emf != null && emf.isOpen()) {
-            emf.close();
-            logger.info("EntityManagerFactory closed.");
+    /**
+     * Returns the preferences of a user, from the cache when possible.
+     * @param user The user.
+     * @return The preferences as an unmodifiable map, empty if none were saved.
+     */
+    public Map<String, List<String>> loadUserPreferences(User user) {
+        return preferencesByUserId.computeIfAbsent(user.getId(), id -> immutableCopy(store.loadUserPreferences(user)));
+    }
+
+    /**
+     * Returns the users having a value among the values of a preference, e.g. every user with the skill "Java".
+     * Values are compared exactly as stored. The lookup uses the index on preference key and value.
+     * @param preferenceKey The preference key, e.g. {@code skills}.
+     * @param preferenceValue The value to look for.
+     * @return The matching usernames in alphabetical order.
+     */
+    public List<String> findUsernamesByPreference(String preferenceKey, String preferenceValue) {
+        return store.findUsernamesByPreference(preferenceKey, preferenceValue);
+    }
+
+    /**
+     * Walks all users in id order and hands their preferences to the consumer, one page at a time.
+     * Each page costs two queries (users, then their preferences) regardless of its size.
+     * @param pageSize The maximum number of users per page.
+     * @param pageConsumer Receives the preferences of each page keyed by username, in user id order.
+     */
+    public void forEachUserPreferencesPage(int pageSize, Consumer<Map<String, Map<String, List<String>>>> pageConsumer) {
+        store.forEachUserPreferencesPage(pageSize, pageConsumer);
+    }
+
+    /**
+     * Reads the materialized recommendations of a user; they are not cached, so every call is one primary key lookup.
+     * @param user The user.
+     * @return The stored recommendations, or null if none were stored.
+     */
+    public MaterializedRecommendations loadRecommendations(User user) {
+        return store.loadRecommendations(user);
+    }
+
+    /**
+     * Inserts or replaces the materialized recommendations of many users in one transaction.
+     * @param recommendationsByUserId The recommendations keyed by user id.
+     */
+    public void saveRecommendations(Map<Long, MaterializedRecommendations> recommendationsByUserId) {
+        writeLock.lock();
+        try {
+            store.saveRecommendations(recommendationsByUserId);
+        } finally {
+            writeLock.unlock();
         }
     }
+
+    /**
+     * Walks the users whose materialized recommendations are missing or were computed against another catalog
+     * version, one page at a time, reading their preferences straight from the store.
+     * @param catalogVersion The version of the live catalog.
+     * @param pageSize The maximum number of users per page.
+     * @param pageConsumer Receives the users of each page with their preferences and stored version, in id order.
+     */
+    public void forEachStaleRecommendationsPage(String catalogVersion, int pageSize,
+                                                Consumer<List<StaleRecommendations>> pageConsumer) {
+        store.forEachStaleRecommendationsPage(catalogVersion, pageSize, pageConsumer);
+    }
+
+    /**
+     * Rejects preferences that could be stored but not cached, before anything is written.
+     */
+    static void requireNoNulls(Map<String, List<String>> preferences) {
+        preferences.forEach((key, values) -> {
+            if (values == null || values.stream().anyMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("Preference '" + key + "' must be a list without null values: " + values);
+            }
+        });
+    }
+
+    /**
+     * Copies preferences into the form a load returns: unmodifiable, without keys that have no values.
+     */
+    private static Map<String, List<String>> immutableCopy(Map<String, List<String>> preferences) {
+        Map<String, List<String>> copy = new HashMap<>();
+        preferences.forEach((key, values) -> {
+            if (!values.isEmpty()) {
+                copy.put(key, List.copyOf(values));
+            }
+        });
+        return Map.copyOf(copy);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the user cache.
+     * @return A snapshot of the user cache statistics.
+     */
+    public CacheStats getUserCacheStats() {
+        return usersByName.stats();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the preference cache.
+     * @return A snapshot of the preference cache statistics.
+     */
+    public CacheStats getPreferenceCacheStats() {
+        return preferencesByUserId.stats();
+    }
+
+    public void close() {
+        store.close();
+    }
 }
@@ -0,0 +1,322 @@
+package com.memarox.noura.service;
+
+import com.memarox.noura.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind front for {@link UserPreferenceService#saveUserPreferences}: saves return as soon as they are queued,
+ * and a background writer commits them, so callers no longer wait for the database commit.
+ * <p>
+ * Queued saves are coalesced per user, so only the last preferences saved for a user are written. The writer takes
+ * everything queued at once and commits it as one batched transaction; saves arriving during a commit form the next
+ * batch. The queue holds at most {@code capacity} users. When it is full, saving for a user not already queued
+ * blocks until the writer catches up. {@link #loadUserPreferences} sees queued saves before they are committed.
+ * <p>
+ * A batch that fails to commit is put back in the queue, behind any newer save of the same user, and retried with
+ * exponential backoff, so a transient failure such as a busy database loses nothing. {@link #close()} returns once
+ * every accepted save is committed; if the writer still cannot commit after a few more attempts, it throws and names
+ * the users whose saves were lost. Instances are thread-safe.
+ */
+public class WriteBehindPreferenceService implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindPreferenceService.class);
+
+    /** Default maximum number of users with queued saves. */
+    public static final int DEFAULT_CAPACITY = 1_000;
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+    // Failed attempts after close() before the remaining saves are given up
+    private static final int RETRIES_ON_CLOSE = 3;
+
+    private final UserPreferenceService userPreferenceService;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final Condition closing = lock.newCondition();
+    // Saves not yet taken by the writer, and the batch it is committing, keyed by username
+    private final Map<String, Map<String, List<String>>> queued = new LinkedHashMap<>();
+    private Map<String, Map<String, List<String>>> inFlight = Map.of();
+    private boolean closed;
+    private final List<String> unflushed = new ArrayList<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final Thread writer;
+
+    /**
+     * Creates the front and starts its writer thread.
+     * @param userPreferenceService The service committing the queued saves.
+     * @param capacity The maximum number of users with queued saves.
+     */
+    public WriteBehindPreferenceService(UserPreferenceService userPreferenceService, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.userPreferenceService = userPreferenceService;
+        this.capacity = capacity;
+        this.writer = new Thread(this::writeLoop, "preference-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues the complete new preferences of a user, replacing any save still queued for that user.
+     * Blocks while the queue is full and the user has no queued save.
+     * @param user The user.
+     * @param preferences The complete new preferences; copied, so the caller may change the map afterwards.
+     * @throws IllegalArgumentException If a list or value is null, so a bad save never fails the batch it joins.
+     * @throws IllegalStateException If the service is closed, or the thread is interrupted while waiting.
+     */
+    public void saveUserPreferences(User user, Map<String, List<String>> preferences) {
+        UserPreferenceService.requireNoNulls(preferences);
+        Map<String, List<String>> copy = copyOf(preferences);
+        lock.lock();
+        try {
+            while (!closed && queued.size() >= capacity && !queued.containsKey(user.getUsername())) {
+                notFull.await();
+            }
+            if (closed) {
+                throw new IllegalStateException("Write-behind queue is closed");
+            }
+            if (queued.put(user.getUsername(), copy) != null) {
+                coalesced.increment();
+            }
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the write-behind queue", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the preferences of a user, including a save that is queued but not committed yet.
+     * @param user The user.
+     * @return The preferences as an unmodifiable map, empty if none were saved.
+     */
+    public Map<String, List<String>> loadUserPreferences(User user) {
+        lock.lock();
+        try {
+            Map<String, List<String>> pending = queued.get(user.getUsername());
+            if (pending == null) {
+                pending = inFlight.get(user.getUsername());
+            }
+            if (pending != null) {
+                return pending;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // The writer updates the service's cache before it forgets a committed batch, so this read is current
+        return userPreferenceService.loadUserPreferences(user);
+    }
+
+    /**
+     * Waits until every save queued before this call has been committed. Saves of a failed batch are retried, so
+     * this waits for the retries too.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout.
+     * @return Whether the queue drained in time.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!queued.isEmpty() || !inFlight.isEmpty()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = drained.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of users whose saves are queued or being committed.
+     * @return The pending user count.
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return queued.size() + inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many saves replaced a queued save of the same user and were never written themselves.
+     * @return The coalesced save count.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns how many users' saves were lost because they still failed to commit when the service was closed.
+     * @return The failed save count.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns how many users' saves were put back in the queue after their batch failed to commit.
+     * @return The retried save count.
+     */
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    private void writeLoop() {
+        long retryDelayMillis = 0;
+        int failuresWhileClosed = 0;
+        while (true) {
+            Map<String, Map<String, List<String>>> batch;
+            lock.lock();
+            try {
+                while (queued.isEmpty() && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (queued.isEmpty()) {
+                    return;
+                }
+                batch = new LinkedHashMap<>(queued);
+                queued.clear();
+                inFlight = batch;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            RuntimeException failure = null;
+            try {
+                userPreferenceService.saveAllUserPreferences(batch, UserPreferenceService.SaveMode.REPLACE);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            lock.lock();
+            try {
+                inFlight = Map.of();
+                if (failure == null) {
+                    retryDelayMillis = 0;
+                    failuresWhileClosed = 0;
+                } else {
+                    // Saves queued while the batch was committing are newer and win over the failed ones
+                    batch.forEach(queued::putIfAbsent);
+                    retried.add(batch.size());
+                    if (closed && ++failuresWhileClosed > RETRIES_ON_CLOSE) {
+                        giveUpQueued(failure);
+                    } else {
+                        retryDelayMillis = Math.min(MAX_RETRY_DELAY_MILLIS,
+                                Math.max(INITIAL_RETRY_DELAY_MILLIS, retryDelayMillis * 2));
+                        logger.warn("Failed to commit queued preferences of {} users, retrying in {} ms: {}",
+                                batch.size(), retryDelayMillis, failure.getMessage());
+                        awaitRetry(retryDelayMillis);
+                    }
+                }
+                if (queued.isEmpty() && inFlight.isEmpty()) {
+                    drained.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits out a retry delay with the lock held by the caller; close() cuts it short so the final attempts start
+     * right away.
+     */
+    private void awaitRetry(long delayMillis) {
+        boolean wasClosed = closed;
+        long remaining = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        while (remaining > 0 && closed == wasClosed) {
+            try {
+                remaining = closing.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                // The writer is only stopped by close(), which lets it finish or give up
+            }
+        }
+    }
+
+    private void giveUpQueued(RuntimeException failure) {
+        unflushed.addAll(queued.keySet());
+        failed.add(queued.size());
+        logger.error("Gave up the queued preferences of {} users after {} failed commits on close: {}",
+                queued.size(), RETRIES_ON_CLOSE + 1, failure.getMessage(), failure);
+        queued.clear();
+    }
+
+    /**
+     * Stops accepting saves and waits until the writer has committed everything already queued.
+     * The underlying {@link UserPreferenceService} stays open.
+     * @throws IllegalStateException If some saves still could not be committed; the message names their users.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            closing.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Write-behind queue closed ({} saves coalesced, {} retried, {} failed).",
+                getCoalescedCount(), getRetriedCount(), getFailedCount());
+        lock.lock();
+        try {
+            if (!unflushed.isEmpty()) {
+                throw new IllegalStateException("Preferences of " + unflushed.size()
+                        + " users could not be committed: " + unflushed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies preferences into the form a load returns: unmodifiable, without keys that have no values.
+     */
+    private static Map<String, List<String>> copyOf(Map<String, List<String>> preferences) {
+        Map<String, List<String>> copy = new HashMap<>();
+        preferences.forEach((key, values) -> {
+            if (!values.isEmpty()) {
+                copy.put(key, List.copyOf(values));
+            }
+        });
+        return Map.copyOf(copy);
+    }
+}
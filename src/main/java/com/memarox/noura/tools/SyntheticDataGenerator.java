@@ -0,0 +1,356 @@
+package com.memarox.noura.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.model.TermDictionary;
+import com.memarox.noura.service.JobTrackDataLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates large synthetic job track catalogs and matching user profiles for benchmarks and load tests.
+ * <p>
+ * Every category draws its items from its own vocabulary, seeded with the real terms of job_tracks.json
+ * and extended with qualified and versioned variants of them. Terms are picked with a Zipf distribution
+ * ({@code skew}), so a few terms are very common and most are rare, as in real catalogs. With probability
+ * {@code overlap} an item is drawn from a vocabulary shared by all categories instead, which controls how
+ * many terms different categories and tracks have in common. All 16 skill lists of every track are filled.
+ * Output is deterministic for a given seed.
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+    private static final String[] QUALIFIERS = {"Advanced", "Applied", "Cloud", "Distributed", "Embedded", "Enterprise", "Mobile", "Modern"};
+    private static final int MIN_ITEMS = 3;
+    private static final int MAX_ITEMS = 8;
+    private static final int BATCH_SIZE = 1000;
+
+    private final Random random;
+    private final double overlap;
+    private final Map<SkillCategory, List<String>> vocabularies = new EnumMap<>(SkillCategory.class);
+    private final Map<SkillCategory, ZipfSampler> samplers = new EnumMap<>(SkillCategory.class);
+    private final List<String> sharedVocabulary;
+    private final ZipfSampler sharedSampler;
+    private final List<String> interestAreas = new ArrayList<>();
+    private final List<String> workEnvironments = new ArrayList<>();
+    private final List<String> learningStyles = new ArrayList<>();
+    private final List<JobTrack> templates;
+
+    /**
+     * Creates a generator whose vocabularies are seeded from the bundled job_tracks.json.
+     * @param seed The random seed; equal seeds produce equal output.
+     * @param vocabularySize The number of distinct terms per category.
+     * @param skew The Zipf exponent of term popularity (0 = uniform, around 1 = natural language).
+     * @param overlap The probability in [0, 1] that an item comes from the vocabulary shared by all categories.
+     */
+    public SyntheticDataGenerator(long seed, int vocabularySize, double skew, double overlap) {
+        this.random = new Random(seed);
+        this.overlap = overlap;
+        this.templates = new JobTrackDataLoader().loadJobTracks();
+        if (templates == null || templates.isEmpty()) {
+            throw new IllegalStateException("job_tracks.json is required to seed the synthetic vocabulary");
+        }
+
+        Set<String> allBaseTerms = new LinkedHashSet<>();
+        for (SkillCategory category : SkillCategory.values()) {
+            Set<String> baseTerms = new LinkedHashSet<>();
+            for (JobTrack template : templates) {
+                List<String> items = category.valuesOf(template);
+                if (items != null) {
+                    baseTerms.addAll(items);
+                }
+            }
+            if (baseTerms.isEmpty()) {
+                baseTerms.add(humanize(category.getFieldName()));
+            }
+            allBaseTerms.addAll(baseTerms);
+            List<String> vocabulary = expand(new ArrayList<>(baseTerms), vocabularySize);
+            vocabularies.put(category, vocabulary);
+            samplers.put(category, new ZipfSampler(vocabulary.size(), skew));
+        }
+        this.sharedVocabulary = expand(new ArrayList<>(allBaseTerms), vocabularySize);
+        this.sharedSampler = new ZipfSampler(sharedVocabulary.size(), skew);
+
+        for (JobTrack template : templates) {
+            addDistinct(interestAreas, template.getPrimaryInterestArea());
+            addDistinct(workEnvironments, template.getWorkEnvironmentPreference());
+            if (template.getLearningStylePreference() != null) {
+                template.getLearningStylePreference().forEach(style -> addDistinct(learningStyles, style));
+            }
+        }
+    }
+
+    /**
+     * Generates a catalog of the given size. Titles are unique; all skill lists are populated.
+     * @param trackCount The number of tracks to generate.
+     * @return The generated tracks.
+     */
+    public List<JobTrack> generateCatalog(int trackCount) {
+        List<JobTrack> tracks = new ArrayList<>(trackCount);
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < trackCount; i++) {
+            JobTrack template = templates.get(random.nextInt(templates.size()));
+            JobTrack track = new JobTrack(dictionary);
+            track.setTitle(template.getTitle() + " " + (i + 1));
+            track.setDescription(template.getDescription());
+            track.setAverageSalary(Math.round(template.getAverageSalary() * (0.7 + 0.6 * random.nextDouble())));
+            track.setUrl(template.getUrl());
+            track.setPrimaryInterestArea(pick(interestAreas));
+            track.setWorkEnvironmentPreference(pick(workEnvironments));
+            track.setLearningStylePreference(pickDistinct(learningStyles, 1 + random.nextInt(2)));
+            track.setGameEngine(template.getGameEngine());
+
+            for (SkillCategory category : SkillCategory.values()) {
+                int size = Math.min(MIN_ITEMS + random.nextInt(MAX_ITEMS - MIN_ITEMS + 1), vocabularies.get(category).size());
+                Set<String> items = new LinkedHashSet<>();
+                while (items.size() < size) {
+                    items.add(drawTerm(category));
+                }
+                category.setValues(track, new ArrayList<>(items));
+            }
+            tracks.add(track);
+        }
+        return tracks;
+    }
+
+    /**
+     * Generates one user's preferences. About a third of the skills are fragments of catalog terms,
+     * mimicking free-text input that only partially matches.
+     * @param skillCount The number of skills the user lists.
+     * @return A preference map in the format used by RecommendationService.
+     */
+    public Map<String, List<String>> generatePreferences(int skillCount) {
+        SkillCategory[] categories = SkillCategory.values();
+        List<String> skills = new ArrayList<>(skillCount);
+        for (int i = 0; i < skillCount; i++) {
+            String term = drawTerm(categories[random.nextInt(categories.length)]);
+            if (random.nextInt(3) == 0 && term.length() > 4) {
+                int start = random.nextInt(term.length() - 3);
+                String fragment = term.substring(start, start + 3 + random.nextInt(term.length() - start - 2)).trim();
+                if (!fragment.isEmpty()) {
+                    term = fragment;
+                }
+            }
+            skills.add(term);
+        }
+        Map<String, List<String>> preferences = new LinkedHashMap<>();
+        preferences.put("skills", skills);
+        preferences.put("primaryInterestArea", List.of(pick(interestAreas)));
+        preferences.put("workEnvironmentPreference", List.of(pick(workEnvironments)));
+        preferences.put("learningStylePreference", pickDistinct(learningStyles, 1 + random.nextInt(2)));
+        return preferences;
+    }
+
+    /**
+     * Generates preferences for many users, keyed by a generated username.
+     * @param userCount The number of users.
+     * @param maxSkills The maximum number of skills per user (at least one each).
+     * @return Preferences keyed by username, in generation order.
+     */
+    public Map<String, Map<String, List<String>>> generateUsers(int userCount, int maxSkills) {
+        Map<String, Map<String, List<String>>> users = new LinkedHashMap<>();
+        for (int i = 0; i < userCount; i++) {
+            users.put(String.format("user%07d", i + 1), generatePreferences(1 + random.nextInt(maxSkills)));
+        }
+        return users;
+    }
+
+    /**
+     * Writes a catalog in the job_tracks.json format.
+     * @param tracks The tracks to write.
+     * @param file The target file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeCatalogJson(List<JobTrack> tracks, Path file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), tracks);
+    }
+
+    /**
+     * Writes user preferences as a JSON object keyed by username.
+     * @param users The preferences to write.
+     * @param file The target file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void writeUsersJson(Map<String, Map<String, List<String>>> users, Path file) throws IOException {
+        new ObjectMapper().writeValue(file.toFile(), users);
+    }
+
+    /**
+     * Bulk-loads users and their preferences into the {@code users} and {@code user_preference_values} tables
+     * of a SQLite database, in a single transaction with batched inserts. Tables are created if missing.
+     * @param users The preferences to store, keyed by username.
+     * @param databaseFile The SQLite database file.
+     * @throws SQLException If the database cannot be written.
+     */
+    public static void writeUsersSqlite(Map<String, Map<String, List<String>>> users, Path databaseFile) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile)) {
+            try (Statement ddl = connection.createStatement()) {
+                ddl.execute("CREATE TABLE IF NOT EXISTS users (id INTEGER PRIMARY KEY AUTOINCREMENT, username VARCHAR(255) NOT NULL UNIQUE)");
+                ddl.execute("CREATE TABLE IF NOT EXISTS user_preference_values (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + "preferenceKey VARCHAR(255) NOT NULL, preferenceValue VARCHAR(255) NOT NULL, valueIndex INTEGER NOT NULL, "
+                        + "user_id BIGINT NOT NULL REFERENCES users (id), "
+                        + "CONSTRAINT uk_user_preference_values_position UNIQUE (user_id, preferenceKey, valueIndex))");
+                ddl.execute("CREATE INDEX IF NOT EXISTS idx_user_preference_values_key_value "
+                        + "ON user_preference_values (preferenceKey, preferenceValue)");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insertUser = connection.prepareStatement("INSERT INTO users (username) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement insertPreference = connection.prepareStatement(
+                         "INSERT INTO user_preference_values (user_id, preferenceKey, valueIndex, preferenceValue) VALUES (?, ?, ?, ?)")) {
+                int pending = 0;
+                for (Map.Entry<String, Map<String, List<String>>> user : users.entrySet()) {
+                    insertUser.setString(1, user.getKey());
+                    insertUser.executeUpdate();
+                    long userId;
+                    try (ResultSet keys = insertUser.getGeneratedKeys()) {
+                        keys.next();
+                        userId = keys.getLong(1);
+                    }
+                    for (Map.Entry<String, List<String>> preference : user.getValue().entrySet()) {
+                        List<String> values = preference.getValue();
+                        for (int i = 0; i < values.size(); i++) {
+                            insertPreference.setLong(1, userId);
+                            insertPreference.setString(2, preference.getKey());
+                            insertPreference.setInt(3, i);
+                            insertPreference.setString(4, values.get(i));
+                            insertPreference.addBatch();
+                            if (++pending % BATCH_SIZE == 0) {
+                                insertPreference.executeBatch();
+                            }
+                        }
+                    }
+                }
+                insertPreference.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Command line entry point.
+     * Usage: {@code SyntheticDataGenerator <outputDir> [tracks] [users] [seed] [vocabularySize] [skew] [overlap]}.
+     * Writes {@code job_tracks.json}, {@code users.json} and {@code users.db} into the output directory.
+     * @param args The command line arguments.
+     * @throws Exception If generation or writing fails.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: SyntheticDataGenerator <outputDir> [tracks=10000] [users=1000] [seed=42] "
+                    + "[vocabularySize=2000] [skew=1.0] [overlap=0.2]");
+            return;
+        }
+        Path outputDir = Path.of(args[0]);
+        int trackCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+        int vocabularySize = args.length > 4 ? Integer.parseInt(args[4]) : 2_000;
+        double skew = args.length > 5 ? Double.parseDouble(args[5]) : 1.0;
+        double overlap = args.length > 6 ? Double.parseDouble(args[6]) : 0.2;
+
+        Files.createDirectories(outputDir);
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(seed, vocabularySize, skew, overlap);
+        List<JobTrack> catalog = generator.generateCatalog(trackCount);
+        writeCatalogJson(catalog, outputDir.resolve("job_tracks.json"));
+        Map<String, Map<String, List<String>>> users = generator.generateUsers(userCount, 10);
+        writeUsersJson(users, outputDir.resolve("users.json"));
+        writeUsersSqlite(users, outputDir.resolve("users.db"));
+        logger.info("Generated {} tracks and {} users into {}.", trackCount, userCount, outputDir);
+    }
+
+    private String drawTerm(SkillCategory category) {
+        if (random.nextDouble() < overlap) {
+            return sharedVocabulary.get(sharedSampler.sample(random));
+        }
+        return vocabularies.get(category).get(samplers.get(category).sample(random));
+    }
+
+    private String pick(List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private List<String> pickDistinct(List<String> values, int count) {
+        Set<String> picked = new LinkedHashSet<>();
+        while (picked.size() < Math.min(count, values.size())) {
+            picked.add(pick(values));
+        }
+        return new ArrayList<>(picked);
+    }
+
+    /**
+     * Grows a list of base terms to the requested size with qualified ("Cloud Python") and
+     * versioned ("Python 3") variants. Base terms come first, so they are the most popular.
+     */
+    private static List<String> expand(List<String> baseTerms, int size) {
+        List<String> vocabulary = new ArrayList<>(Math.max(size, baseTerms.size()));
+        vocabulary.addAll(baseTerms);
+        for (int round = 0; vocabulary.size() < size; round++) {
+            for (String base : baseTerms) {
+                if (vocabulary.size() >= size) {
+                    break;
+                }
+                vocabulary.add(round % 2 == 0
+                        ? QUALIFIERS[(round / 2) % QUALIFIERS.length] + " " + base + (round >= 2 * QUALIFIERS.length ? " " + round : "")
+                        : base + " " + (round / 2 + 2));
+            }
+        }
+        return vocabulary;
+    }
+
+    private static String humanize(String fieldName) {
+        return fieldName.replaceAll("([a-z])([A-Z])", "$1 $2");
+    }
+
+    private static void addDistinct(List<String> values, String value) {
+        if (value != null && !values.contains(value)) {
+            values.add(value);
+        }
+    }
+
+    /**
+     * Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^skew via a precomputed CDF.
+     */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double skew) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, skew);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.memarox.noura;
+
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.service.BatchRecommendationService;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import com.memarox.noura.service.RecommendationSink;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRecommendationServiceTest {
+
+    @Test
+    void testRecommendAll_matchesSequentialRecommendations() {
+        List<JobTrack> allJobTracks = new JobTrackDataLoader().loadJobTracks();
+        SkillIndex skillIndex = SkillIndex.build(allJobTracks);
+        RecommendationService recommendationService = new RecommendationService();
+
+        List<String> skillPool = List.of("Java", "Python", "SQL", "Figma", "Unity", "Wireshark", "React", "problem");
+        Map<String, Map<String, List<String>>> preferencesByUser = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            preferencesByUser.put("user" + i, Map.of(
+                    "skills", List.of(skillPool.get(i % skillPool.size()), skillPool.get((i * 7) % skillPool.size())),
+                    "workEnvironmentPreference", List.of(i % 2 == 0 ? "Startup" : "Large Corporation")));
+        }
+
+        Map<String, List<ScoredJobTrack>> results = new ConcurrentHashMap<>();
+        try (BatchRecommendationService batchService = new BatchRecommendationService(recommendationService, skillIndex, 3, 4)) {
+            assertEquals(200, batchService.recommendAll(preferencesByUser, RecommendationSink.collectingInto(results)));
+        }
+
+        assertEquals(preferencesByUser.keySet(), results.keySet());
+        preferencesByUser.forEach((user, preferences) -> {
+            List<ScoredJobTrack> expected = recommendationService.getTopRecommendations(allJobTracks, preferences, 3);
+            List<ScoredJobTrack> actual = results.get(user);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i).getJobTrack(), actual.get(i).getJobTrack());
+                assertEquals(expected.get(i).getScore(), actual.get(i).getScore());
+            }
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.memarox.noura;
+
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.service.CachedRecommendationService;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedRecommendationServiceTest {
+
+    private RecommendationService recommendationService;
+    private SkillIndex skillIndex;
+    private CachedRecommendationService cachedService;
+
+    @BeforeEach
+    void setUp() {
+        List<JobTrack> jobTracks = new JobTrackDataLoader().loadJobTracks();
+        recommendationService = new RecommendationService();
+        skillIndex = SkillIndex.build(jobTracks);
+        cachedService = new CachedRecommendationService(recommendationService, skillIndex, 100);
+    }
+
+    @Test
+    void testGetTopRecommendations_matchesUncachedResults() {
+        Map<String, List<String>> preferences = Map.of(
+                "skills", List.of("Java", "SQL"),
+                "primaryInterestArea", List.of("Software Development"));
+        List<ScoredJobTrack> expected = recommendationService.getTopRecommendations(skillIndex, preferences, 5);
+        List<ScoredJobTrack> actual = cachedService.getTopRecommendations(preferences, 5);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getJobTrack().getTitle(), actual.get(i).getJobTrack().getTitle());
+            assertEquals(expected.get(i).getScore(), actual.get(i).getScore());
+        }
+    }
+
+    @Test
+    void testGetTopRecommendations_ignoresSkillOrderAndCase() {
+        List<ScoredJobTrack> first = cachedService.getTopRecommendations(
+                Map.of("skills", List.of("Java", "Python")), 5);
+        List<ScoredJobTrack> second = cachedService.getTopRecommendations(
+                Map.of("skills", List.of("python", "JAVA")), 5);
+
+        assertSame(first, second);
+        assertEquals(1, cachedService.stats().getHits());
+        assertEquals(1, cachedService.stats().getMisses());
+    }
+
+    @Test
+    void testGetTopRecommendations_keysOnK() {
+        Map<String, List<String>> preferences = Map.of("skills", List.of("Java"));
+        assertEquals(1, cachedService.getTopRecommendations(preferences, 1).size());
+        assertEquals(2, cachedService.getTopRecommendations(preferences, 2).size());
+        assertEquals(0, cachedService.stats().getHits());
+    }
+
+    @Test
+    void testSetSkillIndex_invalidatesCachedResults() {
+        Map<String, List<String>> preferences = Map.of("skills", List.of("Java"));
+        List<ScoredJobTrack> before = cachedService.getTopRecommendations(preferences, 5);
+
+        JobTrack track = new JobTrack();
+        track.setTitle("Reloaded Java Track");
+        track.setRequiredSkills(List.of("Java"));
+        cachedService.setSkillIndex(SkillIndex.build(List.of(track)));
+
+        assertEquals(0, cachedService.stats().getSize());
+        List<ScoredJobTrack> after = cachedService.getTopRecommendations(preferences, 5);
+        assertNotSame(before, after);
+        assertEquals(1, after.size());
+        assertEquals("Reloaded Java Track", after.get(0).getJobTrack().getTitle());
+    }
+
+    @Test
+    void testApplyChanges_dropsOnlyAffectedResults() {
+        List<ScoredJobTrack> java = cachedService.getTopRecommendations(Map.of("skills", List.of("Java")), 5);
+        List<ScoredJobTrack> sql = cachedService.getTopRecommendations(Map.of("skills", List.of("SQL")), 5);
+
+        SkillIndex.Editor editor = skillIndex.edit();
+        JobTrack track = new JobTrack();
+        track.setTitle("Added Java Track");
+        track.setRequiredSkills(List.of("Advanced Java"));
+        editor.put(track);
+        cachedService.applyChanges(editor.build(), editor.changes());
+
+        assertEquals(1, cachedService.stats().getSize());
+        assertSame(sql, cachedService.getTopRecommendations(Map.of("skills", List.of("SQL")), 5));
+        List<ScoredJobTrack> javaAfter = cachedService.getTopRecommendations(Map.of("skills", List.of("Java")), 5);
+        assertNotSame(java, javaAfter);
+        assertTrue(javaAfter.stream().anyMatch(r -> r.getJobTrack().getTitle().equals("Added Java Track")));
+    }
+}
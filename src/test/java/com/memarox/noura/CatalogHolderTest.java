@@ -0,0 +1,157 @@
+package com.memarox.noura;
+
+import com.memarox.noura.catalog.CatalogDelta;
+import com.memarox.noura.catalog.CatalogHolder;
+import com.memarox.noura.index.CatalogChanges;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogHolderTest {
+
+    private static String catalog(String... titles) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < titles.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"title\":\"").append(titles[i]).append("\",\"requiredSkills\":[\"Java\"]}");
+        }
+        return json.append(']').toString();
+    }
+
+    @Test
+    void testReload_publishesNewCatalogAndNotifiesListeners(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("catalog.json");
+        Files.writeString(catalogFile, catalog("First"));
+        try (CatalogHolder holder = CatalogHolder.load(new JobTrackDataLoader(), catalogFile)) {
+            assertNotNull(holder);
+            SkillIndex before = holder.current();
+            assertEquals(1, before.size());
+            assertEquals(1, holder.version());
+            List<SkillIndex> published = new CopyOnWriteArrayList<>();
+            holder.addListener((skillIndex, changes) -> published.add(skillIndex));
+
+            Files.writeString(catalogFile, catalog("First", "Second"));
+            SkillIndex after = holder.reload().get(10, TimeUnit.SECONDS);
+
+            assertSame(after, holder.current());
+            assertEquals(2, after.size());
+            assertEquals(2, holder.version());
+            assertEquals(List.of(after), published);
+            assertEquals(1, before.size(), "Readers of the previous catalog keep an intact snapshot");
+        }
+    }
+
+    @Test
+    void testReload_keepsCurrentCatalogOnError(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("catalog.json");
+        Files.writeString(catalogFile, catalog("First"));
+        try (CatalogHolder holder = CatalogHolder.load(new JobTrackDataLoader(), catalogFile)) {
+            SkillIndex before = holder.current();
+            Files.writeString(catalogFile, "{ not a catalog");
+
+            assertNull(holder.reload().get(10, TimeUnit.SECONDS));
+            assertSame(before, holder.current());
+            assertEquals(1, holder.version());
+        }
+    }
+
+    @Test
+    void testReload_dropsTermsOfTheReplacedCatalog(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("catalog.json");
+        Files.writeString(catalogFile, "[{\"title\":\"Mainframe\",\"requiredSkills\":[\"CatalogHolderTest Cobol\"]}]");
+        RecommendationService recommendationService = new RecommendationService();
+        Map<String, List<String>> cobol = Map.of("skills", List.of("CatalogHolderTest Cobol"));
+        try (CatalogHolder holder = CatalogHolder.load(new JobTrackDataLoader(), catalogFile)) {
+            SkillIndex before = holder.current();
+            int score = recommendationService.calculateScore(before.getTrack(0), cobol);
+            assertTrue(score > 0);
+
+            Files.writeString(catalogFile, "[{\"title\":\"Systems\",\"requiredSkills\":[\"CatalogHolderTest Rust\"]}]");
+            SkillIndex after = holder.reload().get(10, TimeUnit.SECONDS);
+
+            assertNotSame(before.terms(), after.terms());
+            assertEquals(-1, after.terms().lookup("catalogholdertest cobol"));
+            assertTrue(after.terms().lookup("catalogholdertest rust") >= 0);
+            // Readers of the previous catalog keep its dictionary, even with preferences compiled for the new one
+            CompiledPreferences compiledAfterReload = CompiledPreferences.compile(cobol, after.terms());
+            assertEquals(List.of("CatalogHolderTest Cobol"), before.getTrack(0).getRequiredSkills());
+            assertEquals(score, recommendationService.calculateScore(before.getTrack(0), compiledAfterReload));
+            assertEquals(score, recommendationService.getTopRecommendations(before, compiledAfterReload, 1).get(0).getScore());
+        }
+    }
+
+    @Test
+    void testLoad_returnsNullForMissingCatalog(@TempDir Path tempDir) {
+        assertNull(CatalogHolder.load(new JobTrackDataLoader(), tempDir.resolve("missing.json")));
+    }
+
+    @Test
+    void testStartWatching_reloadsReplacedFile(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("catalog.json");
+        Files.writeString(catalogFile, catalog("First"));
+        try (CatalogHolder holder = CatalogHolder.load(new JobTrackDataLoader(), catalogFile)) {
+            holder.startWatching();
+            Path staged = tempDir.resolve("catalog.json.tmp");
+            Files.writeString(staged, catalog("First", "Second", "Third"));
+            Files.move(staged, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (holder.current().size() != 3 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(3, holder.current().size());
+        }
+    }
+
+    @Test
+    void testApply_patchesLiveCatalog(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("catalog.json");
+        Files.writeString(catalogFile, catalog("First", "Second"));
+        String patch = "{\"op\": \"add\", \"track\": {\"title\": \"Third\", \"requiredSkills\": [\"Rust\"]}}\n"
+                + "{\"op\": \"update\", \"track\": {\"title\": \"first\", \"requiredSkills\": [\"Go\"]}}\n"
+                + "{\"op\": \"remove\", \"title\": \"Second\"}\n";
+        CatalogDelta delta = CatalogDelta.read(new ByteArrayInputStream(patch.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, delta.size());
+        assertEquals(CatalogDelta.Operation.REMOVE, delta.operation(2));
+
+        try (CatalogHolder holder = CatalogHolder.load(new JobTrackDataLoader(), catalogFile)) {
+            List<CatalogChanges> published = new CopyOnWriteArrayList<>();
+            holder.addListener((skillIndex, changes) -> published.add(changes));
+            SkillIndex after = holder.apply(delta).get(10, TimeUnit.SECONDS);
+
+            assertSame(after, holder.current());
+            assertEquals(2, after.size());
+            assertEquals(-1, after.ordinalOf("Second"));
+            assertEquals(List.of("Go"), after.getTrack(after.ordinalOf("First")).getRequiredSkills());
+            assertEquals(1, published.size());
+            assertFalse(published.get(0).isAll());
+            assertTrue(published.get(0).affects(List.of("rust"), null, null, List.of()));
+        }
+    }
+
+    @Test
+    void testRead_rejectsInvalidPatch() {
+        assertThrows(IOException.class, () -> CatalogDelta.read(new ByteArrayInputStream(
+                "[{\"op\": \"rename\", \"title\": \"First\"}]".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IOException.class, () -> CatalogDelta.read(new ByteArrayInputStream(
+                "[{\"op\": \"add\", \"track\": {\"requiredSkills\": []}}]".getBytes(StandardCharsets.UTF_8))));
+    }
+}
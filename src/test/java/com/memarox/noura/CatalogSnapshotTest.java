@@ -0,0 +1,73 @@
+package com.memarox.noura;
+
+import com.memarox.noura.catalog.CatalogSnapshot;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.service.JobTrackDataLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTest {
+
+    private List<JobTrack> jobTracks;
+
+    @BeforeEach
+    void setUp() {
+        jobTracks = new JobTrackDataLoader().loadJobTracks();
+        assertNotNull(jobTracks);
+    }
+
+    @Test
+    void testWriteAndOpen_roundTripsEveryField(@TempDir Path tempDir) throws IOException {
+        Path snapshotFile = tempDir.resolve("catalog.bin");
+        CatalogSnapshot.write(jobTracks, snapshotFile);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(snapshotFile);
+        assertEquals(jobTracks.size(), snapshot.trackCount());
+        List<JobTrack> restored = snapshot.readAll();
+        for (int i = 0; i < jobTracks.size(); i++) {
+            JobTrack expected = jobTracks.get(i);
+            JobTrack actual = restored.get(i);
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getUrl(), actual.getUrl());
+            assertEquals(expected.getAverageSalary(), actual.getAverageSalary());
+            assertEquals(expected.getPrimaryInterestArea(), actual.getPrimaryInterestArea());
+            assertEquals(expected.getWorkEnvironmentPreference(), actual.getWorkEnvironmentPreference());
+            assertEquals(expected.getGameEngine(), actual.getGameEngine());
+            assertEquals(expected.getLearningStylePreference(), actual.getLearningStylePreference());
+            for (SkillCategory category : SkillCategory.values()) {
+                assertEquals(category.valuesOf(expected), category.valuesOf(actual), category + " of " + expected.getTitle());
+            }
+        }
+    }
+
+    @Test
+    void testDataLoader_detectsSnapshotFiles(@TempDir Path tempDir) throws IOException {
+        Path snapshotFile = tempDir.resolve("catalog.bin");
+        CatalogSnapshot.write(jobTracks, snapshotFile);
+
+        assertTrue(CatalogSnapshot.isSnapshot(snapshotFile));
+        List<JobTrack> loaded = new JobTrackDataLoader().loadJobTracks(snapshotFile);
+        assertNotNull(loaded);
+        assertEquals(jobTracks.size(), loaded.size());
+        assertEquals("Software Engineer", loaded.get(0).getTitle());
+    }
+
+    @Test
+    void testOpen_rejectsOtherFiles(@TempDir Path tempDir) throws IOException {
+        Path jsonFile = tempDir.resolve("catalog.json");
+        Files.writeString(jsonFile, "[]");
+
+        assertFalse(CatalogSnapshot.isSnapshot(jsonFile));
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(jsonFile));
+    }
+}
@@ -0,0 +1,87 @@
+package com.memarox.noura;
+
+import com.memarox.noura.index.ColumnarCatalog;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import com.memarox.noura.tools.SyntheticDataGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarCatalogTest {
+
+    private RecommendationService recommendationService;
+    private List<JobTrack> allJobTracks;
+    private ColumnarCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = new RecommendationService();
+        allJobTracks = new JobTrackDataLoader().loadJobTracks();
+        assertNotNull(allJobTracks, "Job tracks should not be null");
+        catalog = ColumnarCatalog.build(allJobTracks);
+    }
+
+    private static void assertMatchesCalculateScore(RecommendationService service, List<JobTrack> tracks,
+                                                    ColumnarCatalog catalog, Map<String, List<String>> userPreferences) {
+        int[] scores = catalog.score(userPreferences);
+        for (int i = 0; i < tracks.size(); i++) {
+            assertEquals(service.calculateScore(tracks.get(i), userPreferences), scores[i],
+                    "Score mismatch for " + tracks.get(i).getTitle() + " with " + userPreferences);
+        }
+    }
+
+    @Test
+    void testScore_matchesCalculateScore() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("Java", "python", "problem", "Data", "C", "TensorFlow"));
+        userPreferences.put("primaryInterestArea", List.of("data science"));
+        userPreferences.put("workEnvironmentPreference", List.of("Startup"));
+        userPreferences.put("learningStylePreference", Arrays.asList("Hands-on Projects", "Theoretical Learning"));
+        assertMatchesCalculateScore(recommendationService, allJobTracks, catalog, userPreferences);
+    }
+
+    @Test
+    void testScore_emptySkillScansEveryColumn() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", List.of("", "SQL"));
+        assertMatchesCalculateScore(recommendationService, allJobTracks, catalog, userPreferences);
+    }
+
+    @Test
+    void testScore_syntheticCatalogMatchesCalculateScore() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(7, 300, 1.0, 0.2);
+        List<JobTrack> tracks = generator.generateCatalog(2_000);
+        ColumnarCatalog syntheticCatalog = ColumnarCatalog.build(tracks);
+        for (int user = 0; user < 20; user++) {
+            assertMatchesCalculateScore(recommendationService, tracks, syntheticCatalog, generator.generatePreferences(1 + user % 8));
+        }
+    }
+
+    @Test
+    void testScore_accumulatesIntoExistingArray() {
+        Map<String, List<String>> userPreferences = Map.of("skills", List.of("Java"));
+        int[] scores = new int[catalog.size()];
+        catalog.score(userPreferences, scores);
+        catalog.score(userPreferences, scores);
+        assertArrayEquals(Arrays.stream(catalog.score(userPreferences)).map(score -> score * 2).toArray(), scores);
+        assertThrows(IllegalArgumentException.class, () -> catalog.score(userPreferences, new int[0]));
+    }
+
+    @Test
+    void testGetTopRecommendations_matchesListRanking() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("Python", "TensorFlow", "Machine Learning"));
+        userPreferences.put("workEnvironmentPreference", List.of("Startup"));
+
+        assertEquals(recommendationService.getTopRecommendations(allJobTracks, userPreferences, 3).toString(),
+                recommendationService.getTopRecommendations(catalog, userPreferences, 3).toString());
+    }
+}
@@ -0,0 +1,85 @@
+package com.memarox.noura;
+
+import com.memarox.noura.index.ColumnarCatalog;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.TermDictionary;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledPreferencesTest {
+
+    @Test
+    void testCompile_foldsAndResolvesPreferences() {
+        List<JobTrack> jobTracks = new JobTrackDataLoader().loadJobTracks();
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("JAVA", "no such skill anywhere"));
+        userPreferences.put("primaryInterestArea", List.of("Data Science"));
+        userPreferences.put("workEnvironmentPreference", List.of());
+
+        CompiledPreferences preferences = CompiledPreferences.compile(userPreferences, jobTracks.get(0).terms());
+
+        assertEquals(2, preferences.skillCount());
+        assertEquals("JAVA", preferences.skill(0));
+        assertEquals("java", preferences.foldedSkill(0));
+        assertTrue(preferences.skillTermId(0) >= 0, "Java is a catalog term");
+        assertEquals(-1, preferences.skillTermId(1));
+        assertEquals("data science", preferences.foldedInterestArea());
+        assertNull(preferences.workEnvironment(), "An empty list means no preference");
+        assertTrue(preferences.learningStyles().isEmpty());
+    }
+
+    @Test
+    void testCompile_copiesTheInputLists() {
+        List<String> skills = new ArrayList<>(List.of("Java"));
+        CompiledPreferences preferences = CompiledPreferences.compile(Map.of("skills", skills));
+        skills.add("Python");
+        assertEquals(1, preferences.skillCount());
+    }
+
+    @Test
+    void testScoring_termAddedAfterCompileStillMatchesExactly() {
+        Map<String, List<String>> userPreferences = Map.of("skills", List.of("CompiledPreferencesTest Late Skill"));
+        CompiledPreferences preferences = CompiledPreferences.compile(userPreferences);
+        assertEquals(-1, preferences.skillTermId(0));
+
+        JobTrack track = new JobTrack();
+        track.setTitle("Late");
+        track.setRequiredSkills(List.of("compiledpreferencestest late skill", "CompiledPreferencesTest Late Skill Extended"));
+        List<JobTrack> tracks = List.of(track);
+
+        RecommendationService recommendationService = new RecommendationService();
+        assertEquals(15 + 5, recommendationService.calculateScore(track, preferences));
+        assertEquals(15 + 5, SkillIndex.build(tracks).score(preferences).scoreOf(0));
+        assertEquals(15 + 5, ColumnarCatalog.build(tracks).score(preferences)[0]);
+    }
+
+    @Test
+    void testMatch_memoizesManyTermsCorrectly() {
+        TermDictionary terms = new TermDictionary();
+        int[] foldedIds = new int[40_000];
+        for (int i = 0; i < foldedIds.length; i++) {
+            foldedIds[i] = terms.foldedId(terms.intern(i % 3 == 0 ? "Java " + i : "Skill " + i));
+        }
+        int javaId = terms.intern("java");
+        CompiledPreferences preferences = CompiledPreferences.compile(Map.of("skills", List.of("Java")), terms);
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < foldedIds.length; i++) {
+                int expected = i % 3 == 0 ? CompiledPreferences.PARTIAL_MATCH : CompiledPreferences.NO_MATCH;
+                assertEquals(expected, preferences.match(0, foldedIds[i]), "Term " + i + " in pass " + pass);
+            }
+            assertEquals(CompiledPreferences.EXACT_MATCH, preferences.match(0, javaId));
+        }
+    }
+}
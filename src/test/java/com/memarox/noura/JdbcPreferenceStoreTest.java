@@ -0,0 +1,73 @@
+package com.memarox.noura;
+
+import com.memarox.noura.entity.User;
+import com.memarox.noura.service.JdbcPreferenceStore;
+import com.memarox.noura.service.PreferenceStore;
+import com.memarox.noura.service.UserPreferenceService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcPreferenceStoreTest extends PreferenceStoreContractTest {
+
+    @Override
+    protected PreferenceStore openStore(Path databaseFile) {
+        return new JdbcPreferenceStore(databaseFile);
+    }
+
+    @Test
+    void testReadsDataWrittenThroughJpa() {
+        Path database = tempDir.resolve("shared.db");
+        UserPreferenceService jpa = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + database,
+                "hibernate.show_sql", "false"));
+        User alice = jpa.getOrCreateUser("alice");
+        jpa.saveUserPreferences(alice, Map.of("skills", List.of("Java", "SQL")));
+        jpa.close();
+
+        UserPreferenceService jdbc = new UserPreferenceService(new JdbcPreferenceStore(database));
+        try {
+            User reloaded = jdbc.getOrCreateUser("alice");
+            assertEquals(alice.getId(), reloaded.getId());
+            assertEquals(Map.of("skills", List.of("Java", "SQL")), jdbc.loadUserPreferences(reloaded));
+            assertEquals(List.of("alice"), jdbc.findUsernamesByPreference("skills", "SQL"));
+        } finally {
+            jdbc.close();
+        }
+    }
+
+    @Test
+    void testConcurrentCallsShareBoundedPool() throws Exception {
+        PreferenceStore pooled = new JdbcPreferenceStore("jdbc:sqlite:" + tempDir.resolve("pooled.db"), 2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            User alice = pooled.getOrCreateUsers(List.of("alice")).get("alice");
+            pooled.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+            List<Future<Map<String, List<String>>>> loads = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                loads.add(executor.submit(() -> pooled.loadUserPreferences(alice)));
+            }
+            for (Future<Map<String, List<String>>> load : loads) {
+                assertEquals(Map.of("skills", List.of("Java")), load.get());
+            }
+        } finally {
+            executor.shutdown();
+            pooled.close();
+        }
+    }
+
+    @Test
+    void testClosedStoreRejectsCalls() {
+        PreferenceStore closed = new JdbcPreferenceStore(tempDir.resolve("closed.db"));
+        closed.close();
+        assertThrows(IllegalStateException.class, () -> closed.findUsers(List.of("alice")));
+    }
+}
@@ -5,11 +5,17 @@ import com.memarox.noura.service.JobTrackDataLoader;
 import com.memarox.noura.service.RecommendationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -49,4 +55,28 @@ public class JobTrackDataLoaderTest {
         assertFalse(softwareEngineer.getRequiredSkills().isEmpty());
         assertTrue(softwareEngineer.getRequiredSkills().contains("Problem solving"));
     }
+
+    @Test
+    void testStreamJobTracks_fromFileMatchesResource(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("catalog.json");
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("job_tracks.json")) {
+            Files.copy(is, catalogFile);
+        }
+
+        List<String> streamedTitles = new ArrayList<>();
+        int count = dataLoader.streamJobTracks(catalogFile, track -> streamedTitles.add(track.getTitle()));
+
+        assertEquals(jobTracks.size(), count);
+        assertEquals(jobTracks.stream().map(JobTrack::getTitle).collect(Collectors.toList()), streamedTitles);
+        assertEquals(jobTracks.size(), dataLoader.loadJobTracks(catalogFile).size());
+    }
+
+    @Test
+    void testStreamJobTracks_invalidFile(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("broken.json");
+        Files.writeString(catalogFile, "{\"title\": \"not an array\"}");
+
+        assertEquals(-1, dataLoader.streamJobTracks(catalogFile, track -> fail("No track expected")));
+        assertNull(dataLoader.loadJobTracks(tempDir.resolve("missing.json")));
+    }
 }
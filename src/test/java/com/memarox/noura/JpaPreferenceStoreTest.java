@@ -0,0 +1,18 @@
+package com.memarox.noura;
+
+import com.memarox.noura.service.JpaPreferenceStore;
+import com.memarox.noura.service.PreferenceStore;
+import com.memarox.noura.service.UserPreferenceService;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+public class JpaPreferenceStoreTest extends PreferenceStoreContractTest {
+
+    @Override
+    protected PreferenceStore openStore(Path databaseFile) {
+        return new JpaPreferenceStore(UserPreferenceService.DEV_PERSISTENCE_UNIT, Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + databaseFile,
+                "hibernate.show_sql", "false"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.memarox.noura;
+
+import com.memarox.noura.cache.CacheStats;
+import com.memarox.noura.cache.LruCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LruCacheTest {
+
+    @Test
+    void testPut_evictsLeastRecentlyUsedEntry() {
+        // A capacity of 1 keeps a single segment, so eviction order is exact
+        LruCache<String, Integer> cache = new LruCache<>(1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b"));
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void testGet_refreshesRecency() {
+        // 32 entries spread over 16 segments of two; keys 0, 16 and 32 share a segment
+        LruCache<Integer, Integer> cache = new LruCache<>(32);
+        cache.put(0, 0);
+        cache.put(16, 16);
+        assertEquals(0, cache.get(0));
+        cache.put(32, 32);
+        assertNull(cache.get(16));
+        assertEquals(0, cache.get(0));
+        assertEquals(32, cache.get(32));
+    }
+
+    @Test
+    void testSize_neverExceedsMaximum() {
+        LruCache<Integer, Integer> cache = new LruCache<>(100);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 100);
+        assertEquals(10_000 - cache.size(), cache.stats().getEvictions());
+    }
+
+    @Test
+    void testComputeIfAbsent_countsHitsAndMisses() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        assertEquals("A", cache.computeIfAbsent("a", String::toUpperCase));
+        assertEquals("A", cache.computeIfAbsent("a", key -> fail("Cached value must be reused")));
+        assertNull(cache.computeIfAbsent("b", key -> null));
+        assertNull(cache.get("b"), "Null results are not cached");
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(0.25, stats.getHitRate(), 1e-9);
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void testInvalidateIf_removesMatchingKeys() {
+        LruCache<Integer, Integer> cache = new LruCache<>(100);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(5, cache.invalidateIf(key -> key % 2 == 0));
+        assertEquals(5, cache.size());
+        assertNull(cache.get(4));
+        assertEquals(3, cache.get(3));
+
+        cache.invalidate(3);
+        assertNull(cache.get(3));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testGet_expiresEntriesAfterTimeToLive() {
+        AtomicLong clock = new AtomicLong();
+        LruCache<String, String> cache = new LruCache<>(10, Duration.ofSeconds(60), clock::get);
+        cache.put("a", "A");
+        clock.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals("A", cache.get("a"));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals("B", cache.computeIfAbsent("a", key -> "B"), "An expired entry is loaded again");
+    }
+
+    @Test
+    void testComputeIfAbsent_doesNotOverwriteConcurrentPut() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        String result = cache.computeIfAbsent("a", key -> {
+            cache.put(key, "newer");
+            return "stale";
+        });
+        assertEquals("newer", result);
+        assertEquals("newer", cache.get("a"));
+    }
+
+    @Test
+    void testConstructor_rejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, String>(0));
+    }
+}
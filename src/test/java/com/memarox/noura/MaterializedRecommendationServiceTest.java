@@ -0,0 +1,207 @@
+package com.memarox.noura;
+
+import com.memarox.noura.entity.User;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.CompiledPreferences;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.service.JdbcPreferenceStore;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.MaterializedRecommendationService;
+import com.memarox.noura.service.RecommendationService;
+import com.memarox.noura.service.UserPreferenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaterializedRecommendationServiceTest {
+
+    private static final Map<String, List<String>> JAVA_DEVELOPER = Map.of(
+            "skills", List.of("Java", "SQL"),
+            "primaryInterestArea", List.of("Software Development"),
+            "learningStylePreference", List.of("Hands-on Projects"));
+
+    @TempDir
+    Path tempDir;
+
+    private RecommendationService recommendationService;
+    private SkillIndex skillIndex;
+    private UserPreferenceService userPreferenceService;
+    private MaterializedRecommendationService materializedService;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = new RecommendationService();
+        skillIndex = SkillIndex.build(new JobTrackDataLoader().loadJobTracks());
+        userPreferenceService = new UserPreferenceService(new JdbcPreferenceStore(tempDir.resolve("noura.db")));
+        materializedService = new MaterializedRecommendationService(userPreferenceService, recommendationService, skillIndex, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        materializedService.close();
+        userPreferenceService.close();
+    }
+
+    @Test
+    void testGetTopRecommendations_queuesMissForBackgroundRefresh() throws Exception {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        userPreferenceService.saveUserPreferences(alice, JAVA_DEVELOPER);
+
+        List<ScoredJobTrack> first = materializedService.getTopRecommendations(alice, 5);
+        // Refreshes run in order on one thread, so the queued miss has been stored once this one completes
+        assertEquals(0, materializedService.refreshStale().get(), "The miss was materialized in the background");
+        List<ScoredJobTrack> second = materializedService.getTopRecommendations(alice, 3);
+
+        assertEquals(1, materializedService.getMissCount());
+        assertEquals(1, materializedService.getHitCount());
+        assertEquals(5, first.size());
+        assertSameRanking(recommendationService.getTopRecommendations(skillIndex, JAVA_DEVELOPER, 5), first);
+        assertSameRanking(first.subList(0, 3), second);
+        assertTrue(userPreferenceService.loadRecommendations(alice).isCurrent(materializedService.getCatalogVersion(),
+                CompiledPreferences.compile(JAVA_DEVELOPER).fingerprint()));
+    }
+
+    @Test
+    void testSaveUserPreferences_refreshesStoredList() {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        materializedService.saveUserPreferences(alice, JAVA_DEVELOPER);
+        assertSameRanking(recommendationService.getTopRecommendations(skillIndex, JAVA_DEVELOPER, 5),
+                materializedService.getTopRecommendations(alice, 5));
+
+        Map<String, List<String>> designer = Map.of("skills", List.of("Figma"), "primaryInterestArea", List.of("UX Design"));
+        materializedService.saveUserPreferences(alice, designer);
+        assertSameRanking(recommendationService.getTopRecommendations(skillIndex, designer, 5),
+                materializedService.getTopRecommendations(alice, 5));
+        assertEquals(2, materializedService.getHitCount());
+        assertEquals(0, materializedService.getMissCount());
+    }
+
+    @Test
+    void testGetTopRecommendations_detectsSavesThatBypassedTheService() {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        materializedService.saveUserPreferences(alice, JAVA_DEVELOPER);
+
+        Map<String, List<String>> analyst = Map.of("skills", List.of("Python", "Statistics"));
+        userPreferenceService.saveUserPreferences(alice, analyst);
+
+        assertSameRanking(recommendationService.getTopRecommendations(skillIndex, analyst, 5),
+                materializedService.getTopRecommendations(alice, 5));
+        assertEquals(1, materializedService.getMissCount(), "The stored list was computed for other preferences");
+    }
+
+    @Test
+    void testRefreshStale_materializesUsersStoredBefore() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            User user = userPreferenceService.getOrCreateUser("user" + i);
+            userPreferenceService.saveUserPreferences(user, i % 2 == 0 ? JAVA_DEVELOPER : Map.of("skills", List.of("Python")));
+            users.add(user);
+        }
+
+        assertEquals(7, materializedService.refreshStale().get());
+        assertEquals(0, materializedService.refreshStale().get(), "Nothing is stale after a refresh");
+        for (User user : users) {
+            materializedService.getTopRecommendations(user, 5);
+        }
+        assertEquals(7, materializedService.getHitCount());
+    }
+
+    @Test
+    void testSetSkillIndex_recomputesListsOfThePreviousCatalog() throws Exception {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        materializedService.saveUserPreferences(alice, JAVA_DEVELOPER);
+        String previousVersion = materializedService.getCatalogVersion();
+
+        JobTrack track = new JobTrack();
+        track.setTitle("Reloaded Java Track");
+        track.setRequiredSkills(List.of("Java"));
+        SkillIndex reloaded = SkillIndex.build(List.of(track));
+
+        assertEquals(1, materializedService.setSkillIndex(reloaded).get());
+        assertNotEquals(previousVersion, materializedService.getCatalogVersion());
+        List<ScoredJobTrack> recommendations = materializedService.getTopRecommendations(alice, 5);
+        assertEquals(List.of("Reloaded Java Track"), titles(recommendations));
+        assertEquals(1, materializedService.getHitCount());
+    }
+
+    @Test
+    void testApplyChanges_recomputesOnlyListsTheEditsAffect() throws Exception {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        User bob = userPreferenceService.getOrCreateUser("bob");
+        Map<String, List<String>> designer = Map.of("skills", List.of("Figma"), "primaryInterestArea", List.of("UX Design"));
+        materializedService.saveUserPreferences(alice, JAVA_DEVELOPER);
+        materializedService.saveUserPreferences(bob, designer);
+        String previousVersion = materializedService.getCatalogVersion();
+
+        SkillIndex.Editor editor = skillIndex.edit();
+        JobTrack track = new JobTrack();
+        track.setTitle("Design Systems Engineer");
+        track.setRequiredSkills(List.of("Figma"));
+        editor.put(track);
+        SkillIndex edited = editor.build();
+
+        assertEquals(1, materializedService.applyChanges(edited, editor.changes()).get(), "Only bob uses Figma");
+        assertNotEquals(previousVersion, materializedService.getCatalogVersion());
+        assertEquals(previousVersion, userPreferenceService.loadRecommendations(alice).getCatalogVersion(),
+                "Alice's list was not rewritten");
+        assertSameRanking(recommendationService.getTopRecommendations(edited, JAVA_DEVELOPER, 5),
+                materializedService.getTopRecommendations(alice, 5));
+        assertSameRanking(recommendationService.getTopRecommendations(edited, designer, 5),
+                materializedService.getTopRecommendations(bob, 5));
+        assertTrue(titles(materializedService.getTopRecommendations(bob, 5)).contains("Design Systems Engineer"));
+        assertEquals(0, materializedService.getMissCount());
+        assertEquals(0, materializedService.refreshStale().get(), "Alice's older list is still valid");
+    }
+
+    @Test
+    void testCatalogVersion_dependsOnContentsOnly() {
+        MaterializedRecommendationService sameCatalog = new MaterializedRecommendationService(userPreferenceService,
+                recommendationService, SkillIndex.build(new JobTrackDataLoader().loadJobTracks()), 5);
+        MaterializedRecommendationService longerLists = new MaterializedRecommendationService(userPreferenceService,
+                recommendationService, skillIndex, 10);
+        try {
+            assertEquals(materializedService.getCatalogVersion(), sameCatalog.getCatalogVersion(),
+                    "Stored lists stay valid across restarts with the same catalog");
+            assertNotEquals(materializedService.getCatalogVersion(), longerLists.getCatalogVersion());
+        } finally {
+            sameCatalog.close();
+            longerLists.close();
+        }
+    }
+
+    @Test
+    void testGetTopRecommendations_computesLargerRequestsOnTheFly() {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        materializedService.saveUserPreferences(alice, JAVA_DEVELOPER);
+
+        List<ScoredJobTrack> recommendations = materializedService.getTopRecommendations(alice, 8);
+        assertEquals(8, recommendations.size());
+        assertSameRanking(recommendationService.getTopRecommendations(skillIndex, JAVA_DEVELOPER, 8), recommendations);
+        assertEquals(5, userPreferenceService.loadRecommendations(alice).size());
+    }
+
+    private static void assertSameRanking(List<ScoredJobTrack> expected, List<ScoredJobTrack> actual) {
+        assertEquals(titles(expected), titles(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getScore(), actual.get(i).getScore());
+            assertEquals(expected.get(i).getScoreBreakdown(), actual.get(i).getScoreBreakdown());
+        }
+    }
+
+    private static List<String> titles(List<ScoredJobTrack> recommendations) {
+        List<String> titles = new ArrayList<>();
+        for (ScoredJobTrack recommendation : recommendations) {
+            titles.add(recommendation.getJobTrack().getTitle());
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,225 @@
+package com.memarox.noura;
+
+import com.memarox.noura.entity.User;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
+import com.memarox.noura.service.MaterializedRecommendations;
+import com.memarox.noura.service.PreferenceStore;
+import com.memarox.noura.service.StaleRecommendations;
+import com.memarox.noura.service.UserPreferenceService.SaveMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link PreferenceStore} must share; each implementation runs it through a subclass.
+ */
+public abstract class PreferenceStoreContractTest {
+
+    @TempDir
+    Path tempDir;
+
+    protected PreferenceStore store;
+
+    /**
+     * Opens the store under test on a SQLite database file.
+     */
+    protected abstract PreferenceStore openStore(Path databaseFile);
+
+    @BeforeEach
+    void setUp() {
+        store = openStore(tempDir.resolve("store.db"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void testGetOrCreateUsers_returnsStableIds() {
+        Map<String, User> first = store.getOrCreateUsers(List.of("alice", "bob"));
+        Map<String, User> second = store.getOrCreateUsers(List.of("bob", "carol"));
+
+        assertEquals(first.get("bob").getId(), second.get("bob").getId());
+        assertNotEquals(first.get("alice").getId(), first.get("bob").getId());
+        assertNotNull(second.get("carol").getId());
+        assertEquals("carol", second.get("carol").getUsername());
+    }
+
+    @Test
+    void testFindUsers_readsWithoutCreating() {
+        User alice = user("alice");
+
+        Map<String, User> found = store.findUsers(List.of("alice", "bob"));
+        assertEquals(alice.getId(), found.get("alice").getId());
+        assertFalse(found.containsKey("bob"));
+        assertTrue(store.findUsers(List.of("bob")).isEmpty(), "Looking a user up does not create it");
+    }
+
+    @Test
+    void testGetOrCreateUsers_mixesExistingAndNewNames() {
+        User alice = user("alice");
+
+        Map<String, User> users = store.getOrCreateUsers(List.of("alice", "bob", "carol"));
+        assertEquals(alice.getId(), users.get("alice").getId());
+        assertEquals(3, users.size());
+        assertEquals(users.get("bob").getId(), store.findUsers(List.of("bob")).get("bob").getId());
+    }
+
+    @Test
+    void testSaveUserPreferences_roundTripsOrderedValues() {
+        User alice = user("alice");
+        store.saveUserPreferences(alice, Map.of("skills", List.of("SQL", "Java", "Sales, B2B"), "primaryInterestArea", List.of()));
+
+        assertEquals(Map.of("skills", List.of("SQL", "Java", "Sales, B2B")), store.loadUserPreferences(alice),
+                "Values keep their order and commas; empty lists are not stored");
+
+        store.saveUserPreferences(alice, Map.of("workEnvironmentPreference", List.of("Remote")));
+        assertEquals(Map.of("workEnvironmentPreference", List.of("Remote")), store.loadUserPreferences(alice));
+        assertTrue(store.loadUserPreferences(user("bob")).isEmpty());
+    }
+
+    @Test
+    void testSaveAllUserPreferences_replaceAndChangedKeys() {
+        User alice = user("alice");
+        User bob = user("bob");
+        store.saveUserPreferences(alice, Map.of("skills", List.of("COBOL")));
+
+        Map<Long, Map<String, List<String>>> wanted = new TreeMap<>();
+        wanted.put(alice.getId(), Map.of("skills", List.of("Java", "SQL")));
+        wanted.put(bob.getId(), Map.of("skills", List.of("Python")));
+        assertEquals(4, store.saveAllUserPreferences(wanted, SaveMode.REPLACE), "One value deleted, three inserted");
+
+        wanted.put(alice.getId(), Map.of("skills", List.of("Java", "Go", "Rust")));
+        assertEquals(2, store.saveAllUserPreferences(wanted, SaveMode.CHANGED_KEYS), "One value updated, one inserted");
+        assertEquals(0, store.saveAllUserPreferences(wanted, SaveMode.CHANGED_KEYS));
+        assertEquals(Map.of("skills", List.of("Java", "Go", "Rust")), store.loadUserPreferences(alice));
+        assertEquals(Map.of("skills", List.of("Python")), store.loadUserPreferences(bob));
+    }
+
+    @Test
+    void testFindUsernamesByPreference() {
+        store.saveUserPreferences(user("carol"), Map.of("skills", List.of("SQL")));
+        store.saveUserPreferences(user("alice"), Map.of("skills", List.of("Java", "SQL")));
+        store.saveUserPreferences(user("bob"), Map.of("primaryInterestArea", List.of("SQL")));
+
+        assertEquals(List.of("alice", "carol"), store.findUsernamesByPreference("skills", "SQL"));
+        assertEquals(List.of("bob"), store.findUsernamesByPreference("primaryInterestArea", "SQL"));
+        assertTrue(store.findUsernamesByPreference("skills", "sql").isEmpty(), "Values are compared exactly");
+    }
+
+    @Test
+    void testForEachUserPreferencesPage_visitsEveryUserInIdOrder() {
+        List<String> usernames = List.of("u1", "u2", "u3", "u4", "u5");
+        for (String username : usernames) {
+            store.saveUserPreferences(user(username), Map.of("skills", List.of("Skill " + username)));
+        }
+        user("u6");
+
+        List<Integer> pageSizes = new ArrayList<>();
+        Map<String, Map<String, List<String>>> seen = new LinkedHashMap<>();
+        store.forEachUserPreferencesPage(2, page -> {
+            pageSizes.add(page.size());
+            seen.putAll(page);
+        });
+
+        assertEquals(List.of(2, 2, 2), pageSizes);
+        assertEquals(List.of("u1", "u2", "u3", "u4", "u5", "u6"), new ArrayList<>(seen.keySet()));
+        assertEquals(Map.of("skills", List.of("Skill u3")), seen.get("u3"));
+        assertTrue(seen.get("u6").isEmpty());
+    }
+
+    @Test
+    void testPreferencesPersistAcrossReopen() {
+        User alice = user("alice");
+        store.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+        store.close();
+
+        store = openStore(tempDir.resolve("store.db"));
+        assertEquals(alice.getId(), user("alice").getId());
+        assertEquals(Map.of("skills", List.of("Java")), store.loadUserPreferences(alice));
+    }
+
+    @Test
+    void testLegacyCommaJoinedPreferencesAreMigrated() throws Exception {
+        Path legacyDatabase = tempDir.resolve("legacy.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + legacyDatabase);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username VARCHAR(255) NOT NULL UNIQUE)");
+            statement.execute("CREATE TABLE user_preferences (id INTEGER PRIMARY KEY AUTOINCREMENT, preferenceKey VARCHAR(255) NOT NULL, "
+                    + "preferenceValue VARCHAR(1000) NOT NULL, user_id BIGINT NOT NULL REFERENCES users (id))");
+            statement.execute("INSERT INTO users (username) VALUES ('alice')");
+            statement.execute("INSERT INTO user_preferences (user_id, preferenceKey, preferenceValue) VALUES "
+                    + "(1, 'skills', 'Java,SQL'), (1, 'primaryInterestArea', 'AI')");
+        }
+
+        PreferenceStore migrated = openStore(legacyDatabase);
+        try {
+            User alice = migrated.getOrCreateUsers(List.of("alice")).get("alice");
+            assertEquals(1L, alice.getId());
+            assertEquals(Map.of("skills", List.of("Java", "SQL"), "primaryInterestArea", List.of("AI")),
+                    migrated.loadUserPreferences(alice));
+        } finally {
+            migrated.close();
+        }
+    }
+
+    @Test
+    void testRecommendations_roundTripAndStalePages() {
+        JobTrack track = new JobTrack();
+        track.setTitle("Backend Developer");
+        User alice = user("alice");
+        User bob = user("bob");
+        User carol = user("carol");
+        store.saveUserPreferences(bob, Map.of("skills", List.of("Java")));
+        assertNull(store.loadRecommendations(alice));
+
+        store.saveRecommendations(Map.of(alice.getId(), MaterializedRecommendations.of("v1", "fp-alice",
+                List.of(new ScoredJobTrack(track, 12, Map.of("requiredSkills", 12))))));
+        store.saveRecommendations(Map.of(carol.getId(), MaterializedRecommendations.of("v0", "fp-carol", List.of())));
+
+        MaterializedRecommendations stored = store.loadRecommendations(alice);
+        assertTrue(stored.isCurrent("v1", "fp-alice"));
+        assertFalse(stored.isCurrent("v2", "fp-alice"));
+        List<ScoredJobTrack> resolved = stored.resolve(SkillIndex.build(List.of(track)));
+        assertEquals(12, resolved.get(0).getScore());
+        assertEquals(Map.of("requiredSkills", 12), resolved.get(0).getScoreBreakdown());
+        assertNull(stored.resolve(SkillIndex.build(List.of(new JobTrack()))), "A track missing from the catalog makes the list unusable");
+
+        List<StaleRecommendations> stale = new ArrayList<>();
+        store.forEachStaleRecommendationsPage("v1", 1, stale::addAll);
+        assertEquals(2, stale.size(), "Users without a list or with a list of another version are stale");
+        assertEquals(bob.getId(), stale.get(0).getUserId());
+        assertNull(stale.get(0).getCatalogVersion());
+        assertEquals(Map.of("skills", List.of("Java")), stale.get(0).getPreferences());
+        assertEquals(carol.getId(), stale.get(1).getUserId());
+        assertEquals("v0", stale.get(1).getCatalogVersion());
+        assertTrue(stale.get(1).getPreferences().isEmpty());
+
+        store.saveRecommendations(Map.of(carol.getId(), MaterializedRecommendations.of("v1", "fp-carol", List.of())));
+        assertEquals(0, store.loadRecommendations(carol).size());
+        stale.clear();
+        store.forEachStaleRecommendationsPage("v1", 10, stale::addAll);
+        assertEquals(1, stale.size());
+        assertEquals(bob.getId(), stale.get(0).getUserId());
+    }
+
+    protected User user(String username) {
+        return store.getOrCreateUsers(List.of(username)).get(username);
+    }
+}
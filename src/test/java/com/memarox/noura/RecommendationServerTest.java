@@ -0,0 +1,154 @@
+package com.memarox.noura;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.memarox.noura.catalog.CatalogHolder;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.server.RecommendationServer;
+import com.memarox.noura.service.CachedRecommendationService;
+import com.memarox.noura.service.JdbcPreferenceStore;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import com.memarox.noura.service.UserPreferenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationServerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RecommendationServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SkillIndex skillIndex = SkillIndex.build(new JobTrackDataLoader().loadJobTracks());
+        server = new RecommendationServer(0, skillIndex, new RecommendationService(), null);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> get(String pathAndQuery) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + pathAndQuery)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testRecommendations_returnsScoredTracks() throws Exception {
+        HttpResponse<String> response = get("/recommendations?skills=Python,TensorFlow,Machine%20Learning&k=2");
+
+        assertEquals(200, response.statusCode());
+        List<Map<String, Object>> body = mapper.readValue(response.body(), new TypeReference<>() {});
+        assertEquals(2, body.size());
+        assertEquals("Data Scientist", body.get(0).get("title"));
+        assertTrue((Integer) body.get(0).get("score") > 0);
+    }
+
+    @Test
+    void testTrackLookup() throws Exception {
+        HttpResponse<String> found = get("/tracks/software%20engineer");
+        assertEquals(200, found.statusCode());
+        assertEquals("Software Engineer", mapper.readTree(found.body()).get("title").asText());
+
+        assertEquals(404, get("/tracks/Astronaut").statusCode());
+    }
+
+    @Test
+    void testUserEndpoints_createUsersOnlyWhenSavingPreferences(@TempDir Path tempDir) throws Exception {
+        SkillIndex skillIndex = SkillIndex.build(new JobTrackDataLoader().loadJobTracks());
+        UserPreferenceService userPreferenceService = new UserPreferenceService(new JdbcPreferenceStore(tempDir.resolve("users.db")));
+        RecommendationServer userServer = new RecommendationServer(0, skillIndex, new RecommendationService(), userPreferenceService);
+        userServer.start();
+        try {
+            String base = "http://localhost:" + userServer.getPort();
+            assertEquals(404, send(HttpRequest.newBuilder(URI.create(base + "/users/bob/recommendations")).GET()).statusCode());
+            assertEquals(404, send(HttpRequest.newBuilder(URI.create(base + "/users/bob/xyz")).GET()).statusCode());
+            assertEquals(405, send(HttpRequest.newBuilder(URI.create(base + "/users/bob/preferences")).GET()).statusCode());
+            assertNull(userPreferenceService.findUser("bob"), "Lookups and bad requests must not create users");
+
+            HttpResponse<String> saved = send(HttpRequest.newBuilder(URI.create(base + "/users/bob/preferences"))
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"skills\": [\"Python\", \"TensorFlow\"]}")));
+            assertEquals(200, saved.statusCode());
+            assertNotNull(userPreferenceService.findUser("bob"));
+            HttpResponse<String> recommendations = send(HttpRequest.newBuilder(URI.create(base + "/users/bob/recommendations?k=1")).GET());
+            assertEquals(200, recommendations.statusCode());
+            assertEquals(1, mapper.readValue(recommendations.body(), new TypeReference<List<Object>>() {}).size());
+        } finally {
+            userServer.stop(0);
+            userPreferenceService.close();
+        }
+    }
+
+    @Test
+    void testCatalogEdits_requireTheConfiguredToken(@TempDir Path tempDir) throws Exception {
+        Path catalogFile = tempDir.resolve("catalog.json");
+        Files.writeString(catalogFile, "[{\"title\":\"Backend Developer\",\"requiredSkills\":[\"Java\"]}]");
+        try (CatalogHolder catalogHolder = CatalogHolder.load(new JobTrackDataLoader(), catalogFile)) {
+            CachedRecommendationService cachedRecommendationService = new CachedRecommendationService(
+                    new RecommendationService(), catalogHolder.current(), CachedRecommendationService.DEFAULT_MAXIMUM_SIZE);
+            assertThrows(IllegalArgumentException.class,
+                    () -> new RecommendationServer(0, cachedRecommendationService, null, catalogHolder, null));
+            RecommendationServer editServer = new RecommendationServer(0, cachedRecommendationService, null, catalogHolder, "s3cret");
+            editServer.start();
+            try {
+                URI catalog = URI.create("http://localhost:" + editServer.getPort() + "/catalog");
+                String edit = "{\"op\": \"add\", \"track\": {\"title\": \"Data Engineer\", \"requiredSkills\": [\"SQL\"]}}";
+                assertEquals(401, send(HttpRequest.newBuilder(catalog).method("PATCH", HttpRequest.BodyPublishers.ofString(edit))).statusCode());
+                assertEquals(401, send(HttpRequest.newBuilder(catalog).header("Authorization", "Bearer wrong")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(edit))).statusCode());
+                assertEquals(1, catalogHolder.current().size());
+
+                assertEquals(200, send(HttpRequest.newBuilder(catalog).header("Authorization", "Bearer s3cret")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(edit))).statusCode());
+                assertEquals(2, catalogHolder.current().size());
+            } finally {
+                editServer.stop(0);
+            }
+        }
+        assertEquals(503, send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/catalog"))
+                .header("Authorization", "Bearer s3cret").method("PATCH", HttpRequest.BodyPublishers.ofString("[]"))).statusCode());
+    }
+
+    /**
+     * Sends a GET with the request target as given; HttpClient refuses malformed escapes before sending them.
+     */
+    private String rawStatusLine(String target) throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.getOutputStream().write(("GET " + target + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testInvalidRequests() throws Exception {
+        assertEquals(400, get("/recommendations?skills=Java&k=0").statusCode());
+        assertTrue(rawStatusLine("/tracks/%zz").contains(" 400 "));
+        assertTrue(rawStatusLine("/recommendations?skills=Java&k=%E").contains(" 400 "));
+        assertEquals(503, get("/users/alice/recommendations").statusCode());
+    }
+}
@@ -1,6 +1,8 @@
 package com.memarox.noura;
 
+import com.memarox.noura.index.SkillIndex;
 import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoredJobTrack;
 import com.memarox.noura.service.JobTrackDataLoader;
 import com.memarox.noura.service.RecommendationService;
 import org.junit.jupiter.api.BeforeEach;
@@ -143,4 +145,48 @@ public class RecommendationServiceTest {
                                                           jt.getTitle().equals("UX designer") ||
                                                           jt.getTitle().equals("Technical Writer")));
     }
+
+    @Test
+    void testGetTopRecommendations_matchesFullRankingPrefix() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("Python", "Java", "SQL"));
+        userPreferences.put("learningStylePreference", List.of("Hands-on Projects"));
+
+        List<JobTrack> fullRanking = recommendationService.getRecommendations(allJobTracks, userPreferences);
+        List<ScoredJobTrack> topThree = recommendationService.getTopRecommendations(allJobTracks, userPreferences, 3);
+
+        assertEquals(3, topThree.size());
+        for (int i = 0; i < topThree.size(); i++) {
+            assertSame(fullRanking.get(i), topThree.get(i).getJobTrack());
+            assertEquals(recommendationService.calculateScore(fullRanking.get(i), userPreferences), topThree.get(i).getScore());
+        }
+        assertEquals(topThree.stream().map(ScoredJobTrack::getJobTrack).toList(),
+                recommendationService.getTopRecommendations(SkillIndex.build(allJobTracks), userPreferences, 3)
+                        .stream().map(ScoredJobTrack::getJobTrack).toList());
+    }
+
+    @Test
+    void testGetTopRecommendations_skipsZeroScores() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("NonExistentSkill"));
+
+        assertTrue(recommendationService.getTopRecommendations(allJobTracks, userPreferences, 5).isEmpty());
+        assertTrue(recommendationService.getTopRecommendations(allJobTracks, Map.of("skills", List.of("Java")), 0).isEmpty());
+    }
+
+    @Test
+    void testGetTopRecommendations_scoreBreakdown() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("Java", "problem"));
+        userPreferences.put("primaryInterestArea", List.of("Software Development"));
+
+        ScoredJobTrack best = recommendationService.getTopRecommendations(SkillIndex.build(allJobTracks), userPreferences, 1).get(0);
+
+        assertEquals("Software Engineer", best.getJobTrack().getTitle());
+        assertEquals(best.getScore(), best.getScoreBreakdown().values().stream().mapToInt(Integer::intValue).sum());
+        assertEquals(12, best.getScoreBreakdown().get("developmentLanguages"));
+        assertEquals(5, best.getScoreBreakdown().get("requiredSkills"));
+        assertEquals(20, best.getScoreBreakdown().get(ScoredJobTrack.PRIMARY_INTEREST_AREA));
+        assertFalse(best.getScoreBreakdown().containsKey("networkProtocols"));
+    }
 }
@@ -0,0 +1,81 @@
+package com.memarox.noura;
+
+import com.memarox.noura.index.ColumnarCatalog;
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.ScoringWeights;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoringWeightsTest {
+
+    @Test
+    void testDefaults_matchBundledTable() {
+        ScoringWeights weights = ScoringWeights.defaults();
+        assertEquals(15, weights.exactMatchWeight(SkillCategory.REQUIRED_SKILLS));
+        assertEquals(5, weights.partialMatchWeight(SkillCategory.REQUIRED_SKILLS));
+        assertEquals(7, weights.exactMatchWeight(SkillCategory.DOCUMENTATION_STANDARDS));
+        assertEquals(20, weights.interestAreaWeight());
+        assertEquals(15, weights.workEnvironmentWeight());
+        assertEquals(10, weights.learningStyleWeight());
+    }
+
+    @Test
+    void testLoad_overridesOnlyListedWeights(@TempDir Path tempDir) throws IOException {
+        Path weightsFile = tempDir.resolve("weights.json");
+        Files.writeString(weightsFile, "{\"categories\": {\"requiredSkills\": {\"exact\": 40}}, \"workEnvironmentPreference\": 0}");
+
+        ScoringWeights weights = ScoringWeights.load(weightsFile);
+
+        assertNotNull(weights);
+        assertEquals(40, weights.exactMatchWeight(SkillCategory.REQUIRED_SKILLS));
+        assertEquals(5, weights.partialMatchWeight(SkillCategory.REQUIRED_SKILLS));
+        assertEquals(0, weights.workEnvironmentWeight());
+        assertEquals(20, weights.interestAreaWeight());
+    }
+
+    @Test
+    void testLoad_rejectsUnknownCategoriesAndNegativeWeights(@TempDir Path tempDir) throws IOException {
+        Path unknown = tempDir.resolve("unknown.json");
+        Files.writeString(unknown, "{\"categories\": {\"requiredSkils\": {\"exact\": 1}}}");
+        Path negative = tempDir.resolve("negative.json");
+        Files.writeString(negative, "{\"learningStylePreference\": -1}");
+
+        assertNull(ScoringWeights.load(unknown));
+        assertNull(ScoringWeights.load(negative));
+        assertNull(ScoringWeights.load(tempDir.resolve("missing.json")));
+    }
+
+    @Test
+    void testCustomWeights_appliedByEveryScoringPath(@TempDir Path tempDir) throws IOException {
+        Path weightsFile = tempDir.resolve("weights.json");
+        Files.writeString(weightsFile, "{\"categories\": {\"developmentLanguages\": {\"exact\": 100, \"partial\": 0}},"
+                + " \"primaryInterestArea\": 1}");
+        RecommendationService recommendationService = new RecommendationService(ScoringWeights.load(weightsFile));
+        List<JobTrack> jobTracks = new JobTrackDataLoader().loadJobTracks();
+        Map<String, List<String>> userPreferences = Map.of(
+                "skills", Arrays.asList("Java", "Py"),
+                "primaryInterestArea", List.of("Data Science"));
+
+        List<Integer> expected = jobTracks.stream()
+                .map(track -> recommendationService.calculateScore(track, userPreferences)).toList();
+        assertTrue(expected.stream().anyMatch(score -> score >= 100), "Java scores 100 as a development language");
+
+        assertEquals(recommendationService.getTopRecommendations(jobTracks, userPreferences, 4).toString(),
+                recommendationService.getTopRecommendations(SkillIndex.build(jobTracks), userPreferences, 4).toString());
+        assertEquals(recommendationService.getTopRecommendations(jobTracks, userPreferences, 4).toString(),
+                recommendationService.getTopRecommendations(ColumnarCatalog.build(jobTracks), userPreferences, 4).toString());
+    }
+}
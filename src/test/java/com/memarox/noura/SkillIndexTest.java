@@ -0,0 +1,182 @@
+package com.memarox.noura;
+
+import com.memarox.noura.index.SkillIndex;
+import com.memarox.noura.index.SubstringIndex;
+import com.memarox.noura.index.TrackScores;
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.TermDictionary;
+import com.memarox.noura.service.JobTrackDataLoader;
+import com.memarox.noura.service.RecommendationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SkillIndexTest {
+
+    private RecommendationService recommendationService;
+    private List<JobTrack> allJobTracks;
+    private SkillIndex skillIndex;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = new RecommendationService();
+        allJobTracks = new JobTrackDataLoader().loadJobTracks();
+        assertNotNull(allJobTracks, "Job tracks should not be null");
+        skillIndex = SkillIndex.build(allJobTracks);
+    }
+
+    private void assertMatchesCalculateScore(Map<String, List<String>> userPreferences) {
+        TrackScores scores = skillIndex.score(userPreferences);
+        for (int i = 0; i < allJobTracks.size(); i++) {
+            assertEquals(recommendationService.calculateScore(allJobTracks.get(i), userPreferences), scores.scoreOf(i),
+                    "Score mismatch for " + allJobTracks.get(i).getTitle());
+        }
+    }
+
+    @Test
+    void testScore_exactAndPartialSkills() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("Java", "python", "problem", "Data", "C", "TensorFlow"));
+        assertMatchesCalculateScore(userPreferences);
+    }
+
+    @Test
+    void testScore_scalarPreferences() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("Machine Learning", "SQL"));
+        userPreferences.put("primaryInterestArea", List.of("data science"));
+        userPreferences.put("workEnvironmentPreference", List.of("Startup"));
+        userPreferences.put("learningStylePreference", Arrays.asList("Hands-on Projects", "Theoretical Learning"));
+        assertMatchesCalculateScore(userPreferences);
+    }
+
+    @Test
+    void testScore_emptySkillMatchesLikeContains() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", List.of(""));
+        assertMatchesCalculateScore(userPreferences);
+    }
+
+    @Test
+    void testScore_noMatchTouchesNoTracks() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", List.of("NonExistentSkill"));
+        assertEquals(0, skillIndex.score(userPreferences).matchedCount());
+    }
+
+    @Test
+    void testGetRecommendations_indexMatchesListRanking() {
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("Python", "TensorFlow", "Machine Learning"));
+        userPreferences.put("workEnvironmentPreference", List.of("Startup"));
+
+        assertEquals(recommendationService.getRecommendations(allJobTracks, userPreferences),
+                recommendationService.getRecommendations(skillIndex, userPreferences));
+    }
+
+    @Test
+    void testSubstringIndex_matchesBruteForce() {
+        String[] terms = {"java", "javascript", "python", "data structures and algorithms", "database", "c", "c++", "c#", ""};
+        SubstringIndex substringIndex = SubstringIndex.build(terms);
+
+        for (String query : List.of("java", "a", "c", "data", "script", "++", "on", "z", "", "algorithms")) {
+            int[] expected = IntStream.range(0, terms.length).filter(i -> terms[i].contains(query)).toArray();
+            assertArrayEquals(expected, substringIndex.termsContaining(query), "Mismatch for query '" + query + "'");
+        }
+    }
+
+    @Test
+    void testEdit_matchesRebuiltIndex() {
+        List<JobTrack> edited = new ArrayList<>(allJobTracks);
+        SkillIndex.Editor editor = skillIndex.edit();
+
+        JobTrack changed = copyOf(allJobTracks.get(0), skillIndex.terms());
+        changed.setRequiredSkills(List.of("Quantum Annealing", "Java"));
+        changed.setPrimaryInterestArea("Quantum Computing");
+        assertTrue(editor.put(changed));
+        edited.set(0, changed);
+
+        JobTrack added = new JobTrack(skillIndex.terms());
+        added.setTitle("Quantum Software Engineer");
+        added.setRequiredSkills(List.of("Quantum Annealing Tooling", "Python"));
+        added.setLearningStylePreference(List.of("Hands-on Projects"));
+        assertFalse(editor.put(added));
+        edited.add(added);
+
+        String removedTitle = allJobTracks.get(1).getTitle();
+        assertTrue(editor.remove(removedTitle.toUpperCase()));
+        edited.remove(1);
+        assertFalse(editor.remove("No Such Track"));
+
+        SkillIndex patched = editor.build();
+        SkillIndex rebuilt = SkillIndex.build(edited);
+        assertEquals(allJobTracks.size(), skillIndex.size(), "The original index is unchanged");
+        assertEquals(edited.size(), patched.size());
+        assertEquals(-1, patched.ordinalOf(removedTitle));
+
+        Map<String, List<String>> userPreferences = new HashMap<>();
+        userPreferences.put("skills", Arrays.asList("quantum annealing", "Java", "Python", "data"));
+        userPreferences.put("primaryInterestArea", List.of("Quantum Computing"));
+        userPreferences.put("learningStylePreference", List.of("Hands-on Projects"));
+        TrackScores patchedScores = patched.score(userPreferences);
+        TrackScores rebuiltScores = rebuilt.score(userPreferences);
+        for (int i = 0; i < rebuilt.size(); i++) {
+            JobTrack track = rebuilt.getTrack(i);
+            int ordinal = patched.ordinalOf(track.getTitle());
+            assertSame(track, patched.getTrack(ordinal));
+            assertEquals(rebuiltScores.scoreOf(i), patchedScores.scoreOf(ordinal), "Score mismatch for " + track.getTitle());
+        }
+        assertTrue(patchedScores.scoreOf(patched.ordinalOf("Quantum Software Engineer")) > 0,
+                "Terms added by an edit are found by partial matches");
+    }
+
+    @Test
+    void testEdit_reportsChangedTerms() {
+        SkillIndex.Editor editor = skillIndex.edit();
+        JobTrack changed = copyOf(allJobTracks.get(0), skillIndex.terms());
+        changed.setRequiredSkills(List.of("Quantum Annealing"));
+        editor.put(changed);
+
+        assertTrue(editor.changes().affects(List.of("annealing"), null, null, List.of()));
+        assertFalse(editor.changes().affects(List.of("no such skill anywhere"), null, null, List.of()));
+        assertTrue(skillIndex.edit().changes().isEmpty());
+    }
+
+    @Test
+    void testEdit_rebuildsSubstringIndexForManyNewTerms() {
+        SkillIndex patched = skillIndex;
+        for (int batch = 0; batch < 3; batch++) {
+            SkillIndex.Editor editor = patched.edit();
+            for (int i = 0; i < 200; i++) {
+                JobTrack track = new JobTrack();
+                track.setTitle("Generated " + batch + "-" + i);
+                track.setRequiredSkills(List.of("zzgenerated skill " + batch + "-" + i));
+                editor.put(track);
+            }
+            patched = editor.build();
+        }
+        assertEquals(skillIndex.termCount() + 600, patched.termCount());
+        TrackScores scores = patched.score(Map.of("skills", List.of("zzgenerated skill 2-199")));
+        assertEquals(1, scores.matchedCount());
+        assertEquals(600, patched.score(Map.of("skills", List.of("zzgenerated"))).matchedCount());
+    }
+
+    private static JobTrack copyOf(JobTrack track, TermDictionary terms) {
+        JobTrack copy = new JobTrack(terms);
+        copy.setTitle(track.getTitle());
+        copy.setDescription(track.getDescription());
+        copy.setRequiredSkills(track.getRequiredSkills());
+        copy.setPrimaryInterestArea(track.getPrimaryInterestArea());
+        copy.setWorkEnvironmentPreference(track.getWorkEnvironmentPreference());
+        copy.setLearningStylePreference(track.getLearningStylePreference());
+        return copy;
+    }
+}
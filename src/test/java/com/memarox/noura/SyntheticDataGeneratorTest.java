@@ -0,0 +1,67 @@
+package com.memarox.noura;
+
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.tools.SyntheticDataGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyntheticDataGeneratorTest {
+
+    @Test
+    void testGenerateCatalog_populatesAllSkillListsWithUniqueTitles() {
+        List<JobTrack> catalog = new SyntheticDataGenerator(1, 500, 1.0, 0.2).generateCatalog(300);
+
+        assertEquals(300, catalog.size());
+        assertEquals(300, catalog.stream().map(JobTrack::getTitle).collect(Collectors.toSet()).size());
+        for (JobTrack track : catalog) {
+            for (SkillCategory category : SkillCategory.values()) {
+                assertFalse(category.valuesOf(track).isEmpty(), category + " should be populated");
+            }
+            assertNotNull(track.getPrimaryInterestArea());
+            assertNotNull(track.getWorkEnvironmentPreference());
+            assertFalse(track.getLearningStylePreference().isEmpty());
+        }
+    }
+
+    @Test
+    void testGenerate_isDeterministicForSeed() {
+        List<String> first = new SyntheticDataGenerator(7, 500, 1.2, 0.3).generateCatalog(50).stream()
+                .map(JobTrack::getRequiredSkills).map(Object::toString).collect(Collectors.toList());
+        List<String> second = new SyntheticDataGenerator(7, 500, 1.2, 0.3).generateCatalog(50).stream()
+                .map(JobTrack::getRequiredSkills).map(Object::toString).collect(Collectors.toList());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void testWriteUsersSqlite(@TempDir Path tempDir) throws Exception {
+        Map<String, Map<String, List<String>>> users = new SyntheticDataGenerator(3, 500, 1.0, 0.2).generateUsers(25, 5);
+        Path database = tempDir.resolve("users.db");
+        SyntheticDataGenerator.writeUsersSqlite(users, database);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database);
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+                assertEquals(25, rs.getInt(1));
+            }
+            int valueCount = users.values().stream()
+                    .flatMap(preferences -> preferences.values().stream())
+                    .mapToInt(List::size)
+                    .sum();
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM user_preference_values")) {
+                assertEquals(valueCount, rs.getInt(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.memarox.noura;
+
+import com.memarox.noura.model.JobTrack;
+import com.memarox.noura.model.SkillCategory;
+import com.memarox.noura.model.TermDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermDictionaryTest {
+
+    private final TermDictionary terms = new TermDictionary();
+
+    @Test
+    void testIntern_returnsStableIds() {
+        int id = terms.intern("TermDictionaryTest Python");
+        assertEquals(id, terms.intern("TermDictionaryTest Python"));
+        assertEquals(id, terms.lookup("TermDictionaryTest Python"));
+        assertEquals("TermDictionaryTest Python", terms.term(id));
+        assertEquals(-1, terms.lookup("TermDictionaryTest never interned"));
+    }
+
+    @Test
+    void testFoldedId_sharedByCaseVariants() {
+        int upper = terms.intern("TermDictionaryTest SQL");
+        int mixed = terms.intern("termDictionaryTest Sql");
+        int lower = terms.lookup("termdictionarytest sql");
+
+        assertNotEquals(upper, mixed);
+        assertTrue(lower >= 0, "Folded form should be interned with the raw term");
+        assertEquals(lower, terms.foldedId(upper));
+        assertEquals(lower, terms.foldedId(mixed));
+        assertEquals(lower, terms.foldedId(lower));
+    }
+
+    @Test
+    void testJobTrack_storesTermIdsBehindListViews() {
+        JobTrack track = new JobTrack(terms);
+        track.setRequiredSkills(Arrays.asList("Java", "SQL", "Java"));
+        track.setLearningStylePreference(List.of("Hands-on Projects"));
+
+        assertEquals(List.of("Java", "SQL", "Java"), track.getRequiredSkills());
+        assertEquals(List.of("Hands-on Projects"), track.getLearningStylePreference());
+        int[] ids = SkillCategory.REQUIRED_SKILLS.termIdsOf(track);
+        assertEquals(3, ids.length);
+        assertEquals(ids[0], ids[2]);
+        assertEquals("SQL", terms.term(ids[1]));
+        assertNull(track.getDevelopmentLanguages());
+        assertThrows(UnsupportedOperationException.class, () -> track.getRequiredSkills().add("Go"));
+    }
+}
@@ -0,0 +1,319 @@
+package com.memarox.noura;
+
+import com.memarox.noura.entity.User;
+import com.memarox.noura.service.UserPreferenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserPreferenceServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UserPreferenceService userPreferenceService;
+
+    @BeforeEach
+    void setUp() {
+        userPreferenceService = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + tempDir.resolve("test.db"),
+                "hibernate.show_sql", "false"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userPreferenceService.close();
+    }
+
+    @Test
+    void testGetOrCreateUser_cachesByUsername() {
+        User created = userPreferenceService.getOrCreateUser("alice");
+        assertNotNull(created.getId());
+        assertSame(created, userPreferenceService.getOrCreateUser("alice"));
+        assertNotEquals(created.getId(), userPreferenceService.getOrCreateUser("bob").getId());
+
+        assertEquals(1, userPreferenceService.getUserCacheStats().getHits());
+        assertEquals(2, userPreferenceService.getUserCacheStats().getMisses());
+    }
+
+    @Test
+    void testSaveUserPreferences_rejectsNullValuesBeforeWriting() {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        userPreferenceService.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+
+        Map<String, List<String>> withNullValue = new HashMap<>();
+        withNullValue.put("skills", Arrays.asList("SQL", null));
+        Map<String, List<String>> withNullList = new HashMap<>();
+        withNullList.put("skills", null);
+        assertThrows(IllegalArgumentException.class, () -> userPreferenceService.saveUserPreferences(alice, withNullValue));
+        assertThrows(IllegalArgumentException.class, () -> userPreferenceService.saveAllUserPreferences(
+                Map.of("alice", withNullList), UserPreferenceService.SaveMode.REPLACE));
+
+        assertEquals(Map.of("skills", List.of("Java")), userPreferenceService.loadUserPreferences(alice));
+        userPreferenceService.close();
+        userPreferenceService = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + tempDir.resolve("test.db"),
+                "hibernate.show_sql", "false"));
+        assertEquals(Map.of("skills", List.of("Java")), userPreferenceService.loadUserPreferences(alice),
+                "Nothing was written");
+    }
+
+    @Test
+    void testGetOrCreateUser_concurrentCallersShareOneRow() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> ids = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                ids.add(executor.submit(() -> userPreferenceService.getOrCreateUser("storm").getId()));
+            }
+            long id = ids.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Long> other : ids) {
+                assertEquals(id, other.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetOrCreateUsers_resolvesExistingAndNewNames() {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            usernames.add("user" + i);
+        }
+        usernames.add("alice");
+        usernames.add("user7");
+
+        Map<String, User> users = userPreferenceService.getOrCreateUsers(usernames);
+
+        assertEquals(1201, users.size());
+        assertEquals(List.of("user0", "user1"), users.keySet().stream().limit(2).collect(Collectors.toList()));
+        assertSame(alice, users.get("alice"), "Cached users are not looked up again");
+        assertEquals(1200, users.values().stream().map(User::getId).filter(id -> !id.equals(alice.getId())).distinct().count());
+        assertSame(users.get("user1199"), userPreferenceService.getOrCreateUser("user1199"));
+
+        // A second service resolves the same names to the same ids through the database
+        UserPreferenceService fresh = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + tempDir.resolve("test.db"),
+                "hibernate.show_sql", "false"));
+        try {
+            Map<String, User> again = fresh.getOrCreateUsers(List.of("user500", "alice", "zoe"));
+            assertEquals(users.get("user500").getId(), again.get("user500").getId());
+            assertEquals(alice.getId(), again.get("alice").getId());
+            assertNotNull(again.get("zoe").getId());
+        } finally {
+            fresh.close();
+        }
+    }
+
+    @Test
+    void testSaveUserPreferences_writesThroughToCache() {
+        User user = userPreferenceService.getOrCreateUser("alice");
+        assertTrue(userPreferenceService.loadUserPreferences(user).isEmpty());
+
+        userPreferenceService.saveUserPreferences(user, Map.of("skills", List.of("Java", "SQL")));
+        Map<String, List<String>> loaded = userPreferenceService.loadUserPreferences(user);
+
+        assertEquals(Map.of("skills", List.of("Java", "SQL")), loaded);
+        assertEquals(1, userPreferenceService.getPreferenceCacheStats().getHits(), "The saved preferences are served from the cache");
+        assertThrows(UnsupportedOperationException.class, () -> loaded.put("skills", List.of()));
+    }
+
+    @Test
+    void testLoadUserPreferences_readsPersistedPreferences() {
+        User user = userPreferenceService.getOrCreateUser("alice");
+        userPreferenceService.saveUserPreferences(user, Map.of("skills", List.of("Java"), "primaryInterestArea", List.of("AI")));
+        userPreferenceService.close();
+
+        userPreferenceService = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + tempDir.resolve("test.db"),
+                "hibernate.show_sql", "false"));
+        User reloaded = userPreferenceService.getOrCreateUser("alice");
+        assertEquals(user.getId(), reloaded.getId());
+        assertEquals(Map.of("skills", List.of("Java"), "primaryInterestArea", List.of("AI")),
+                userPreferenceService.loadUserPreferences(reloaded));
+        assertEquals(0, userPreferenceService.getPreferenceCacheStats().getHits());
+    }
+
+    @Test
+    void testSaveAllUserPreferences_replacesInOneTransaction() {
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        userPreferenceService.saveUserPreferences(alice, Map.of("skills", List.of("COBOL"), "workEnvironmentPreference", List.of("Office")));
+
+        int written = userPreferenceService.saveAllUserPreferences(Map.of(
+                "alice", Map.of("skills", List.of("Java", "SQL")),
+                "bob", Map.of("skills", List.of("Python"), "primaryInterestArea", List.of("AI"))),
+                UserPreferenceService.SaveMode.REPLACE);
+
+        assertEquals(6, written, "Two values deleted, four inserted");
+        assertStored("alice", Map.of("skills", List.of("Java", "SQL")));
+        assertStored("bob", Map.of("skills", List.of("Python"), "primaryInterestArea", List.of("AI")));
+    }
+
+    @Test
+    void testSaveAllUserPreferences_changedKeysWritesOnlyDifferences() {
+        userPreferenceService.saveAllUserPreferences(Map.of(
+                "alice", Map.of("skills", List.of("Java"), "primaryInterestArea", List.of("AI"), "workEnvironmentPreference", List.of("Remote")),
+                "bob", Map.of("skills", List.of("Python"))),
+                UserPreferenceService.SaveMode.REPLACE);
+
+        int written = userPreferenceService.saveAllUserPreferences(Map.of(
+                "alice", Map.of("skills", List.of("Java", "SQL"), "primaryInterestArea", List.of("AI"), "learningStylePreference", List.of("Videos")),
+                "bob", Map.of("skills", List.of("Python"))),
+                UserPreferenceService.SaveMode.CHANGED_KEYS);
+
+        assertEquals(3, written, "Two values inserted and one deleted; unchanged values are not written");
+        assertStored("alice", Map.of("skills", List.of("Java", "SQL"), "primaryInterestArea", List.of("AI"),
+                "learningStylePreference", List.of("Videos")));
+        assertStored("bob", Map.of("skills", List.of("Python")));
+        assertEquals(0, userPreferenceService.saveAllUserPreferences(Map.of("bob", Map.of("skills", List.of("Python"))),
+                UserPreferenceService.SaveMode.CHANGED_KEYS));
+    }
+
+    @Test
+    void testSaveAllUserPreferences_changedKeysRewritesChangedPositions() {
+        userPreferenceService.saveAllUserPreferences(Map.of(
+                "alice", Map.of("skills", List.of("Java", "SQL", "Go"))), UserPreferenceService.SaveMode.REPLACE);
+
+        int written = userPreferenceService.saveAllUserPreferences(Map.of(
+                "alice", Map.of("skills", List.of("Java", "Rust"))), UserPreferenceService.SaveMode.CHANGED_KEYS);
+
+        assertEquals(2, written, "The second value updated, the third deleted");
+        assertStored("alice", Map.of("skills", List.of("Java", "Rust")));
+    }
+
+    @Test
+    void testSaveUserPreferences_keepsValuesContainingCommas() {
+        User user = userPreferenceService.getOrCreateUser("alice");
+        userPreferenceService.saveUserPreferences(user, Map.of("skills", List.of("Java", "Sales, B2B"), "primaryInterestArea", List.of()));
+
+        assertStored("alice", Map.of("skills", List.of("Java", "Sales, B2B")));
+        assertEquals(Map.of("skills", List.of("Java", "Sales, B2B")), userPreferenceService.loadUserPreferences(user),
+                "The cached copy matches what a load returns, without the empty key");
+    }
+
+    @Test
+    void testFindUsernamesByPreference() {
+        userPreferenceService.saveAllUserPreferences(Map.of(
+                "alice", Map.of("skills", List.of("Java", "SQL")),
+                "bob", Map.of("skills", List.of("Python"), "primaryInterestArea", List.of("SQL")),
+                "carol", Map.of("skills", List.of("SQL"))),
+                UserPreferenceService.SaveMode.REPLACE);
+
+        assertEquals(List.of("alice", "carol"), userPreferenceService.findUsernamesByPreference("skills", "SQL"));
+        assertEquals(List.of("bob"), userPreferenceService.findUsernamesByPreference("primaryInterestArea", "SQL"));
+        assertTrue(userPreferenceService.findUsernamesByPreference("skills", "COBOL").isEmpty());
+    }
+
+    @Test
+    void testLegacyCommaJoinedPreferencesAreMigrated() throws Exception {
+        userPreferenceService.close();
+        Path legacyDatabase = tempDir.resolve("legacy.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + legacyDatabase);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username VARCHAR(255) NOT NULL UNIQUE)");
+            statement.execute("CREATE TABLE user_preferences (id INTEGER PRIMARY KEY AUTOINCREMENT, preferenceKey VARCHAR(255) NOT NULL, "
+                    + "preferenceValue VARCHAR(1000) NOT NULL, user_id BIGINT NOT NULL REFERENCES users (id))");
+            statement.execute("INSERT INTO users (username) VALUES ('alice')");
+            statement.execute("INSERT INTO user_preferences (user_id, preferenceKey, preferenceValue) VALUES "
+                    + "(1, 'skills', 'Java,SQL,Python'), (1, 'primaryInterestArea', 'AI'), (1, 'learningStylePreference', '')");
+        }
+
+        userPreferenceService = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + legacyDatabase,
+                "hibernate.show_sql", "false"));
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        assertEquals(1L, alice.getId());
+        assertEquals(Map.of("skills", List.of("Java", "SQL", "Python"), "primaryInterestArea", List.of("AI")),
+                userPreferenceService.loadUserPreferences(alice));
+        assertEquals(List.of("alice"), userPreferenceService.findUsernamesByPreference("skills", "SQL"));
+
+        // The legacy table is kept under a new name, so reopening does not migrate again
+        userPreferenceService.close();
+        userPreferenceService = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + legacyDatabase,
+                "hibernate.show_sql", "false"));
+        assertEquals(List.of("Java", "SQL", "Python"),
+                userPreferenceService.loadUserPreferences(userPreferenceService.getOrCreateUser("alice")).get("skills"));
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + legacyDatabase);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM user_preferences_legacy")) {
+            assertEquals(3, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void testProductionUnit_usesWalAndSerializesConcurrentWriters() throws Exception {
+        Path database = tempDir.resolve("production.db");
+        UserPreferenceService production = new UserPreferenceService(UserPreferenceService.PRODUCTION_PERSISTENCE_UNIT,
+                Map.of("jakarta.persistence.jdbc.url", "jdbc:sqlite:" + database));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String username = "user" + (i % 10);
+                List<String> skills = List.of("Skill" + i);
+                saves.add(executor.submit(() -> {
+                    User user = production.getOrCreateUser(username);
+                    production.saveUserPreferences(user, Map.of("skills", skills));
+                    production.loadUserPreferences(user);
+                }));
+            }
+            for (Future<?> save : saves) {
+                save.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(1, production.findUsernamesByPreference("skills", "Skill0").size()
+                    + production.findUsernamesByPreference("skills", "Skill10").size()
+                    + production.findUsernamesByPreference("skills", "Skill20").size()
+                    + production.findUsernamesByPreference("skills", "Skill30").size(),
+                    "Each user keeps exactly one of the values saved for it");
+        } finally {
+            executor.shutdownNow();
+            production.close();
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database);
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("PRAGMA journal_mode")) {
+                assertEquals("wal", rs.getString(1));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+                assertEquals(10, rs.getInt(1));
+            }
+        }
+    }
+
+    /**
+     * Reads the stored preferences through a fresh service, bypassing the caches of the one under test.
+     */
+    private void assertStored(String username, Map<String, List<String>> expected) {
+        UserPreferenceService fresh = new UserPreferenceService(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + tempDir.resolve("test.db"),
+                "hibernate.show_sql", "false"));
+        try {
+            assertEquals(expected, fresh.loadUserPreferences(fresh.getOrCreateUser(username)));
+        } finally {
+            fresh.close();
+        }
+    }
+}
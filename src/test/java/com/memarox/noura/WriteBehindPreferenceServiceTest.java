@@ -0,0 +1,213 @@
+package com.memarox.noura;
+
+import com.memarox.noura.entity.User;
+import com.memarox.noura.service.UserPreferenceService;
+import com.memarox.noura.service.WriteBehindPreferenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindPreferenceServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GatedUserPreferenceService userPreferenceService;
+
+    @BeforeEach
+    void setUp() {
+        userPreferenceService = new GatedUserPreferenceService(properties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userPreferenceService.release();
+        userPreferenceService.close();
+    }
+
+    @Test
+    void testSaveUserPreferences_visibleBeforeCommitAndStoredAfterFlush() throws Exception {
+        WriteBehindPreferenceService writeBehind = new WriteBehindPreferenceService(userPreferenceService, 10);
+        User alice = userPreferenceService.getOrCreateUser("alice");
+
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+        assertTrue(userPreferenceService.awaitCommit(), "The writer starts committing in the background");
+        assertEquals(Map.of("skills", List.of("Java")), writeBehind.loadUserPreferences(alice));
+        assertEquals(1, writeBehind.getPendingCount());
+
+        userPreferenceService.release();
+        assertTrue(writeBehind.flush(5, TimeUnit.SECONDS));
+        assertEquals(0, writeBehind.getPendingCount());
+        assertStored("alice", Map.of("skills", List.of("Java")));
+        writeBehind.close();
+    }
+
+    @Test
+    void testSaveUserPreferences_coalescesPerUserWhileACommitRuns() throws Exception {
+        WriteBehindPreferenceService writeBehind = new WriteBehindPreferenceService(userPreferenceService, 10);
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        User bob = userPreferenceService.getOrCreateUser("bob");
+
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("COBOL")));
+        assertTrue(userPreferenceService.awaitCommit());
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+        writeBehind.saveUserPreferences(bob, Map.of("skills", List.of("Python")));
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("Java", "SQL")));
+
+        assertEquals(Map.of("skills", List.of("Java", "SQL")), writeBehind.loadUserPreferences(alice),
+                "The latest queued save wins over the one being committed");
+        userPreferenceService.release();
+        writeBehind.close();
+
+        assertEquals(1, writeBehind.getCoalescedCount());
+        assertEquals(List.of(1, 2), userPreferenceService.batchSizes, "Saves queued during a commit form one batch");
+        assertStored("alice", Map.of("skills", List.of("Java", "SQL")));
+        assertStored("bob", Map.of("skills", List.of("Python")));
+    }
+
+    @Test
+    void testSaveUserPreferences_blocksWhileTheQueueIsFull() throws Exception {
+        WriteBehindPreferenceService writeBehind = new WriteBehindPreferenceService(userPreferenceService, 1);
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        User bob = userPreferenceService.getOrCreateUser("bob");
+        User carol = userPreferenceService.getOrCreateUser("carol");
+
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+        assertTrue(userPreferenceService.awaitCommit());
+        writeBehind.saveUserPreferences(bob, Map.of("skills", List.of("Python")));
+        writeBehind.saveUserPreferences(bob, Map.of("skills", List.of("Go")));
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(
+                () -> writeBehind.saveUserPreferences(carol, Map.of("skills", List.of("Rust"))));
+        Thread.sleep(200);
+        assertFalse(blocked.isDone(), "A new user waits while the queue is full; a queued user does not");
+
+        userPreferenceService.release();
+        blocked.get(5, TimeUnit.SECONDS);
+        writeBehind.close();
+        assertStored("bob", Map.of("skills", List.of("Go")));
+        assertStored("carol", Map.of("skills", List.of("Rust")));
+    }
+
+    @Test
+    void testClose_commitsQueuedSavesAndRejectsNewOnes() {
+        userPreferenceService.release();
+        WriteBehindPreferenceService writeBehind = new WriteBehindPreferenceService(userPreferenceService, 100);
+        for (int i = 0; i < 50; i++) {
+            User user = userPreferenceService.getOrCreateUser("user" + i);
+            writeBehind.saveUserPreferences(user, Map.of("skills", List.of("Skill" + i)));
+        }
+        writeBehind.close();
+
+        assertEquals(0, writeBehind.getPendingCount());
+        assertStored("user49", Map.of("skills", List.of("Skill49")));
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        assertThrows(IllegalStateException.class, () -> writeBehind.saveUserPreferences(alice, Map.of()));
+    }
+
+    @Test
+    void testFailedCommit_isRetriedAndNewerSavesWin() throws Exception {
+        WriteBehindPreferenceService writeBehind = new WriteBehindPreferenceService(userPreferenceService, 10);
+        User alice = userPreferenceService.getOrCreateUser("alice");
+        User bob = userPreferenceService.getOrCreateUser("bob");
+        userPreferenceService.failuresLeft.set(1);
+
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("COBOL")));
+        writeBehind.saveUserPreferences(bob, Map.of("skills", List.of("Python")));
+        assertTrue(userPreferenceService.awaitCommit());
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+        userPreferenceService.release();
+
+        assertTrue(writeBehind.flush(5, TimeUnit.SECONDS));
+        assertEquals(0, userPreferenceService.failuresLeft.get(), "The first commit failed");
+        assertTrue(writeBehind.getRetriedCount() > 0);
+        assertEquals(Map.of("skills", List.of("Java")), writeBehind.loadUserPreferences(alice));
+        writeBehind.close();
+        assertEquals(0, writeBehind.getFailedCount());
+        assertStored("alice", Map.of("skills", List.of("Java")));
+        assertStored("bob", Map.of("skills", List.of("Python")));
+    }
+
+    @Test
+    void testClose_reportsSavesThatCannotBeCommitted() {
+        userPreferenceService.release();
+        userPreferenceService.failuresLeft.set(Integer.MAX_VALUE);
+        WriteBehindPreferenceService writeBehind = new WriteBehindPreferenceService(userPreferenceService, 10);
+        User alice = userPreferenceService.getOrCreateUser("alice");
+
+        writeBehind.saveUserPreferences(alice, Map.of("skills", List.of("Java")));
+        IllegalStateException e = assertThrows(IllegalStateException.class, writeBehind::close);
+
+        assertTrue(e.getMessage().contains("alice"), e.getMessage());
+        assertEquals(1, writeBehind.getFailedCount());
+        assertEquals(0, writeBehind.getPendingCount());
+    }
+
+    private Map<String, String> properties() {
+        return Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:sqlite:" + tempDir.resolve("test.db"),
+                "hibernate.show_sql", "false");
+    }
+
+    /**
+     * Reads the stored preferences through a fresh service, bypassing the queue and caches under test.
+     */
+    private void assertStored(String username, Map<String, List<String>> expected) {
+        UserPreferenceService fresh = new UserPreferenceService(properties());
+        try {
+            assertEquals(expected, fresh.loadUserPreferences(fresh.getOrCreateUser(username)));
+        } finally {
+            fresh.close();
+        }
+    }
+
+    /**
+     * Holds every bulk save until {@link #release()} is called, so tests can queue saves behind a running commit,
+     * and then fails it while {@code failuresLeft} is positive.
+     */
+    private static final class GatedUserPreferenceService extends UserPreferenceService {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failuresLeft = new AtomicInteger();
+
+        GatedUserPreferenceService(Map<String, ?> properties) {
+            super(properties);
+        }
+
+        @Override
+        public int saveAllUserPreferences(Map<String, Map<String, List<String>>> preferencesByUsername, SaveMode mode) {
+            batchSizes.add(preferencesByUsername.size());
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("[SQLITE_BUSY] The database file is locked");
+            }
+            return super.saveAllUserPreferences(preferencesByUsername, mode);
+        }
+
+        boolean awaitCommit() throws InterruptedException {
+            return entered.await(5, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+    }
+}